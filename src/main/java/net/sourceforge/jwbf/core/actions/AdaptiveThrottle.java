@@ -0,0 +1,250 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.primitives.Longs;
+import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.Uninterruptibles;
+import net.sourceforge.jwbf.JWBF;
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A request rate for MediaWiki APIs that follows the load of the server. Every request gets a
+ * <code>maxlag</code> parameter; if the server rejects it because of replication lag, the rate is
+ * halved and the next request waits as long as the server asks for with
+ * <code>Retry-After</code>. Fast responses raise the rate again step by step, slow responses
+ * lower it.
+ *
+ * @see <a href="https://www.mediawiki.org/wiki/Manual:Maxlag_parameter">Maxlag parameter</a>
+ */
+public class AdaptiveThrottle {
+
+  private static final Logger log = LoggerFactory.getLogger(AdaptiveThrottle.class);
+
+  static final String API_ERROR = "MediaWiki-API-Error";
+  static final String DATABASE_LAG = "X-Database-Lag";
+  static final String RETRY_AFTER = "Retry-After";
+
+  private static final long DEFAULT_RETRY_AFTER_MILLIS = TimeUnit.SECONDS.toMillis(5);
+  private static final int TOO_MANY_REQUESTS = 429;
+
+  private final int maxlag;
+  private final double minRate;
+  private final double maxRate;
+  private final double rateStep;
+  private final long slowResponseMillis;
+  private final int maxLagRetries;
+  private final RateLimiter rateLimiter;
+  private final Object pauseLock = new Object();
+  private long pausedUntilMillis = 0;
+
+  AdaptiveThrottle(Builder builder) {
+    this.maxlag = builder.maxlag;
+    this.minRate = builder.minRate;
+    this.maxRate = builder.maxRate;
+    this.rateStep = builder.rateStep;
+    this.slowResponseMillis = builder.slowResponseMillis;
+    this.maxLagRetries = builder.maxLagRetries;
+    this.rateLimiter = RateLimiter.create(builder.initialRate);
+  }
+
+  /**
+   * @return the currently permitted requests per second
+   */
+  public double getRate() {
+    return rateLimiter.getRate();
+  }
+
+  public int getMaxlag() {
+    return maxlag;
+  }
+
+  int getMaxLagRetries() {
+    return maxLagRetries;
+  }
+
+  /**
+   * Blocks until the server is expected to accept the next request.
+   */
+  void acquire() {
+    long pause;
+    synchronized (pauseLock) {
+      pause = pausedUntilMillis - currentTimeMillis();
+    }
+    if (pause > 0) {
+      sleepMillis(pause);
+    }
+    rateLimiter.acquire();
+  }
+
+  /**
+   * Adds the <code>maxlag</code> parameter to the given request, if it has none yet.
+   */
+  void addMaxlag(HttpRequestBase request) {
+    URI uri = request.getURI();
+    String query = uri.getRawQuery();
+    if (query == null || !query.matches("(^|.*&)maxlag=.*")) {
+      String separator = "&";
+      if (query == null) {
+        separator = "?";
+      }
+      request.setURI(JWBF.toUri(uri.toString() + separator + "maxlag=" + maxlag));
+    }
+  }
+
+  /**
+   * @return true if the server rejected the request because of replication lag; such requests
+   * can be sent again after {@link #acquire()}
+   */
+  boolean onResponse(HttpResponse response, long latencyMillis) {
+    if (isMaxlagError(response)) {
+      Optional<Long> lag = headerSeconds(response, DATABASE_LAG);
+      long wait = retryAfterMillis(response);
+      log.warn("server is lagged ({} s), waiting {} ms", lag.or(-1L), wait);
+      decrease(0.5);
+      pause(wait);
+      return true;
+    }
+    int status = response.getStatusLine().getStatusCode();
+    if (status == TOO_MANY_REQUESTS || status == HttpStatus.SC_SERVICE_UNAVAILABLE) {
+      decrease(0.5);
+      pause(retryAfterMillis(response));
+    } else if (latencyMillis > slowResponseMillis) {
+      decrease(0.75);
+    } else {
+      increase();
+    }
+    return false;
+  }
+
+  private static boolean isMaxlagError(HttpResponse response) {
+    Header error = response.getFirstHeader(API_ERROR);
+    return error != null && "maxlag".equals(error.getValue());
+  }
+
+  private static long retryAfterMillis(HttpResponse response) {
+    Optional<Long> retryAfter = headerSeconds(response, RETRY_AFTER);
+    if (retryAfter.isPresent()) {
+      return TimeUnit.SECONDS.toMillis(retryAfter.get());
+    }
+    return DEFAULT_RETRY_AFTER_MILLIS;
+  }
+
+  private static Optional<Long> headerSeconds(HttpResponse response, String name) {
+    Header header = response.getFirstHeader(name);
+    if (header != null) {
+      Long seconds = Longs.tryParse(header.getValue().trim());
+      if (seconds != null && seconds >= 0) {
+        return Optional.of(seconds);
+      }
+    }
+    return Optional.absent();
+  }
+
+  private void decrease(double factor) {
+    synchronized (rateLimiter) {
+      rateLimiter.setRate(Math.max(minRate, rateLimiter.getRate() * factor));
+    }
+  }
+
+  private void increase() {
+    synchronized (rateLimiter) {
+      rateLimiter.setRate(Math.min(maxRate, rateLimiter.getRate() + rateStep));
+    }
+  }
+
+  private void pause(long millis) {
+    synchronized (pauseLock) {
+      pausedUntilMillis = Math.max(pausedUntilMillis, currentTimeMillis() + millis);
+    }
+  }
+
+  @VisibleForTesting
+  long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+
+  @VisibleForTesting
+  void sleepMillis(long millis) {
+    Uninterruptibles.sleepUninterruptibly(millis, TimeUnit.MILLISECONDS);
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static class Builder {
+
+    private int maxlag = 5;
+    private double initialRate = 1;
+    private double minRate = 0.1;
+    private double maxRate = 10;
+    private double rateStep = 0.1;
+    private long slowResponseMillis = TimeUnit.SECONDS.toMillis(10);
+    private int maxLagRetries = 5;
+
+    /**
+     * @param maxlag in seconds, default is 5, which is recommended for most bots
+     */
+    public Builder withMaxlag(int maxlag) {
+      Preconditions.checkArgument(maxlag > 0, "maxlag must be > 0, but was " + maxlag);
+      this.maxlag = maxlag;
+      return this;
+    }
+
+    /**
+     * @param initialRate requests per second to start with
+     * @param minRate     lowest rate in case of lag
+     * @param maxRate     highest rate when the server is idle
+     */
+    public Builder withRates(double initialRate, double minRate, double maxRate) {
+      Preconditions.checkArgument(0 < minRate && minRate <= initialRate && initialRate <= maxRate,
+          "rates must be 0 < min <= initial <= max, but were " + minRate + ", " + initialRate +
+              ", " + maxRate);
+      this.initialRate = initialRate;
+      this.minRate = minRate;
+      this.maxRate = maxRate;
+      return this;
+    }
+
+    /**
+     * @param rateStep increase of requests per second after each fast response
+     */
+    public Builder withRateStep(double rateStep) {
+      Preconditions.checkArgument(rateStep > 0, "rateStep must be > 0, but was " + rateStep);
+      this.rateStep = rateStep;
+      return this;
+    }
+
+    /**
+     * @param slowResponse responses taking longer than this lower the rate
+     */
+    public Builder withSlowResponse(long slowResponse, TimeUnit unit) {
+      this.slowResponseMillis = unit.toMillis(slowResponse);
+      return this;
+    }
+
+    /**
+     * @param maxLagRetries how often a request is sent again when the server is lagged
+     */
+    public Builder withMaxLagRetries(int maxLagRetries) {
+      Preconditions.checkArgument(maxLagRetries >= 0,
+          "maxLagRetries must be >= 0, but was " + maxLagRetries);
+      this.maxLagRetries = maxLagRetries;
+      return this;
+    }
+
+    public AdaptiveThrottle build() {
+      return new AdaptiveThrottle(this);
+    }
+  }
+}
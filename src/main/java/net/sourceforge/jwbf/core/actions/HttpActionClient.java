@@ -24,19 +24,27 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.net.URI;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 import javax.annotation.Nonnull;
 
 import net.sourceforge.jwbf.JWBF;
 import net.sourceforge.jwbf.core.Transform;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.core.actions.util.HttpStatusException;
 import net.sourceforge.jwbf.core.internal.Checked;
 import net.sourceforge.jwbf.core.internal.NonnullFunction;
 
@@ -45,14 +53,22 @@ import org.apache.http.HttpResponse;
 import org.apache.http.HttpStatus;
 import org.apache.http.StatusLine;
 import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpRequestBase;
 import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.HttpClientConnectionManager;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClientVersion;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -61,11 +77,17 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.io.CharStreams;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.RateLimiter;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
 
 /**
  * The main interaction class.
@@ -85,8 +107,24 @@ public class HttpActionClient {
 
     private final Optional<RateLimiter> rateLimiter;
 
+    private final Optional<AdaptiveThrottle> throttle;
+
+    private final Optional<RetryPolicy> retryPolicy;
+
+    private final Optional<ConcurrentMap<String, ListenableFuture<String>>> inFlight;
+
+    private final AtomicLong coalescedRequests = new AtomicLong();
+
     private final URL url;
 
+    private final boolean concurrent;
+
+    private final ReentrantLock actionLock = new ReentrantLock();
+
+    private final Optional<TransferStatistics> transferStatistics;
+
+    private final Optional<PoolingHttpClientConnectionManager> connectionPool;
+
     public HttpActionClient(final URL url) {
         this(HttpClientBuilder.create(), url);
     }
@@ -100,16 +138,67 @@ public class HttpActionClient {
         path = pathOf(url);
         host = newHost(url);
         rateLimiter = Optional.absent();
+        throttle = Optional.absent();
+        retryPolicy = Optional.absent();
+        inFlight = Optional.absent();
+        concurrent = false;
+        transferStatistics = Optional.absent();
+        connectionPool = Optional.absent();
         this.client = clientBuilder.build();
     }
 
     public HttpActionClient(Builder builder) {
+        this(builder, builder.client, Optional.<TransferStatistics> absent());
+    }
+
+    private HttpActionClient(Builder builder, HttpClient client,
+            Optional<TransferStatistics> transferStatistics) {
         this.url = Checked.nonNull(builder.url, "url");
         host = newHost(builder.url);
         path = pathOf(builder.url);
         rateLimiter = builder.rateLimiter;
+        throttle = builder.throttle;
+        retryPolicy = builder.retryPolicy;
+        if (builder.requestCoalescing) {
+            inFlight = Optional.<ConcurrentMap<String, ListenableFuture<String>>> of(
+                    new ConcurrentHashMap<String, ListenableFuture<String>>());
+        } else {
+            inFlight = Optional.absent();
+        }
+        concurrent = builder.maxRequestsPerHost.isPresent();
+        this.transferStatistics = transferStatistics;
+        connectionPool = builder.connectionPool;
+
+        this.client = client;
+    }
+
+    /**
+     * @return byte counts of all responses of this client; absent, if the
+     *         client was provided with {@link Builder#withClient(HttpClient)}
+     *         or a {@link HttpClientBuilder}, because its responses can not
+     *         be intercepted
+     */
+    public Optional<TransferStatistics> getTransferStatistics() {
+        return transferStatistics;
+    }
 
-        this.client = builder.client;
+    /**
+     * @return the number of GET requests that were answered by an identical
+     *         request in flight, see {@link Builder#withRequestCoalescing()}
+     */
+    public long getCoalescedRequestCount() {
+        return coalescedRequests.get();
+    }
+
+    /**
+     * @return statistics of the connection pool, if this client was created by
+     *         {@link Builder#build()} with a pooling connection manager
+     */
+    public Optional<PoolStats> getPoolStats() {
+        if (connectionPool.isPresent()) {
+            return Optional.of(connectionPool.get().getTotalStats());
+        }
+        return Optional.absent();
     }
 
     private HttpHost newHost(final URL url) {
@@ -129,25 +218,58 @@ public class HttpActionClient {
      * @return message, never null
      */
     @Nonnull
-    public synchronized String performAction(
-            ContentProcessable contentProcessable) {
-        String out = "";
-        while (contentProcessable.hasMoreMessages()) {
-            HttpAction httpAction = contentProcessable.getNextMessage();
-            ReturningTextProcessor answerParser = contentProcessable;
-            out = processAction(httpAction, answerParser);
+    public String performAction(ContentProcessable contentProcessable) {
+        lockAction();
+        try {
+            String out = "";
+            while (contentProcessable.hasMoreMessages()) {
+                HttpAction httpAction = contentProcessable.getNextMessage();
+                ReturningTextProcessor answerParser = contentProcessable;
+                out = processAction(httpAction, answerParser);
+            }
+            return out;
+        } finally {
+            unlockAction();
         }
-        return out;
     }
 
     @Beta
-    public synchronized void performAction(ActionHandler actionHandler) {
-        while (actionHandler.hasMoreActions()) {
-            HttpAction httpAction = actionHandler.popAction();
-            processAction(httpAction, new ResponseHandler(actionHandler));
+    public void performAction(ActionHandler actionHandler) {
+        lockAction();
+        try {
+            while (actionHandler.hasMoreActions()) {
+                HttpAction httpAction = actionHandler.popAction();
+                processAction(httpAction, new ResponseHandler(actionHandler));
+            }
+        } finally {
+            unlockAction();
+        }
+    }
+
+    /**
+     * Without concurrent requests all actions of this client are serialized;
+     * the lock is reentrant, because actions may perform other actions while
+     * they create their next message.
+     */
+    private void lockAction() {
+        if (!concurrent) {
+            actionLock.lock();
+        }
+    }
+
+    private void unlockAction() {
+        if (!concurrent) {
+            actionLock.unlock();
         }
     }
 
+    /**
+     * @return true if independent actions are executed in parallel
+     */
+    public boolean isConcurrent() {
+        return concurrent;
+    }
+
     @VisibleForTesting
     protected String processAction(HttpAction httpAction,
             ReturningTextProcessor answerParser) {
@@ -230,7 +352,8 @@ public class HttpActionClient {
     @VisibleForTesting
     protected void consume(HttpResponse res) {
         try {
-            res.getEntity().getContent().close();
+            // reads the remaining content, so the connection can be reused
+            EntityUtils.consume(res.getEntity());
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
@@ -238,14 +361,54 @@ public class HttpActionClient {
 
     private String executeAndProcess(HttpRequestBase requestBase,
             ReturningTextProcessor cp, HttpAction ha) {
+        int attempt = 0;
+        while (true) {
+            try {
+                return executeAndProcessOnce(requestBase, cp, ha);
+            } catch (RuntimeException e) {
+                if (!isRetried(requestBase, e, attempt++)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private boolean isRetried(HttpRequestBase requestBase, RuntimeException e,
+            int attempt) {
+        if (!retryPolicy.isPresent()) {
+            return false;
+        }
+        if (throttle.isPresent() && RetryPolicy.isMaxlag(e)) {
+            // the throttle owns maxlag; it has already waited and retried
+            return false;
+        }
+        return retryPolicy.get().retry(requestBase, e, attempt);
+    }
+
+    private String executeAndProcessOnce(HttpRequestBase requestBase,
+            ReturningTextProcessor cp, HttpAction ha) {
 
         log.debug("message {} is: " + //
                 "\n\t hostPath : {} " + //
                 "\n\t queryPath: {}", debug(requestBase, ha, cp));
+        if (inFlight.isPresent() && requestBase instanceof HttpGet) {
+            String out = getCoalesced(requestBase, ha);
+            if (cp instanceof ReturningStreamProcessor) {
+                return ((ReturningStreamProcessor) cp).processReturningStream(
+                        new StringReader(out), ha);
+            } else if (cp != null) {
+                return cp.processReturningText(out, ha);
+            } else {
+                return out;
+            }
+        }
         HttpResponse res = execute(requestBase);
 
-        final String out = writeToString(ha, res);
         try {
+            if (cp instanceof ReturningStreamProcessor) {
+                return processStream((ReturningStreamProcessor) cp, ha, res);
+            }
+            final String out = writeToString(ha, res);
             if (cp != null) {
                 return cp.processReturningText(out, ha);
             } else {
@@ -256,6 +419,57 @@ public class HttpActionClient {
         }
     }
 
+    /**
+     * Identical GET requests in flight at the same time share one response;
+     * the first caller executes it, all others wait for its result.
+     */
+    private String getCoalesced(HttpRequestBase requestBase, HttpAction ha) {
+        ConcurrentMap<String, ListenableFuture<String>> requests = inFlight.get();
+        String key = requestBase.getURI().toString();
+        SettableFuture<String> response = SettableFuture.create();
+        ListenableFuture<String> running = requests.putIfAbsent(key, response);
+        if (running != null) {
+            coalescedRequests.incrementAndGet();
+            log.debug("waiting for identical request in flight: {}", key);
+            return awaitCoalesced(running);
+        }
+        try {
+            HttpResponse res = execute(requestBase);
+            try {
+                String out = writeToString(ha, res);
+                response.set(out);
+                return out;
+            } finally {
+                consume(res);
+            }
+        } catch (RuntimeException e) {
+            response.setException(e);
+            throw e;
+        } finally {
+            requests.remove(key, response);
+        }
+    }
+
+    private static String awaitCoalesced(ListenableFuture<String> running) {
+        try {
+            return Uninterruptibles.getUninterruptibly(running);
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+    }
+
+    private String processStream(ReturningStreamProcessor cp, HttpAction ha,
+            HttpResponse res) {
+        Charset charSet = Charset.forName(ha.getCharset());
+
+        try (InputStream content = res.getEntity().getContent();
+                Reader reader = new BufferedReader(new InputStreamReader(content, charSet))) {
+            return cp.processReturningStream(reader, ha);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     @Nonnull
     @VisibleForTesting
     String writeToString(HttpAction ha, HttpResponse res) {
@@ -281,20 +495,50 @@ public class HttpActionClient {
 
     @VisibleForTesting
     HttpResponse execute(HttpRequestBase requestBase) {
+        if (throttle.isPresent()) {
+            return executeThrottled(requestBase, throttle.get());
+        }
+        return checkStatus(requestBase, executeRateLimited(requestBase));
+    }
+
+    private HttpResponse executeThrottled(HttpRequestBase requestBase,
+            AdaptiveThrottle adaptiveThrottle) {
+        adaptiveThrottle.addMaxlag(requestBase);
+        int retries = 0;
+        while (true) {
+            adaptiveThrottle.acquire();
+            long start = System.currentTimeMillis();
+            HttpResponse res = executeRateLimited(requestBase);
+            long latency = System.currentTimeMillis() - start;
+            if (!adaptiveThrottle.onResponse(res, latency)) {
+                return checkStatus(requestBase, res);
+            }
+            consume(res);
+            if (retries++ >= adaptiveThrottle.getMaxLagRetries()) {
+                throw new IllegalStateException("server is lagged, gave up after " +
+                        retries + " attempts; for " + requestBase.getURI());
+            }
+        }
+    }
+
+    private HttpResponse executeRateLimited(HttpRequestBase requestBase) {
         if (rateLimiter.isPresent()) {
             rateLimiter.get().acquire();
         }
-        HttpResponse res;
         try {
-            res = client.execute(requestBase);
+            return client.execute(requestBase);
         } catch (IOException e) {
             throw new IllegalStateException(e);
         }
+    }
+
+    private HttpResponse checkStatus(HttpRequestBase requestBase,
+            HttpResponse res) {
         StatusLine statusLine = res.getStatusLine();
         int code = statusLine.getStatusCode();
         if (code >= HttpStatus.SC_BAD_REQUEST) {
             consume(res);
-            throw new IllegalStateException("invalid status: " + statusLine +
+            throw new HttpStatusException(code, "invalid status: " + statusLine +
                     "; for " + requestBase.getURI());
         }
         return res;
@@ -363,6 +607,22 @@ public class HttpActionClient {
         };
 
         private Optional<RateLimiter> rateLimiter = Optional.absent();
+        private Optional<AdaptiveThrottle> throttle = Optional.absent();
+        private Optional<RetryPolicy> retryPolicy = Optional.absent();
+        private boolean requestCoalescing = false;
+        private Optional<Integer> maxRequestsPerHost = Optional.absent();
+        private boolean contentCompression = true;
+        private Optional<Integer> maxConnections = Optional.absent();
+        private Optional<Integer> maxConnectionsPerRoute = Optional.absent();
+        private Optional<HttpClientConnectionManager> sharedConnectionManager = Optional
+                .absent();
+        private Optional<Long> keepAliveMillis = Optional.absent();
+        private Optional<Long> connectTimeoutMillis = Optional.absent();
+        private Optional<Long> socketTimeoutMillis = Optional.absent();
+        private Optional<Long> maxIdleMillis = Optional.absent();
+        private Optional<PoolingHttpClientConnectionManager> connectionPool = Optional
+                .absent();
+        private Optional<TransferStatistics.Listener> transferListener = Optional.absent();
         private HttpClient client;
         private URL url;
         @VisibleForTesting
@@ -370,6 +630,13 @@ public class HttpActionClient {
 
         public Builder withUserAgent(String userAgentName,
                 String userAgentVersion, String userAgentComment) {
+            this.userAgentParts.add(newUserAgentPart(userAgentName,
+                    userAgentVersion, userAgentComment));
+            return this;
+        }
+
+        private static UserAgentPart newUserAgentPart(String userAgentName,
+                String userAgentVersion, String userAgentComment) {
             String nonNullUserAgentName = Checked.nonNull(userAgentName,
                     "User-Agent name");
             String nonNullUserAgentVersion = Checked.nonNull(userAgentVersion,
@@ -380,9 +647,7 @@ public class HttpActionClient {
             String encodedVersion = toISO8859(
                     trimAndReplaceWhitespaceLogged(nonNullUserAgentVersion));
             String encodedComment = toISO8859(trimAndRemoveWhitespace(nonNullUserAgentComment));
-            this.userAgentParts.add(new UserAgentPart(encodedName,
-                    encodedVersion, encodedComment));
-            return this;
+            return new UserAgentPart(encodedName, encodedVersion, encodedComment);
         }
 
         public Builder withUserAgent(String userAgentName,
@@ -390,22 +655,101 @@ public class HttpActionClient {
             return withUserAgent(userAgentName, userAgentVersion, "");
         }
 
+        /**
+         * Every client gets its own {@link HttpClient} and
+         * {@link TransferStatistics}, unless one was provided with
+         * {@link #withClient(HttpClient)}.
+         */
         public HttpActionClient build() {
             if (client == null) {
-                if (userAgentParts.isEmpty()) {
-                    withUserAgent("Unknown", "Unknown");
+                List<UserAgentPart> parts = Lists.newArrayList(userAgentParts);
+                if (parts.isEmpty()) {
+                    parts.add(newUserAgentPart("Unknown", "Unknown", ""));
                 }
-                withUserAgent("JWBF",
-                        trimAndReplaceWhitespace(getJwbfVersion()));
+                parts.add(newUserAgentPart("JWBF",
+                        trimAndReplaceWhitespace(getJwbfVersion()), ""));
                 HttpClientBuilder httpClientBuilder = HttpClientBuilder
                         .create();
                 httpClientBuilder
-                        .setUserAgent(makeUserAgentString(userAgentParts));
-                withClient(httpClientBuilder.build());
+                        .setUserAgent(makeUserAgentString(parts));
+                HttpClientConnectionManager connectionManager = newConnectionManager();
+                httpClientBuilder.setConnectionManager(connectionManager);
+                if (maxIdleMillis.isPresent()) {
+                    IdleConnectionEvictor.schedule(connectionManager,
+                            maxIdleMillis.get());
+                }
+                if (keepAliveMillis.isPresent()) {
+                    httpClientBuilder.setKeepAliveStrategy(
+                            newKeepAliveStrategy(keepAliveMillis.get()));
+                }
+                httpClientBuilder.setDefaultRequestConfig(newRequestConfig());
+                if (!contentCompression) {
+                    httpClientBuilder.disableContentCompression();
+                }
+                TransferStatistics transferStatistics = new TransferStatistics(
+                        transferListener);
+                httpClientBuilder.addInterceptorFirst(
+                        transferStatistics.wireInterceptor());
+                httpClientBuilder.addInterceptorLast(
+                        transferStatistics.contentInterceptor());
+                return new HttpActionClient(this, httpClientBuilder.build(),
+                        Optional.of(transferStatistics));
             } else {
                 log.warn("a User-Agent must be set in your client");
+                return new HttpActionClient(this);
+            }
+        }
+
+        private HttpClientConnectionManager newConnectionManager() {
+            if (sharedConnectionManager.isPresent()) {
+                HttpClientConnectionManager shared = sharedConnectionManager.get();
+                if (shared instanceof PoolingHttpClientConnectionManager) {
+                    connectionPool = Optional.of((PoolingHttpClientConnectionManager) shared);
+                }
+                return shared;
+            }
+            PoolingHttpClientConnectionManager pool =
+                    new PoolingHttpClientConnectionManager();
+            Optional<Integer> perRoute = maxConnectionsPerRoute.or(maxRequestsPerHost);
+            if (perRoute.isPresent()) {
+                pool.setDefaultMaxPerRoute(perRoute.get());
+            }
+            Optional<Integer> total = maxConnections.or(perRoute);
+            if (total.isPresent()) {
+                pool.setMaxTotal(Math.max(total.get(), pool.getDefaultMaxPerRoute()));
             }
-            return new HttpActionClient(this);
+            connectionPool = Optional.of(pool);
+            return pool;
+        }
+
+        private static ConnectionKeepAliveStrategy newKeepAliveStrategy(
+                final long keepAliveMillis) {
+            return new DefaultConnectionKeepAliveStrategy() {
+                @Override
+                public long getKeepAliveDuration(HttpResponse response,
+                        HttpContext context) {
+                    long serverKeepAlive = super.getKeepAliveDuration(response,
+                            context);
+                    if (serverKeepAlive > 0) {
+                        return Math.min(serverKeepAlive, keepAliveMillis);
+                    }
+                    return keepAliveMillis;
+                }
+            };
+        }
+
+        private RequestConfig newRequestConfig() {
+            RequestConfig.Builder config = RequestConfig.custom();
+            if (connectTimeoutMillis.isPresent()) {
+                int connectTimeout = Ints.saturatedCast(connectTimeoutMillis.get());
+                config.setConnectTimeout(connectTimeout);
+                // waiting for a free connection of the pool
+                config.setConnectionRequestTimeout(connectTimeout);
+            }
+            if (socketTimeoutMillis.isPresent()) {
+                config.setSocketTimeout(Ints.saturatedCast(socketTimeoutMillis.get()));
+            }
+            return config.build();
         }
 
         @VisibleForTesting
@@ -421,6 +765,11 @@ public class HttpActionClient {
             return userAgent.trim();
         }
 
+        /**
+         * @param client
+         *            used as is; its responses are not counted, see
+         *            {@link HttpActionClient#getTransferStatistics()}
+         */
         public Builder withClient(HttpClient client) {
             this.client = client;
             return this;
@@ -440,6 +789,160 @@ public class HttpActionClient {
             return withRateLimiter(RateLimiter.create(requestsPer / seconds));
         }
 
+        /**
+         * Actions are no longer serialized on the client, so independent
+         * actions of different threads can be executed in parallel. Actions
+         * with more than one message are still processed in order.
+         *
+         * @param maxRequestsPerHost
+         *            maximum of requests in flight; if you provide your own
+         *            client with {@link #withClient(HttpClient)}, its
+         *            connection manager limits the requests
+         */
+        public Builder withConcurrentRequests(int maxRequestsPerHost) {
+            Preconditions.checkArgument(maxRequestsPerHost > 0,
+                    "maxRequestsPerHost must be > 0, but was " +
+                            maxRequestsPerHost);
+            this.maxRequestsPerHost = Optional.of(maxRequestsPerHost);
+            return this;
+        }
+
+        /**
+         * @param contentCompression
+         *            if true (default) responses are requested with
+         *            "Accept-Encoding: gzip,deflate" and decoded transparently;
+         *            see {@link HttpActionClient#getTransferStatistics()} for
+         *            the effect on transferred bytes
+         */
+        public Builder withContentCompression(boolean contentCompression) {
+            this.contentCompression = contentCompression;
+            return this;
+        }
+
+        /**
+         * @param transferListener
+         *            is told the byte counts of every response, see
+         *            {@link HttpActionClient#getTransferStatistics()}
+         */
+        public Builder withTransferListener(
+                TransferStatistics.Listener transferListener) {
+            this.transferListener = Optional.of(Checked.nonNull(
+                    transferListener, "transferListener"));
+            return this;
+        }
+
+        /**
+         * Sizes the connection pool of this client; connections are kept and
+         * reused, so requests to the same host do not pay for TCP and TLS
+         * handshakes again.
+         *
+         * @param maxConnections
+         *            maximum of open connections
+         * @param maxConnectionsPerRoute
+         *            maximum of open connections to one host
+         */
+        public Builder withConnectionPool(int maxConnections,
+                int maxConnectionsPerRoute) {
+            this.maxConnections = Optional.of(positive(maxConnections,
+                    "maxConnections"));
+            this.maxConnectionsPerRoute = Optional.of(positive(
+                    maxConnectionsPerRoute, "maxConnectionsPerRoute"));
+            return this;
+        }
+
+        /**
+         * Use the same connection manager for more than one client, e.g. for
+         * bots of different wikis on the same farm. Pool sizes must be
+         * configured on the given manager.
+         */
+        public Builder withSharedConnectionManager(
+                HttpClientConnectionManager connectionManager) {
+            this.sharedConnectionManager = Optional.of(Checked.nonNull(
+                    connectionManager, "connection manager"));
+            return this;
+        }
+
+        /**
+         * @param duration
+         *            time to keep an idle connection open, if the server
+         *            does not announce a shorter "Keep-Alive: timeout"
+         */
+        public Builder withKeepAlive(long duration, TimeUnit unit) {
+            this.keepAliveMillis = Optional.of(positiveMillis(duration, unit,
+                    "keep alive"));
+            return this;
+        }
+
+        public Builder withConnectTimeout(long timeout, TimeUnit unit) {
+            this.connectTimeoutMillis = Optional.of(positiveMillis(timeout,
+                    unit, "connect timeout"));
+            return this;
+        }
+
+        public Builder withSocketTimeout(long timeout, TimeUnit unit) {
+            this.socketTimeoutMillis = Optional.of(positiveMillis(timeout, unit,
+                    "socket timeout"));
+            return this;
+        }
+
+        /**
+         * Closes expired connections and connections that were idle for the
+         * given time in the background.
+         */
+        public Builder withIdleConnectionEviction(long maxIdle, TimeUnit unit) {
+            this.maxIdleMillis = Optional.of(positiveMillis(maxIdle, unit,
+                    "max idle time"));
+            return this;
+        }
+
+        private static int positive(int value, String name) {
+            Preconditions.checkArgument(value > 0,
+                    name + " must be > 0, but was " + value);
+            return value;
+        }
+
+        private static long positiveMillis(long value, TimeUnit unit,
+                String name) {
+            long millis = unit.toMillis(value);
+            Preconditions.checkArgument(millis > 0,
+                    name + " must be > 0 ms, but was " + millis);
+            return millis;
+        }
+
+        /**
+         * Adds the MediaWiki <code>maxlag</code> parameter to all requests and
+         * adjusts the request rate to the load of the server; can be combined
+         * with {@link #withRequestsPerUnit(double, TimeUnit)} as an upper
+         * bound.
+         */
+        public Builder withAdaptiveThrottle(AdaptiveThrottle throttle) {
+            this.throttle = Optional.of(Checked.nonNull(throttle, "throttle"));
+            return this;
+        }
+
+        /**
+         * Sends requests again that failed for transient reasons; see
+         * {@link RetryPolicy} for details. Without a policy every failure is
+         * thrown immediately.
+         */
+        public Builder withRetryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = Optional.of(Checked.nonNull(retryPolicy,
+                    "retry policy"));
+            return this;
+        }
+
+        /**
+         * Identical GET requests, that are in flight at the same time, share
+         * one network call; every caller processes the shared response text
+         * on its own. This is useful in combination with
+         * {@link #withConcurrentRequests(int)}, because otherwise all actions
+         * are serialized anyway.
+         */
+        public Builder withRequestCoalescing() {
+            this.requestCoalescing = true;
+            return this;
+        }
+
         Builder withRateLimiter(RateLimiter rateLimiter) {
             this.rateLimiter = Optional.of(rateLimiter);
             return this;
@@ -0,0 +1,66 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.http.conn.HttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically closes expired connections and connections that were idle longer than the given
+ * time. The connection manager is only weakly referenced, so unused clients are not kept alive by
+ * their eviction task.
+ */
+class IdleConnectionEvictor implements Runnable {
+
+  private static final Logger log = LoggerFactory.getLogger(IdleConnectionEvictor.class);
+
+  private static final ThreadFactory THREAD_FACTORY = new ThreadFactoryBuilder() //
+      .setNameFormat("jwbf-idle-connection-evictor-%d") //
+      .setDaemon(true) //
+      .build();
+
+  private static final ScheduledExecutorService EXECUTOR =
+      Executors.newSingleThreadScheduledExecutor(THREAD_FACTORY);
+
+  private final WeakReference<HttpClientConnectionManager> connectionManager;
+  private final long maxIdleMillis;
+  private volatile ScheduledFuture<?> future;
+
+  private IdleConnectionEvictor(HttpClientConnectionManager connectionManager,
+      long maxIdleMillis) {
+    this.connectionManager = new WeakReference<>(connectionManager);
+    this.maxIdleMillis = maxIdleMillis;
+  }
+
+  static void schedule(HttpClientConnectionManager connectionManager, long maxIdleMillis) {
+    IdleConnectionEvictor evictor = new IdleConnectionEvictor(connectionManager, maxIdleMillis);
+    long period = Math.max(maxIdleMillis / 2, 1);
+    evictor.future = EXECUTOR.scheduleWithFixedDelay(evictor, period, period,
+        TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void run() {
+    HttpClientConnectionManager manager = connectionManager.get();
+    if (manager == null) {
+      ScheduledFuture<?> current = future;
+      if (current != null) {
+        current.cancel(false);
+      }
+    } else {
+      try {
+        manager.closeExpiredConnections();
+        manager.closeIdleConnections(maxIdleMillis, TimeUnit.MILLISECONDS);
+      } catch (RuntimeException e) {
+        log.warn("could not evict idle connections", e);
+      }
+    }
+  }
+}
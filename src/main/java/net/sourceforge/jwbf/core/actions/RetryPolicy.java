@@ -0,0 +1,190 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Uninterruptibles;
+import net.sourceforge.jwbf.core.actions.util.HasErrorCode;
+import net.sourceforge.jwbf.core.actions.util.HttpStatusException;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides which failed requests of a {@link HttpActionClient} are sent again and how long to wait
+ * before. Waits grow exponentially up to a cap; each wait is drawn randomly from zero to this
+ * bound (full jitter), so many clients do not retry in lockstep.
+ * <p>
+ * Retried are
+ * <ul>
+ * <li>GET requests failed with an {@link IOException}, e.g. a connection reset</li>
+ * <li>GET requests answered with 429 or a 5xx status</li>
+ * <li>all requests, that could not connect at all</li>
+ * <li>all requests, rejected by the MediaWiki API with one of the configured error codes, like
+ * <code>maxlag</code>, <code>readonly</code> or <code>ratelimited</code></li>
+ * </ul>
+ * A client with an {@link AdaptiveThrottle} leaves <code>maxlag</code> to the throttle, which
+ * already waits for the lag to decrease and sends the request again.
+ */
+public class RetryPolicy {
+
+  private static final Logger log = LoggerFactory.getLogger(RetryPolicy.class);
+
+  private static final int TOO_MANY_REQUESTS = 429;
+
+  private static final String MAXLAG = "maxlag";
+
+  private final int maxRetries;
+  private final long baseDelayMillis;
+  private final long maxDelayMillis;
+  private final ImmutableSet<String> apiErrorCodes;
+  private final Random random = new Random();
+
+  private final AtomicLong retries = new AtomicLong();
+  private final AtomicLong exhausted = new AtomicLong();
+
+  RetryPolicy(Builder builder) {
+    this.maxRetries = builder.maxRetries;
+    this.baseDelayMillis = builder.baseDelayMillis;
+    this.maxDelayMillis = builder.maxDelayMillis;
+    this.apiErrorCodes = builder.apiErrorCodes;
+  }
+
+  /**
+   * @return the number of requests that were sent again
+   */
+  public long getRetryCount() {
+    return retries.get();
+  }
+
+  /**
+   * @return the number of requests that failed although they were retried {@link #getMaxRetries()}
+   * times
+   */
+  public long getExhaustedCount() {
+    return exhausted.get();
+  }
+
+  public int getMaxRetries() {
+    return maxRetries;
+  }
+
+  /**
+   * Waits before the next attempt, if the given failure is worth one.
+   *
+   * @param attempt number of retries for this request so far
+   * @return true if the request should be sent again
+   */
+  boolean retry(HttpRequestBase request, RuntimeException failure, int attempt) {
+    if (!isRetryable(request, failure)) {
+      return false;
+    }
+    if (attempt >= maxRetries) {
+      exhausted.incrementAndGet();
+      return false;
+    }
+    long delay = delayMillis(attempt);
+    log.warn("retry {} of {} in {} ms for {}; because of: {}", attempt + 1, maxRetries, delay,
+        request.getURI(), failure.getMessage());
+    retries.incrementAndGet();
+    sleepMillis(delay);
+    return true;
+  }
+
+  @VisibleForTesting
+  boolean isRetryable(HttpRequestBase request, RuntimeException failure) {
+    if (failure instanceof HasErrorCode) {
+      return apiErrorCodes.contains(((HasErrorCode) failure).getCode());
+    }
+    Throwable cause = failure.getCause();
+    if (cause instanceof ConnectException || cause instanceof ConnectTimeoutException) {
+      return true;
+    }
+    if (!isIdempotent(request)) {
+      return false;
+    }
+    if (failure instanceof HttpStatusException) {
+      int status = ((HttpStatusException) failure).getStatusCode();
+      return status == TOO_MANY_REQUESTS || status >= 500;
+    }
+    return failure instanceof IllegalStateException && cause instanceof IOException;
+  }
+
+  static boolean isMaxlag(RuntimeException failure) {
+    return failure instanceof HasErrorCode && //
+        MAXLAG.equals(((HasErrorCode) failure).getCode());
+  }
+
+  private static boolean isIdempotent(HttpRequestBase request) {
+    String method = request.getMethod();
+    return "GET".equals(method) || "HEAD".equals(method);
+  }
+
+  @VisibleForTesting
+  long delayMillis(int attempt) {
+    long bound = maxDelayMillis;
+    if (attempt < Long.numberOfLeadingZeros(baseDelayMillis) - 1) {
+      bound = Math.min(maxDelayMillis, baseDelayMillis << attempt);
+    }
+    return (long) (random.nextDouble() * (bound + 1));
+  }
+
+  @VisibleForTesting
+  void sleepMillis(long millis) {
+    Uninterruptibles.sleepUninterruptibly(millis, TimeUnit.MILLISECONDS);
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  public static class Builder {
+
+    private int maxRetries = 3;
+    private long baseDelayMillis = 500;
+    private long maxDelayMillis = TimeUnit.SECONDS.toMillis(30);
+    private ImmutableSet<String> apiErrorCodes = ImmutableSet.of(MAXLAG, "readonly",
+        "ratelimited");
+
+    public Builder withMaxRetries(int maxRetries) {
+      Preconditions.checkArgument(maxRetries >= 0,
+          "maxRetries must be >= 0, but was " + maxRetries);
+      this.maxRetries = maxRetries;
+      return this;
+    }
+
+    /**
+     * @param baseDelay wait before the first retry, doubled for each further retry
+     * @param maxDelay  cap of the wait
+     */
+    public Builder withBackoff(long baseDelay, long maxDelay, TimeUnit unit) {
+      long base = unit.toMillis(baseDelay);
+      long max = unit.toMillis(maxDelay);
+      Preconditions.checkArgument(0 < base && base <= max,
+          "delays must be 0 < base <= max, but were " + base + " ms, " + max + " ms");
+      this.baseDelayMillis = base;
+      this.maxDelayMillis = max;
+      return this;
+    }
+
+    /**
+     * @param codes of MediaWiki API errors that are worth a retry, default are "maxlag",
+     *              "readonly" and "ratelimited"
+     */
+    public Builder withApiErrorCodes(String... codes) {
+      this.apiErrorCodes = ImmutableSet.copyOf(codes);
+      return this;
+    }
+
+    public RetryPolicy build() {
+      return new RetryPolicy(this);
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.io.Reader;
+
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+
+/**
+ * A {@link ReturningTextProcessor} that is able to consume a response directly from the wire.
+ * {@link HttpActionClient} prefers {@link #processReturningStream(Reader, HttpAction)} for such
+ * processors, so large responses are parsed incrementally instead of being copied into a
+ * {@link String} first.
+ */
+public interface ReturningStreamProcessor extends ReturningTextProcessor {
+
+  /**
+   * @param content the returning content, already decoded with the charset of the action; it is
+   *                closed by the caller
+   * @return the returning text or a modification of it
+   */
+  String processReturningStream(Reader content, HttpAction action);
+}
@@ -0,0 +1,204 @@
+package net.sourceforge.jwbf.core.actions;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Optional;
+import com.google.common.io.CountingInputStream;
+import net.sourceforge.jwbf.core.internal.Checked;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpCoreContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counts the bytes of all responses received by a {@link HttpActionClient}; wire bytes are
+ * counted before, content bytes after the content encoding (gzip, deflate) was decoded.
+ */
+public class TransferStatistics {
+
+  /**
+   * Is told the byte counts of every single response.
+   *
+   * @see HttpActionClient.Builder#withTransferListener(Listener)
+   */
+  public interface Listener {
+
+    /**
+     * Called by the thread, which has read the response body to its end or closed it.
+     *
+     * @param requestUri like "/api.php?action=query..."
+     */
+    void onResponse(String requestUri, long wireBytes, long contentBytes);
+  }
+
+  private static final Logger log = LoggerFactory.getLogger(TransferStatistics.class);
+
+  private static final String WIRE_COUNTER = TransferStatistics.class.getName() + ".wire";
+
+  private final AtomicLong responses = new AtomicLong();
+  private final AtomicLong wireBytes = new AtomicLong();
+  private final AtomicLong contentBytes = new AtomicLong();
+  private final Optional<Listener> listener;
+
+  TransferStatistics(Optional<Listener> listener) {
+    this.listener = Checked.nonNull(listener, "listener");
+  }
+
+  /**
+   * @return the number of responses with a completely read or closed body
+   */
+  public long getResponseCount() {
+    return responses.get();
+  }
+
+  /**
+   * @return the sum of all bytes received, as transferred over the wire
+   */
+  public long getWireBytes() {
+    return wireBytes.get();
+  }
+
+  /**
+   * @return the sum of all bytes received, after the content encoding was decoded
+   */
+  public long getContentBytes() {
+    return contentBytes.get();
+  }
+
+  void record(String requestUri, long wire, long content) {
+    responses.incrementAndGet();
+    wireBytes.addAndGet(wire);
+    contentBytes.addAndGet(content);
+    if (listener.isPresent()) {
+      listener.get().onResponse(requestUri, wire, content);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this) //
+        .add("responses", getResponseCount()) //
+        .add("wireBytes", getWireBytes()) //
+        .add("contentBytes", getContentBytes()) //
+        .toString();
+  }
+
+  /**
+   * Must be registered before the content decoding, see
+   * {@link HttpClientBuilder#addInterceptorFirst}.
+   */
+  HttpResponseInterceptor wireInterceptor() {
+    return new HttpResponseInterceptor() {
+      @Override
+      public void process(HttpResponse response, HttpContext context) {
+        HttpEntity entity = response.getEntity();
+        if (entity != null) {
+          String requestUri = HttpCoreContext.adapt(context).getRequest().getRequestLine()
+              .getUri();
+          CountingEntity counting = new CountingEntity(entity, requestUri, null);
+          context.setAttribute(WIRE_COUNTER, counting);
+          response.setEntity(counting);
+        }
+      }
+    };
+  }
+
+  /**
+   * Must be registered after the content decoding, see
+   * {@link HttpClientBuilder#addInterceptorLast}.
+   */
+  HttpResponseInterceptor contentInterceptor() {
+    return new HttpResponseInterceptor() {
+      @Override
+      public void process(HttpResponse response, HttpContext context) {
+        HttpEntity entity = response.getEntity();
+        Object wire = context.getAttribute(WIRE_COUNTER);
+        context.removeAttribute(WIRE_COUNTER);
+        if (entity != null && wire instanceof CountingEntity) {
+          CountingEntity wireEntity = (CountingEntity) wire;
+          response.setEntity(new CountingEntity(entity, wireEntity.requestUri, wireEntity));
+        }
+      }
+    };
+  }
+
+  private class CountingEntity extends HttpEntityWrapper {
+
+    private final String requestUri;
+    private final CountingEntity wire;
+    private final AtomicBoolean recorded = new AtomicBoolean();
+    private volatile CountingInputStream content;
+
+    CountingEntity(HttpEntity wrappedEntity, String requestUri, CountingEntity wire) {
+      super(wrappedEntity);
+      this.requestUri = requestUri;
+      this.wire = wire;
+    }
+
+    long getCount() {
+      CountingInputStream current = content;
+      if (current == null) {
+        return 0;
+      }
+      return current.getCount();
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+      if (content == null || !isStreaming()) {
+        content = new CountingInputStream(super.getContent());
+      }
+      if (wire == null) {
+        return content;
+      }
+      return new FilterInputStream(content) {
+
+        @Override
+        public int read() throws IOException {
+          return recordOnEnd(super.read());
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+          return recordOnEnd(super.read(b, off, len));
+        }
+
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            recordOnce();
+          }
+        }
+      };
+    }
+
+    private int recordOnEnd(int result) {
+      if (result == -1) {
+        recordOnce();
+      }
+      return result;
+    }
+
+    private void recordOnce() {
+      if (recorded.compareAndSet(false, true)) {
+        long wireCount = wire.getCount();
+        long contentCount = getCount();
+        record(requestUri, wireCount, contentCount);
+        log.debug("received {} bytes on the wire, {} bytes of content for {}", wireCount,
+            contentCount, requestUri);
+      }
+    }
+  }
+}
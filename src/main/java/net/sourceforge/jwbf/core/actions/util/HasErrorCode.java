@@ -0,0 +1,10 @@
+package net.sourceforge.jwbf.core.actions.util;
+
+/**
+ * A failure, which the server has classified with an error code, e.g. an error of the MediaWiki
+ * API like <code>maxlag</code> or <code>readonly</code>.
+ */
+public interface HasErrorCode {
+
+  String getCode();
+}
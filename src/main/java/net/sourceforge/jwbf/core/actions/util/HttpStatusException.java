@@ -0,0 +1,21 @@
+package net.sourceforge.jwbf.core.actions.util;
+
+/**
+ * Signals a response with a status code of 400 or above.
+ */
+public class HttpStatusException extends IllegalStateException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int statusCode;
+
+  public HttpStatusException(int statusCode, String message) {
+    super(message);
+    this.statusCode = statusCode;
+  }
+
+  public int getStatusCode() {
+    return statusCode;
+  }
+
+}
@@ -0,0 +1,116 @@
+package net.sourceforge.jwbf.mapper;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import net.sourceforge.jwbf.core.Optionals;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One page of a list query in JSON format (<code>formatversion=2</code>), e.g.
+ * <code>list=allpages</code>, read with the shared {@link JsonMapper}.
+ * <pre>
+ * {"continue":{"apcontinue":"B","continue":"-||"},
+ *  "query":{"allpages":[{"pageid":1,"ns":0,"title":"A"}]}}
+ * </pre>
+ * Of every item only the scalar fields are kept, like the attributes of {@link XmlListPage}:
+ * <code>true</code> becomes an empty value and <code>false</code> is omitted, as flags like
+ * <code>redirect</code> are in XML.
+ */
+public final class JsonListPage implements ListPage {
+
+  private static final Logger log = LoggerFactory.getLogger(JsonListPage.class);
+
+  private final ImmutableList<ListItem> items;
+  private final Optional<ImmutableMap<String, String>> aContinue;
+  private final ImmutableMap<String, String> queryContinue;
+
+  private JsonListPage(ImmutableList<ListItem> items,
+      Optional<ImmutableMap<String, String>> aContinue,
+      ImmutableMap<String, String> queryContinue) {
+    this.items = items;
+    this.aContinue = aContinue;
+    this.queryContinue = queryContinue;
+  }
+
+  /**
+   * @param listName like "allpages", the name of the list in <code>query</code> and in
+   *                 <code>query-continue</code>
+   * @throws ApiException             if the response contains an error
+   * @throws IllegalArgumentException if the response is no valid json
+   */
+  public static JsonListPage parse(String json, String listName) {
+    Checked.nonNull(listName, "listName");
+    Optional<String> jsonOpt = Optionals.absentIfEmpty(json);
+    if (!jsonOpt.isPresent()) {
+      throw new IllegalArgumentException(json + " is no valid json");
+    }
+    JsonNode response;
+    try {
+      response = new JsonMapper().toJsonNode(json);
+    } catch (IllegalArgumentException e) {
+      log.error(json);
+      throw new IllegalArgumentException(json + " is no valid json", e);
+    }
+    return read(response, listName);
+  }
+
+  private static JsonListPage read(JsonNode response, String listName) {
+    JsonNode error = response.path("error");
+    if (error.isObject()) {
+      ApiException apiException =
+          new ApiException(error.path("code").asText(), error.path("info").asText());
+      log.error(apiException.getCode() + ": " + apiException.getValue());
+      throw apiException;
+    }
+    ImmutableList.Builder<ListItem> items = ImmutableList.builder();
+    for (JsonNode item : response.path("query").path(listName)) {
+      items.add(new ListItem(values(item)));
+    }
+    Optional<ImmutableMap<String, String>> aContinue = Optional.absent();
+    if (response.has("continue")) {
+      aContinue = Optional.of(values(response.get("continue")));
+    }
+    ImmutableMap<String, String> queryContinue =
+        values(response.path("query-continue").path(listName));
+    return new JsonListPage(items.build(), aContinue, queryContinue);
+  }
+
+  private static ImmutableMap<String, String> values(JsonNode object) {
+    ImmutableMap.Builder<String, String> values = ImmutableMap.builder();
+    Iterator<Map.Entry<String, JsonNode>> fields = object.fields();
+    while (fields.hasNext()) {
+      Map.Entry<String, JsonNode> field = fields.next();
+      JsonNode value = field.getValue();
+      if (value.isBoolean()) {
+        if (value.booleanValue()) {
+          values.put(field.getKey(), "");
+        }
+      } else if (value.isValueNode() && !value.isNull()) {
+        values.put(field.getKey(), value.asText());
+      }
+    }
+    return values.build();
+  }
+
+  @Override
+  public ImmutableList<ListItem> getItems() {
+    return items;
+  }
+
+  @Override
+  public Optional<String> getContinue(String newContinueKey, String attributeKey) {
+    if (aContinue.isPresent()) {
+      return Optional.fromNullable(aContinue.get().get(newContinueKey));
+    } else {
+      return Optional.fromNullable(queryContinue.get(attributeKey));
+    }
+  }
+}
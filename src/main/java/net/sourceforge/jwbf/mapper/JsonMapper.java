@@ -1,22 +1,28 @@
 package net.sourceforge.jwbf.mapper;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import javax.annotation.Nonnull;
 
 import net.sourceforge.jwbf.core.internal.Checked;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.io.CharStreams;
 
 public class JsonMapper {
     private final ToJsonFunction transfomer;
 
     public JsonMapper() {
-        this(new JacksonToJsonFunction());
+        this(JacksonToJsonFunction.shared());
     }
 
     public <T> JsonMapper(ToJsonFunction transfomer) {
@@ -25,7 +31,8 @@ public class JsonMapper {
 
     public <T> T get(String json, Class<T> clazz) {
         String nonNullJson = Checked.nonNull(json, "json");
-        return (T) Checked.nonNull(transfomer.toJson(nonNullJson, clazz), "a json mapping result");
+        Object result = transfomer.toJson(nonNullJson, clazz);
+        return clazz.cast(Checked.nonNull(result, "a json mapping result"));
     }
 
     public HashMap<String, Object> toMap(String json) {
@@ -38,6 +45,54 @@ public class JsonMapper {
         return Checked.nonNull(transfomer.toJsonNode(nonNullJson), "a json mapping result");
     }
 
+    /**
+     * Maps the given json without materializing it as a {@link String} if the underlying
+     * transformer is a {@link ToJsonStreamFunction}.
+     */
+    public <T> T read(Reader json, Class<T> clazz) {
+        Reader nonNullJson = Checked.nonNull(json, "json");
+        if (transfomer instanceof ToJsonStreamFunction) {
+            ToJsonStreamFunction streamTransformer = (ToJsonStreamFunction) transfomer;
+            return Checked.nonNull(streamTransformer.toJson(nonNullJson, clazz),
+                    "a json mapping result");
+        }
+        return get(asString(nonNullJson), clazz);
+    }
+
+    /**
+     * @see #read(Reader, Class)
+     */
+    public JsonNode readTree(Reader json) {
+        Reader nonNullJson = Checked.nonNull(json, "json");
+        if (transfomer instanceof ToJsonStreamFunction) {
+            ToJsonStreamFunction streamTransformer = (ToJsonStreamFunction) transfomer;
+            return Checked.nonNull(streamTransformer.toJsonNode(nonNullJson),
+                    "a json mapping result");
+        }
+        return toJsonNode(asString(nonNullJson));
+    }
+
+    /**
+     * @return a token stream of the given json, which can read subtrees with
+     * {@link JsonParser#readValueAsTree()}; the caller must close it
+     */
+    public JsonParser parser(Reader json) {
+        Reader nonNullJson = Checked.nonNull(json, "json");
+        if (transfomer instanceof ToJsonStreamFunction) {
+            ToJsonStreamFunction streamTransformer = (ToJsonStreamFunction) transfomer;
+            return Checked.nonNull(streamTransformer.toJsonParser(nonNullJson), "a json parser");
+        }
+        return JacksonToJsonFunction.shared().toJsonParser(nonNullJson);
+    }
+
+    private static String asString(Reader json) {
+        try {
+            return CharStreams.toString(json);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
     public interface ToJsonFunction {
         @Nonnull
         Object toJson(@Nonnull String jsonString, Class<?> clazz);
@@ -47,7 +102,38 @@ public class JsonMapper {
         HashMap<String, Object> toMap(@Nonnull String json);
     }
 
-    static class JacksonToJsonFunction implements ToJsonFunction {
+    public interface ToJsonStreamFunction extends ToJsonFunction {
+        @Nonnull
+        <T> T toJson(@Nonnull Reader json, Class<T> clazz);
+
+        JsonNode toJsonNode(@Nonnull Reader json);
+
+        JsonParser toJsonParser(@Nonnull Reader json);
+    }
+
+    /**
+     * Maps with one {@link ObjectMapper} and caches an {@link ObjectReader} for every target type.
+     * Readers are immutable and thread safe, so all {@link JsonMapper}s share one instance and
+     * Jackson's deserializer caches survive between responses.
+     */
+    static class JacksonToJsonFunction implements ToJsonStreamFunction {
+
+        private static final JacksonToJsonFunction SHARED = new JacksonToJsonFunction();
+
+        private final ObjectMapper mapper;
+        private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+        private final ObjectReader mapReader;
+
+        JacksonToJsonFunction() {
+            this.mapper = newObjectMapper();
+            this.mapReader = mapper.reader(new TypeReference<HashMap<String, Object>>() {
+            });
+        }
+
+        static JacksonToJsonFunction shared() {
+            return SHARED;
+        }
+
         ObjectMapper newObjectMapper() {
             ObjectMapper mapper = new ObjectMapper();
             // TODO: find a better way to do this
@@ -55,12 +141,23 @@ public class JsonMapper {
             return mapper;
         }
 
+        ObjectReader readerFor(Class<?> clazz) {
+            ObjectReader reader = readers.get(clazz);
+            if (reader == null) {
+                ObjectReader newReader = mapper.reader(clazz);
+                reader = readers.putIfAbsent(clazz, newReader);
+                if (reader == null) {
+                    reader = newReader;
+                }
+            }
+            return reader;
+        }
+
         @Nonnull
         @Override
         public Object toJson(@Nonnull String jsonString, Class<?> clazz) {
             try {
-                // ObjectMapper stores mutable data so each mapping uses a fresh instance
-                return newObjectMapper().readValue(jsonString, clazz);
+                return readerFor(clazz).readValue(jsonString);
             } catch (IOException e) {
                 throw new IllegalArgumentException(e);
             }
@@ -68,20 +165,46 @@ public class JsonMapper {
 
         public HashMap<String, Object> toMap(@Nonnull String jsonString) {
             try {
-                return newObjectMapper().readValue(jsonString,
-                        new TypeReference<HashMap<String, Object>>() {
-                        });
+                return mapReader.readValue(jsonString);
             } catch (IOException e) {
-                throw new IllegalArgumentException();
+                throw new IllegalArgumentException(e);
             }
         }
 
         @Override
         public JsonNode toJsonNode(String json) {
             try {
-                return newObjectMapper().readTree(json);
+                return mapper.readTree(json);
             } catch (IOException e) {
-                throw new IllegalArgumentException();
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        @Nonnull
+        @Override
+        public <T> T toJson(@Nonnull Reader json, Class<T> clazz) {
+            try {
+                return readerFor(clazz).readValue(json);
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        @Override
+        public JsonNode toJsonNode(@Nonnull Reader json) {
+            try {
+                return mapper.readTree(json);
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        @Override
+        public JsonParser toJsonParser(@Nonnull Reader json) {
+            try {
+                return mapper.getFactory().createParser(json);
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e);
             }
         }
     }
@@ -0,0 +1,57 @@
+package net.sourceforge.jwbf.mapper;
+
+import javax.annotation.CheckForNull;
+import java.util.Objects;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+import net.sourceforge.jwbf.core.internal.Checked;
+
+/**
+ * One element of a {@link ListPage}, e.g. a page of <code>list=allpages</code>, with its simple
+ * values only: the attributes of an XML element or the scalar fields of a JSON object.
+ */
+public final class ListItem {
+
+  private final ImmutableMap<String, String> values;
+
+  public ListItem(ImmutableMap<String, String> values) {
+    this.values = Checked.nonNull(values, "values");
+  }
+
+  @CheckForNull
+  public String getAttributeValue(String name) {
+    return values.get(name);
+  }
+
+  public Optional<String> getAttributeValueOpt(String name) {
+    return Optional.fromNullable(getAttributeValue(name));
+  }
+
+  public String getAttributeValueNonNull(String name) {
+    return Checked.nonNull(getAttributeValue(name), "attribute value for key: " + name);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof ListItem) {
+      ListItem that = (ListItem) obj;
+      return Objects.equals(this.values, that.values);
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return values.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this) //
+        .add("values", values) //
+        .toString();
+  }
+}
@@ -0,0 +1,27 @@
+package net.sourceforge.jwbf.mapper;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+/**
+ * One page of a list query, e.g. <code>list=allpages</code>, independent of the format of the
+ * response.
+ *
+ * @see XmlListPage
+ * @see JsonListPage
+ */
+public interface ListPage {
+
+  /**
+   * @return the elements of the list, e.g. all pages of <code>query/allpages</code>
+   */
+  ImmutableList<ListItem> getItems();
+
+  /**
+   * @param newContinueKey key of <code>continue</code>, since MW1_21
+   * @param attributeKey   key of the list in <code>query-continue</code>, the fallback for older
+   *                       versions
+   * @return the value to continue this list with
+   */
+  Optional<String> getContinue(String newContinueKey, String attributeKey);
+}
@@ -6,19 +6,20 @@ import javax.xml.xpath.XPath;
 import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
-import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import net.sourceforge.jwbf.core.Optionals;
 import net.sourceforge.jwbf.core.actions.util.ActionException;
+import net.sourceforge.jwbf.core.internal.Checked;
 import net.sourceforge.jwbf.core.internal.NonnullFunction;
-import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import org.jdom2.Document;
 import org.jdom2.JDOMException;
@@ -35,6 +36,59 @@ public final class XmlConverter {
 
   private static final Logger log = LoggerFactory.getLogger(XmlConverter.class);
 
+  /**
+   * Maximum number of compiled expressions per thread.
+   */
+  private static final int XPATH_CACHE_SIZE = 64;
+
+  /**
+   * Neither builders nor compiled expressions are thread-safe, but both are cheap to reuse; so
+   * every thread keeps its own. This saves the factory lookups of the service loader and the
+   * creation of a new parser for every document.
+   */
+  private static final ThreadLocal<SAXBuilder> BUILDER = new ThreadLocal<SAXBuilder>() {
+    @Override
+    protected SAXBuilder initialValue() {
+      return new SAXBuilder();
+    }
+  };
+
+  private static final ThreadLocal<XPathCache> XPATHS = new ThreadLocal<XPathCache>() {
+    @Override
+    protected XPathCache initialValue() {
+      return new XPathCache(XPathFactory.newInstance().newXPath());
+    }
+  };
+
+  /**
+   * Compiled expressions of one thread; the least recently used is dropped when full.
+   */
+  private static class XPathCache extends LinkedHashMap<String, XPathExpression> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient XPath parser;
+
+    XPathCache(XPath parser) {
+      super(16, 0.75f, true);
+      this.parser = parser;
+    }
+
+    XPathExpression compile(String xpath) throws XPathExpressionException {
+      XPathExpression expression = get(xpath);
+      if (expression == null) {
+        expression = parser.compile(xpath);
+        put(xpath, expression);
+      }
+      return expression;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, XPathExpression> eldest) {
+      return size() > XPATH_CACHE_SIZE;
+    }
+  }
+
   public static Function<XmlElement, ApiException> toApiException() {
     return new NonnullFunction<XmlElement, ApiException>() {
       @Nonnull
@@ -60,28 +114,58 @@ public final class XmlConverter {
   static Optional<XmlElement> getRootElementWithErrorOpt(String xml) {
     Optional<String> xmlStringOpt = Optionals.absentIfEmpty(xml);
     if (xmlStringOpt.isPresent()) {
-      SAXBuilder builder = new SAXBuilder();
-      org.jdom2.Element root;
       try {
-        Document doc = builder.build(new ByteArrayInputStream(xml.getBytes(Charsets.UTF_8)));
-
-        root = doc.getRootElement();
-
+        return Optional.of(build(new StringReader(xml)));
       } catch (JDOMException e) {
         log.error(xml);
         return Optional.absent();
-      } catch (IOException e) {
-        throw new IllegalArgumentException(e);
-      }
-      if (root == null) {
-        throw new ActionException("no root element found");
       }
-      return Optional.of(new XmlElement(root));
     } else {
       return Optional.absent();
     }
   }
 
+  /**
+   * Like {@link #getRootElementWithError(String)} but reads the document directly from the given
+   * reader, so the response has not to be copied into a {@link String} before.
+   */
+  @Nonnull
+  public static XmlElement getRootElementWithError(Reader xml) {
+    try {
+      return build(Checked.nonNull(xml, "xml"));
+    } catch (JDOMException e) {
+      throw new IllegalArgumentException("Invalid XML: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Like {@link #getRootElement(String)} but reads the document directly from the given reader.
+   */
+  @Nonnull
+  public static XmlElement getRootElement(Reader xml) {
+    XmlElement rootXmlElement = getRootElementWithError(xml);
+    Optional<ApiException> apiException = getErrorElement(rootXmlElement) //
+        .transform(toApiException());
+    if (apiException.isPresent()) {
+      throw apiException.get();
+    }
+    return rootXmlElement;
+  }
+
+  private static XmlElement build(Reader xml) throws JDOMException {
+    org.jdom2.Element root;
+    try {
+      Document doc = BUILDER.get().build(xml);
+      root = doc.getRootElement();
+    } catch (IOException e) {
+      throw new IllegalArgumentException(e);
+    }
+    if (root == null) {
+      throw new ActionException("no root element found");
+    }
+    return new XmlElement(root);
+  }
+
   /**
    * Determines if the given XML Document contains an error message which then would printed by the
    * logger.
@@ -112,15 +196,14 @@ public final class XmlConverter {
     return rootXmlElement.get();
   }
 
+  /**
+   * @param xpath is compiled once per thread, e.g. <code>/api/query/random/page/@title</code>
+   */
   public static String evaluateXpath(String xml, String xpath) {
-    XPath parser = XPathFactory.newInstance().newXPath();
     try {
-      XPathExpression titleParser = parser.compile(xpath);
-      ByteArrayInputStream byteStream //
-          = new ByteArrayInputStream(xml.getBytes(MediaWiki.getCharset()));
-      InputSource in = new InputSource(byteStream);
-      return titleParser.evaluate(in);
-    } catch (XPathExpressionException | UnsupportedEncodingException e) {
+      XPathExpression expression = XPATHS.get().compile(xpath);
+      return expression.evaluate(new InputSource(new StringReader(xml)));
+    } catch (XPathExpressionException e) {
       throw new IllegalArgumentException(e);
     }
   }
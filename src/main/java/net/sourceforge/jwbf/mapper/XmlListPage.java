@@ -0,0 +1,179 @@
+package net.sourceforge.jwbf.mapper;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import net.sourceforge.jwbf.core.Optionals;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * One page of a list query in XML format, e.g. <code>list=allpages</code>, read with a StAX pull
+ * parser in one pass. No document is built: of the items and of the continuation only the
+ * attributes are kept.
+ * <pre>
+ * &lt;api&gt;
+ *   &lt;continue apcontinue="B" continue="-||" /&gt;
+ *   &lt;query-continue&gt;&lt;allpages apfrom="B" /&gt;&lt;/query-continue&gt;
+ *   &lt;query&gt;&lt;allpages&gt;&lt;p title="A" /&gt;&lt;/allpages&gt;&lt;/query&gt;
+ * &lt;/api&gt;
+ * </pre>
+ */
+public final class XmlListPage implements ListPage {
+
+  private static final Logger log = LoggerFactory.getLogger(XmlListPage.class);
+
+  private static final XMLInputFactory FACTORY = newFactory();
+
+  private final ImmutableList<ListItem> items;
+  private final Optional<ImmutableMap<String, String>> aContinue;
+  private final ImmutableMap<String, String> queryContinue;
+
+  private XmlListPage(ImmutableList<ListItem> items,
+      Optional<ImmutableMap<String, String>> aContinue,
+      ImmutableMap<String, String> queryContinue) {
+    this.items = items;
+    this.aContinue = aContinue;
+    this.queryContinue = queryContinue;
+  }
+
+  private static XMLInputFactory newFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    return factory;
+  }
+
+  /**
+   * @param listName like "allpages", the name of the list in <code>query</code> and in
+   *                 <code>query-continue</code>
+   * @throws ApiException             if the response contains an error
+   * @throws IllegalArgumentException if the response is no valid xml
+   */
+  public static XmlListPage parse(String xml, String listName) {
+    Optional<String> xmlOpt = Optionals.absentIfEmpty(xml);
+    if (!xmlOpt.isPresent()) {
+      throw new IllegalArgumentException(xml + " is no valid xml");
+    }
+    try {
+      return parse(new StringReader(xml), listName);
+    } catch (IllegalArgumentException e) {
+      log.error(xml);
+      throw new IllegalArgumentException(xml + " is no valid xml", e);
+    }
+  }
+
+  /**
+   * @see #parse(String, String)
+   */
+  public static XmlListPage parse(Reader xml, String listName) {
+    Checked.nonNull(xml, "xml");
+    Checked.nonNull(listName, "listName");
+    try {
+      XMLStreamReader reader = FACTORY.createXMLStreamReader(xml);
+      try {
+        return read(reader, listName);
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException e) {
+      throw new IllegalArgumentException("Invalid XML: " + e.getMessage(), e);
+    }
+  }
+
+  private static XmlListPage read(XMLStreamReader reader, String listName)
+      throws XMLStreamException {
+    ImmutableList.Builder<ListItem> items = ImmutableList.builder();
+    Optional<ImmutableMap<String, String>> aContinue = Optional.absent();
+    ImmutableMap<String, String> queryContinue = ImmutableMap.of();
+    // names of the open elements below the root
+    String[] path = new String[3];
+    int depth = -1;
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+        String name = reader.getLocalName();
+        if (depth == 1 && name.equals("error")) {
+          throw toApiException(reader);
+        } else if (depth == 1 && name.equals("continue")) {
+          aContinue = Optional.of(attributes(reader));
+        } else if (depth == 2 && name.equals(listName) && "query-continue".equals(path[1])) {
+          queryContinue = attributes(reader);
+        } else if (depth == 3 && "query".equals(path[1]) && listName.equals(path[2])) {
+          items.add(toItem(reader));
+          depth--;
+          continue;
+        }
+        if (depth < path.length) {
+          path[depth] = name;
+        }
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        depth--;
+      }
+    }
+    if (depth != -1) {
+      throw new IllegalArgumentException("Invalid XML: unclosed elements");
+    }
+    return new XmlListPage(items.build(), aContinue, queryContinue);
+  }
+
+  private static ApiException toApiException(XMLStreamReader reader) {
+    ApiException error = new ApiException(reader.getAttributeValue(null, "code"),
+        reader.getAttributeValue(null, "info"));
+    log.error(error.getCode() + ": " + error.getValue());
+    return error;
+  }
+
+  private static ImmutableMap<String, String> attributes(XMLStreamReader reader) {
+    ImmutableMap.Builder<String, String> attributes = ImmutableMap.builder();
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      attributes.put(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+    }
+    return attributes.build();
+  }
+
+  /**
+   * Reads the attributes of the current element and skips its content.
+   */
+  private static ListItem toItem(XMLStreamReader reader) throws XMLStreamException {
+    ListItem item = new ListItem(attributes(reader));
+    int open = 1;
+    while (open > 0) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        open++;
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        open--;
+      }
+    }
+    return item;
+  }
+
+  /**
+   * @return the elements of the list, e.g. all <code>p</code> elements of
+   * <code>query/allpages</code>
+   */
+  @Override
+  public ImmutableList<ListItem> getItems() {
+    return items;
+  }
+
+  @Override
+  public Optional<String> getContinue(String newContinueKey, String attributeKey) {
+    if (aContinue.isPresent()) {
+      return Optional.fromNullable(aContinue.get().get(newContinueKey));
+    } else {
+      return Optional.fromNullable(queryContinue.get(attributeKey));
+    }
+  }
+}
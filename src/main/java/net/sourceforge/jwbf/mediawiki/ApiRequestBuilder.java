@@ -33,6 +33,46 @@ public class ApiRequestBuilder extends RequestBuilder {
     return this;
   }
 
+  /**
+   * https://www.mediawiki.org/wiki/API:JSON_version_2
+   */
+  public ApiRequestBuilder formatJsonVersion2() {
+    formatJson();
+    param("formatversion", "2");
+    return this;
+  }
+
+  /**
+   * @param version json with <code>formatversion=2</code> needs MW1_25 or higher; an unknown
+   *                version is treated like the development version, because every release newer
+   *                than the known versions is unknown; xml otherwise
+   */
+  @SuppressWarnings("deprecation")
+  public ApiRequestBuilder formatList(@CheckForNull MediaWiki.Version version) {
+    if (hasFormatVersion2(version)) {
+      return formatJsonVersion2();
+    } else {
+      return formatXml();
+    }
+  }
+
+  /**
+   * @param version json with <code>formatversion=2</code> like {@link #formatList}; the legacy
+   *                json format otherwise
+   */
+  public ApiRequestBuilder formatJson(@CheckForNull MediaWiki.Version version) {
+    if (hasFormatVersion2(version)) {
+      return formatJsonVersion2();
+    } else {
+      return formatJson();
+    }
+  }
+
+  private static boolean hasFormatVersion2(@CheckForNull MediaWiki.Version version) {
+    return version == MediaWiki.Version.UNKNOWN ||
+        version != null && version.greaterEqThen(MediaWiki.Version.MW1_25);
+  }
+
   /**
    * https://www.mediawiki.org/wiki/API:Query#Continuing_queries
    *
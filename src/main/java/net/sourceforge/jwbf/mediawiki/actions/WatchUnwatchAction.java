@@ -3,14 +3,18 @@ package net.sourceforge.jwbf.mediawiki.actions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 
+import net.sourceforge.jwbf.core.actions.ParamTuple;
 import net.sourceforge.jwbf.core.actions.Post;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.editing.GetApiToken;
+import net.sourceforge.jwbf.mediawiki.actions.editing.TokenCache;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 
 public class WatchUnwatchAction extends MWAction {
@@ -20,13 +24,28 @@ public class WatchUnwatchAction extends MWAction {
     private boolean watch;
     private ImmutableList<String> titles;
     private GetApiToken watchToken;
-    private boolean actionToken = true;
+    private final Optional<TokenCache> tokens;
+    private ParamTuple<String> token;
+    private boolean actionToken;
     private boolean hasMore = true;
 
     public WatchUnwatchAction(boolean watch, String... titles) {
+        this(Optional.<TokenCache>absent(), watch, titles);
+    }
+
+    /**
+     * Takes the watch token from the given cache, so only the (un)watch is requested.
+     */
+    public WatchUnwatchAction(TokenCache tokens, boolean watch, String... titles) {
+        this(Optional.of(tokens), watch, titles);
+    }
+
+    private WatchUnwatchAction(Optional<TokenCache> tokens, boolean watch, String... titles) {
         this.watch = watch;
         this.titles = ImmutableList.copyOf(titles);
         this.watchToken = new GetApiToken(GetApiToken.Intoken.WATCH, titles);
+        this.tokens = tokens;
+        this.actionToken = !tokens.isPresent();
     }
 
     @Override
@@ -35,7 +54,14 @@ public class WatchUnwatchAction extends MWAction {
             watchToken.processReturningText(s, action);
             actionToken = false;
         }
-        MediaWiki.checkResponseForError(s);
+        try {
+            MediaWiki.checkResponseForError(s);
+        } catch (ApiException e) {
+            if (tokens.isPresent()) {
+                tokens.get().invalidateIfBad(e, GetApiToken.Intoken.WATCH, token);
+            }
+            throw e;
+        }
         return s;
     }
 
@@ -45,10 +71,15 @@ public class WatchUnwatchAction extends MWAction {
             return watchToken.popAction();
         }
         hasMore = false;
+        if (tokens.isPresent()) {
+            token = tokens.get().get(GetApiToken.Intoken.WATCH, MediaWiki.pipeJoined(titles));
+        } else {
+            token = watchToken.get().token();
+        }
         RequestBuilder requestBuilder = new ApiRequestBuilder() //
                 .action("watch") //
                 .formatJson() //
-                .postParam(watchToken.get().token()) //
+                .postParam(token) //
                 .param("titles", MediaWiki.urlEncode(MediaWiki.pipeJoined(titles))) //
         ;
         if (!watch) {
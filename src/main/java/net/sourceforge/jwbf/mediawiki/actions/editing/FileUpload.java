@@ -22,6 +22,7 @@ import java.util.Deque;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.Queues;
+import net.sourceforge.jwbf.core.actions.ParamTuple;
 import net.sourceforge.jwbf.core.actions.Post;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.ActionException;
@@ -58,6 +59,18 @@ public class FileUpload extends MWAction {
   private UploadAction actionHandler;
 
   public FileUpload(final SimpleFile simpleFile, MediaWikiBot bot) {
+    this(simpleFile, bot, Optional.<TokenCache>absent());
+  }
+
+  /**
+   * Takes the upload token from the given cache, e.g. {@link MediaWikiBot#getTokenCache()}, so
+   * only the upload is requested.
+   */
+  public FileUpload(SimpleFile simpleFile, MediaWikiBot bot, TokenCache tokens) {
+    this(simpleFile, bot, Optional.of(tokens));
+  }
+
+  private FileUpload(SimpleFile simpleFile, MediaWikiBot bot, Optional<TokenCache> tokens) {
     if (!simpleFile.isFile() || !simpleFile.canRead()) {
       throw new IllegalArgumentException("no such file " + simpleFile.getFile());
     }
@@ -68,7 +81,7 @@ public class FileUpload extends MWAction {
     if (!simpleFile.exists()) {
       throw new IllegalArgumentException("file not found " + simpleFile.getFile());
     }
-    actionHandler = new ApiUpload(simpleFile, bot.getVersion());
+    actionHandler = new ApiUpload(simpleFile, bot.getVersion(), tokens);
     actions = actionHandler.getActions();
 
   }
@@ -102,20 +115,41 @@ public class FileUpload extends MWAction {
     private final Deque<HttpAction> actions = Queues.newArrayDeque();
     private final SimpleFile simpleFile;
     private final MediaWiki.Version version;
+    private final Optional<TokenCache> tokens;
     private GetApiToken uploadTokenAction;
+    private ParamTuple<String> uploadToken;
 
-    public ApiUpload(SimpleFile simpleFile, MediaWiki.Version version) {
+    public ApiUpload(SimpleFile simpleFile, MediaWiki.Version version,
+        Optional<TokenCache> tokens) {
       this.simpleFile = simpleFile;
       this.version = version;
+      this.tokens = tokens;
     }
 
     @Override
     public Deque<HttpAction> getActions() {
-      uploadTokenAction = new GetApiToken(Intoken.EDIT, simpleFile.getPath());
-      actions.add(uploadTokenAction.popAction());
+      if (tokens.isPresent()) {
+        uploadToken = tokens.get().get(Intoken.EDIT, simpleFile.getPath());
+        actions.add(newUploadRequest());
+      } else {
+        uploadTokenAction = new GetApiToken(Intoken.EDIT, simpleFile.getPath());
+        actions.add(uploadTokenAction.popAction());
+      }
       return actions;
     }
 
+    private Post newUploadRequest() {
+      RequestBuilder requestBuilder = new ApiRequestBuilder() //
+          .action("upload") //
+          .formatJson() //
+          .param("filename", MediaWiki.urlEncode(simpleFile.getTitle())) //
+          .postParam("text", simpleFile.getText())
+          .postParam(uploadToken) //
+          .param("ignorewarnings", true) //
+          .postParam("file", simpleFile.getFile());
+      return requestBuilder.buildPost();
+    }
+
     @Override
     public String handleResponse(String xml, HttpAction hm) {
       log.debug("{}", xml);
@@ -123,20 +157,15 @@ public class FileUpload extends MWAction {
       Optional<ApiException> exceptionOptional = doc.getErrorElement() //
           .transform(XmlConverter.toApiException());
       if (exceptionOptional.isPresent()) {
+        if (tokens.isPresent()) {
+          tokens.get().invalidateIfBad(exceptionOptional.get(), Intoken.EDIT, uploadToken);
+        }
         throw exceptionOptional.get();
       } else {
         if (uploadTokenAction != null) {
           uploadTokenAction.processReturningText(xml, hm);
-          RequestBuilder requestBuilder = new ApiRequestBuilder() //
-              .action("upload") //
-              .formatJson() //
-              .param("filename", MediaWiki.urlEncode(simpleFile.getTitle())) //
-              .postParam("text", simpleFile.getText())
-              .postParam(uploadTokenAction.get().token()) //
-              .param("ignorewarnings", true) //
-              .postParam("file", simpleFile.getFile());
-          Post upload = requestBuilder.buildPost();
-          actions.add(upload);
+          uploadToken = uploadTokenAction.get().token();
+          actions.add(newUploadRequest());
           uploadTokenAction = null; // XXX
         }
         // file upload requires enabled uploads, upload rights and filesystem permisions
@@ -18,9 +18,13 @@
  */
 package net.sourceforge.jwbf.mediawiki.actions.editing;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.List;
+import java.util.Map;
 
-import net.sourceforge.jwbf.core.actions.Get;
+import net.sourceforge.jwbf.core.actions.RequestBuilder;
+import net.sourceforge.jwbf.core.actions.ReturningStreamProcessor;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
 import net.sourceforge.jwbf.mapper.JsonMapper;
@@ -32,24 +36,30 @@ import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 
 /**
  * Reads the content of a given article.
  *
  * @author Thomas Stock
  */
-public class GetRevision extends MWAction {
+public class GetRevision extends MWAction implements ReturningStreamProcessor {
 
     private static final Logger log = LoggerFactory.getLogger(GetRevision.class);
 
     private List<SimpleArticle> articles = Lists.newArrayList();
     private List<Optional<SimpleArticle>> articlesOpt = Lists.newArrayList();
+    private Map<String, Optional<SimpleArticle>> articlesByTitle = Maps.newHashMap();
+    private Map<String, String> normalizedTitles = Maps.newHashMap();
     private final ImmutableList<String> names;
 
     public static final int CONTENT = 1 << 1;
@@ -64,7 +74,13 @@ public class GetRevision extends MWAction {
 
     private final int properties;
 
-    private final Get msg;
+    /**
+     * Longer lists of titles are sent with POST.
+     */
+    @VisibleForTesting
+    static final int MAX_TITLES_URL_LENGTH = 4000;
+
+    private final HttpAction msg;
 
     private JsonMapper mapper = new JsonMapper();
 
@@ -79,14 +95,21 @@ public class GetRevision extends MWAction {
         this.properties = properties;
         this.names = names;
         // TODO continue=-||
-        msg = new ApiRequestBuilder() //
+        // TODO formatversion=2 with ApiRequestBuilder#formatJson(Version) needs the version here
+        RequestBuilder requestBuilder = new ApiRequestBuilder() //
                 .action("query") //
                 .formatJson() //
                 .param("prop", "revisions") //
-                .param("titles", MediaWiki.urlEncode(MediaWiki.pipeJoined(names))) //
-                .param("rvprop", getDataProperties(properties) + getReversion(properties)) //
-                //.param("rvlimit", "1") TODO: when passing multiples pages we can't pass rvlimit
-                .buildGet();
+                .param("rvprop", getDataProperties(properties) + getReversion(properties));
+        //.param("rvlimit", "1") TODO: when passing multiples pages we can't pass rvlimit
+        String titles = MediaWiki.pipeJoined(names);
+        String encodedTitles = MediaWiki.urlEncode(titles);
+        if (encodedTitles.length() > MAX_TITLES_URL_LENGTH) {
+            // servers and proxies reject too long urls
+            msg = requestBuilder.postParam("titles", titles).buildPost();
+        } else {
+            msg = requestBuilder.param("titles", encodedTitles).buildGet();
+        }
     }
 
     /**
@@ -95,13 +118,38 @@ public class GetRevision extends MWAction {
     @Override
     public String processReturningText(final String s, HttpAction ha) {
         if (msg.getRequest().equals(ha.getRequest())) {
+            clear();
             parse(s);
         }
         return "";
     }
 
-    @VisibleForTesting
-    static String getDataProperties(final int property) {
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String processReturningStream(Reader content, HttpAction ha) {
+        if (msg.getRequest().equals(ha.getRequest())) {
+            clear();
+            parse(mapper.parser(content));
+        }
+        return "";
+    }
+
+    /**
+     * Forgets the pages of a previous, maybe incomplete, response; e.g. of a retried request.
+     */
+    private void clear() {
+        articles.clear();
+        articlesOpt.clear();
+        articlesByTitle.clear();
+        normalizedTitles.clear();
+    }
+
+    /**
+     * @return the url encoded value of <code>rvprop</code> for the given properties
+     */
+    public static String getDataProperties(final int property) {
         ImmutableList.Builder<String> builder = ImmutableList.builder();
 
         if (hasMarker(property, CONTENT)) {
@@ -139,40 +187,141 @@ public class GetRevision extends MWAction {
     }
 
     private void parse(final String json) {
-        JsonNode node = mapper.toJsonNode(json);
-        JsonNode pages = node.path("query").path("pages");
+        parse(mapper.toJsonNode(json));
+    }
+
+    private void parse(final JsonNode node) {
+        addNormalized(node.path("query").path("normalized"));
         if (!node.isMissingNode()) {
-            for (JsonNode page : pages) {
-                SimpleArticle sa = new SimpleArticle();
-                sa.setTitle(page.get("title").asText());
-                if (!page.has("missing")) {
-                    sa.setPageId(page.get("pageid").asInt());
-                    JsonNode rev = page.path("revisions");
-                    rev = rev.get(0);
-                    sa.setText(rev.get("*").asText());
-                    sa.setRevisionId(Optional.of(rev.path("revid").asText()).or(""));
-                    sa.setEditSummary(Optional.of(rev.path("comment").asText()).or(""));
-                    sa.setEditor(Optional.of(rev.path("user").asText()).or(""));
-                    if (hasMarker(properties, TIMESTAMP)) {
-                        sa.setEditTimestamp(Optional.of(rev.path("timestamp").asText()).or(""));
-                    }
-                    if (hasMarker(properties, FLAGS)) {
-                        if (rev.has("minor")) {
-                            sa.setMinorEdit(true);
-                        } else {
-                            sa.setMinorEdit(false);
-                        }
+            for (JsonNode page : node.path("query").path("pages")) {
+                addPage(page);
+            }
+        }
+    }
+
+    /**
+     * Reads the response token by token; only the tree of the current page is kept in memory.
+     */
+    private void parse(final JsonParser parser) {
+        try {
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    if (parser.nextToken() == JsonToken.START_OBJECT && "query".equals(field)) {
+                        parseQuery(parser);
+                    } else {
+                        parser.skipChildren();
                     }
-                    articlesOpt.add(Optional.of(sa));
-                } else {
-                    log.warn("Article '{}' is missing", sa.getTitle());
-                    articlesOpt.add(Optional.<SimpleArticle> absent());
                 }
-                articles.add(sa);
             }
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        } catch (IOException e) {
+            // the response was interrupted, e.g. by a connection reset
+            throw new IllegalStateException(e);
+        } finally {
+            closeQuietly(parser);
+        }
+    }
+
+    private void parseQuery(final JsonParser parser) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("normalized".equals(field)) {
+                addNormalized(parser.<JsonNode>readValueAsTree());
+            } else if ("pages".equals(field) && token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    parser.nextToken();
+                    addPage(parser.<JsonNode>readValueAsTree());
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private static void closeQuietly(JsonParser parser) {
+        try {
+            parser.close();
+        } catch (IOException e) {
+            log.debug("cannot close parser", e);
+        }
+    }
+
+    private void addNormalized(JsonNode normalizedTitles) {
+        for (JsonNode normalized : normalizedTitles) {
+            this.normalizedTitles.put(normalized.path("from").asText(),
+                    normalized.path("to").asText());
         }
     }
 
+    private void addPage(JsonNode page) {
+        Optional<SimpleArticle> article = toArticleOpt(page, properties);
+        SimpleArticle sa;
+        if (article.isPresent()) {
+            sa = article.get();
+        } else {
+            sa = new SimpleArticle();
+            sa.setTitle(page.get("title").asText());
+            log.warn("Article '{}' is missing", sa.getTitle());
+        }
+        articlesOpt.add(article);
+        articlesByTitle.put(sa.getTitle(), article);
+        articles.add(sa);
+    }
+
+    /**
+     * @param page       an element of <code>query.pages</code> of a JSON response with
+     *                   <code>prop=revisions</code>; in the legacy format or with
+     *                   <code>formatversion=2</code>
+     * @param properties the requested properties, e.g. {@link #CONTENT}
+     * @return the article of the first revision or absent, if the page is missing or invalid
+     */
+    public static Optional<SimpleArticle> toArticleOpt(JsonNode page, int properties) {
+        if (isFlagged(page, "missing") || isFlagged(page, "invalid")) {
+            return Optional.absent();
+        }
+        SimpleArticle sa = new SimpleArticle();
+        sa.setTitle(page.get("title").asText());
+        sa.setPageId(page.get("pageid").asInt());
+        JsonNode rev = page.path("revisions");
+        rev = rev.get(0);
+        if (hasMarker(properties, CONTENT)) {
+            if (rev.has("content")) {
+                sa.setText(rev.path("content").asText());
+            } else {
+                sa.setText(rev.path("*").asText());
+            }
+        }
+        sa.setRevisionId(Optional.of(rev.path("revid").asText()).or(""));
+        sa.setEditSummary(Optional.of(rev.path("comment").asText()).or(""));
+        sa.setEditor(Optional.of(rev.path("user").asText()).or(""));
+        if (hasMarker(properties, TIMESTAMP)) {
+            sa.setEditTimestamp(Optional.of(rev.path("timestamp").asText()).or(""));
+        }
+        if (hasMarker(properties, FLAGS)) {
+            if (isFlagged(rev, "minor")) {
+                sa.setMinorEdit(true);
+            } else {
+                sa.setMinorEdit(false);
+            }
+        }
+        return Optional.of(sa);
+    }
+
+    /**
+     * @return true if the flag is set; the legacy format has an empty value for a set flag,
+     * <code>formatversion=2</code> a boolean
+     */
+    private static boolean isFlagged(JsonNode node, String flag) {
+        JsonNode value = node.path(flag);
+        if (value.isBoolean()) {
+            return value.booleanValue();
+        }
+        return !value.isMissingNode();
+    }
+
     public SimpleArticle getArticle() {
         return Iterables.getOnlyElement(asList());
     }
@@ -185,6 +334,19 @@ public class GetRevision extends MWAction {
         return Iterables.getOnlyElement(asListOpt());
     }
 
+    /**
+     * @param title as requested; the API normalizes titles, e.g. "foo_bar" becomes "Foo bar"
+     * @return the article of the given title or absent, if it is missing
+     */
+    public Optional<SimpleArticle> getArticleOpt(String title) {
+        String normalized = Optional.fromNullable(normalizedTitles.get(title)).or(title);
+        Optional<SimpleArticle> article = articlesByTitle.get(normalized);
+        if (article == null) {
+            return Optional.absent();
+        }
+        return article;
+    }
+
     public ImmutableList<SimpleArticle> asList() {
         return ImmutableList.copyOf(articles);
     }
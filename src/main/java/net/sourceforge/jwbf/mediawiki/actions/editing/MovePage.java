@@ -4,8 +4,10 @@ import java.util.Set;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
 import com.google.common.base.Strings;
 
+import net.sourceforge.jwbf.core.actions.ParamTuple;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.actions.util.PermissionException;
@@ -58,7 +60,9 @@ public class MovePage extends MWAction {
     private final boolean withsubpages;
     private final boolean noredirect;
     private final GetApiToken token;
-    private boolean moveToken = true;
+    private final Optional<TokenCache> tokens;
+    private ParamTuple<String> tokenParam;
+    private boolean moveToken;
 
     private JsonMapper mapper = new JsonMapper();
 
@@ -80,7 +84,24 @@ public class MovePage extends MWAction {
      */
     public MovePage(MediaWikiBot bot, String oldtitle, String newtitle, String reason,
             boolean withsubpages, boolean noredirect) {
+        this(bot, oldtitle, newtitle, reason, withsubpages, noredirect,
+                Optional.<TokenCache>absent());
+    }
+
+    /**
+     * Like {@link #MovePage(MediaWikiBot, String, String, String, boolean, boolean)}, but takes
+     * the move token from the given cache, e.g. {@link MediaWikiBot#getTokenCache()}.
+     */
+    public MovePage(MediaWikiBot bot, String oldtitle, String newtitle, String reason,
+            boolean withsubpages, boolean noredirect, TokenCache tokens) {
+        this(bot, oldtitle, newtitle, reason, withsubpages, noredirect, Optional.of(tokens));
+    }
+
+    private MovePage(MediaWikiBot bot, String oldtitle, String newtitle, String reason,
+            boolean withsubpages, boolean noredirect, Optional<TokenCache> tokens) {
         token = new GetApiToken(GetApiToken.Intoken.MOVE, oldtitle);
+        this.tokens = tokens;
+        this.moveToken = !tokens.isPresent();
         this.oldtitle = Checked.nonBlank(oldtitle, "oldtitle");
         this.newtitle = Checked.nonBlank(newtitle, "newtitle");
         this.reason = reason;
@@ -110,12 +131,17 @@ public class MovePage extends MWAction {
      * @return the delete action
      */
     private HttpAction getSecondRequest() {
+        if (tokens.isPresent()) {
+            tokenParam = tokens.get().get(GetApiToken.Intoken.MOVE, oldtitle);
+        } else {
+            tokenParam = token.get().token();
+        }
         RequestBuilder requestBuilder = new ApiRequestBuilder() //
                 .action("move") //
                 .formatJson() //
                 .param("from", MediaWiki.urlEncode(oldtitle)) //
                 .param("to", MediaWiki.urlEncode(newtitle)) //
-                .postParam(token.get().token()) //
+                .postParam(tokenParam) //
                 .param("movetalk", "") // XXX
         ;
 
@@ -139,7 +165,11 @@ public class MovePage extends MWAction {
     public String processReturningText(String json, HttpAction hm) {
         JsonNode node = mapper.toJsonNode(json).path("error");
         if (!node.isMissingNode()) {
-            throw new ApiException(node.get("code").asText(), node.get("info").asText());
+            ApiException e = new ApiException(node.get("code").asText(), node.get("info").asText());
+            if (tokens.isPresent()) {
+                tokens.get().invalidateIfBad(e, GetApiToken.Intoken.MOVE, tokenParam);
+            }
+            throw e;
         }
         XmlConverter.failOnError(json);
         if (moveToken) {
@@ -158,7 +188,7 @@ public class MovePage extends MWAction {
      */
     @Override
     public HttpAction getNextMessage() {
-        if (token.hasMoreActions()) {
+        if (moveToken && token.hasMoreActions()) {
             setHasMoreMessages(true);
             return token.popAction();
         }
@@ -1,5 +1,6 @@
 package net.sourceforge.jwbf.mediawiki.actions.editing;
 
+import net.sourceforge.jwbf.core.actions.ParamTuple;
 import net.sourceforge.jwbf.core.actions.Post;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
@@ -18,6 +19,7 @@ import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
 import com.google.common.base.Strings;
 
 /**
@@ -50,7 +52,9 @@ public class PostDelete extends MWAction {
     private final String reason;
 
     private final GetApiToken tokenAction;
-    private boolean delToken = true;
+    private final Optional<TokenCache> tokens;
+    private ParamTuple<String> token;
+    private boolean delToken;
 
     private JsonMapper mapper = new JsonMapper();
 
@@ -74,6 +78,19 @@ public class PostDelete extends MWAction {
      *            an action exception
      */
     public PostDelete(Userinfo userinfo, String title, String reason) {
+        this(userinfo, title, reason, Optional.<TokenCache>absent());
+    }
+
+    /**
+     * Constructs a new <code>PostDelete</code> action, which takes the delete token from the given
+     * cache, so only the deletion is requested.
+     */
+    public PostDelete(Userinfo userinfo, String title, String reason, TokenCache tokens) {
+        this(userinfo, title, reason, Optional.of(tokens));
+    }
+
+    private PostDelete(Userinfo userinfo, String title, String reason,
+            Optional<TokenCache> tokens) {
         this.title = Checked.nonBlank(title, "title");
 
         if (!userinfo.getRights().contains("delete")) {
@@ -83,6 +100,8 @@ public class PostDelete extends MWAction {
         }
         tokenAction = new GetApiToken(GetApiToken.Intoken.DELETE, title);
         this.reason = Strings.emptyToNull(reason);
+        this.tokens = tokens;
+        this.delToken = !tokens.isPresent();
     }
 
     /**
@@ -90,10 +109,15 @@ public class PostDelete extends MWAction {
      */
     private HttpAction getSecondRequest() {
         log.trace("enter PostDelete.generateDeleteRequest(String)");
+        if (tokens.isPresent()) {
+            token = tokens.get().get(GetApiToken.Intoken.DELETE, title);
+        } else {
+            token = tokenAction.get().token();
+        }
         RequestBuilder requestBuilder = new ApiRequestBuilder() //
                 .action("delete") //
                 .formatJson() //
-                .postParam(tokenAction.get().token()) //
+                .postParam(token) //
                 .param("title", MediaWiki.urlEncode(title)) //
         ;
 
@@ -117,7 +141,14 @@ public class PostDelete extends MWAction {
             tokenAction.processReturningText(s, hm);
             delToken = false;
         } else {
-            parse(s);
+            try {
+                parse(s);
+            } catch (ApiException e) {
+                if (tokens.isPresent()) {
+                    tokens.get().invalidateIfBad(e, GetApiToken.Intoken.DELETE, token);
+                }
+                throw e;
+            }
             setHasMoreMessages(false);
         }
 
@@ -180,7 +211,7 @@ public class PostDelete extends MWAction {
      */
     @Override
     public HttpAction getNextMessage() {
-        if (tokenAction.hasMoreActions()) {
+        if (delToken && tokenAction.hasMoreActions()) {
             setHasMoreMessages(true);
             return tokenAction.popAction();
         }
@@ -20,9 +20,11 @@ package net.sourceforge.jwbf.mediawiki.actions.editing;
 
 import java.util.Set;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Strings;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Sets.SetView;
+import net.sourceforge.jwbf.core.actions.ParamTuple;
 import net.sourceforge.jwbf.core.actions.Post;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.ActionException;
@@ -33,6 +35,7 @@ import net.sourceforge.jwbf.core.contentRep.Userinfo;
 import net.sourceforge.jwbf.mapper.XmlConverter;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import net.sourceforge.jwbf.mediawiki.actions.util.VersionException;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
@@ -53,6 +56,8 @@ public class PostModifyContent extends MWAction {
 
   private final ContentAccessable a;
   private final MediaWikiBot bot;
+  private final Optional<TokenCache> tokens;
+  private ParamTuple<String> editToken = null;
   private GetApiToken editTokeAction = null;
   private HttpAction apiGet = null;
   private Post editRequest = null;
@@ -61,11 +66,23 @@ public class PostModifyContent extends MWAction {
   static final String PARAM_BOTEDIT = "bot";
 
   public PostModifyContent(MediaWikiBot bot, final SimpleArticle a) {
+    this(bot, a, Optional.<TokenCache>absent());
+  }
+
+  /**
+   * Takes the edit token from the given cache, so only the edit is requested.
+   */
+  public PostModifyContent(MediaWikiBot bot, SimpleArticle a, TokenCache tokens) {
+    this(bot, a, Optional.of(tokens));
+  }
+
+  private PostModifyContent(MediaWikiBot bot, SimpleArticle a, Optional<TokenCache> tokens) {
     if (Strings.isNullOrEmpty(a.getTitle())) {
       throw new ActionException("imposible request, no title");
     }
     this.a = a;
     this.bot = bot;
+    this.tokens = tokens;
   }
 
   /**
@@ -84,10 +101,13 @@ public class PostModifyContent extends MWAction {
     }
     if (first) {
       first = false;
-      editTokeAction = newTokenRequest();
-      apiGet = editTokeAction.popAction();
-      return apiGet;
-    } else if (second) {
+      if (!tokens.isPresent()) {
+        editTokeAction = newTokenRequest();
+        apiGet = editTokeAction.popAction();
+        return apiGet;
+      }
+    }
+    if (second) {
 
       RequestBuilder builder = new ApiRequestBuilder() //
           .action("edit") //
@@ -108,7 +128,12 @@ public class PostModifyContent extends MWAction {
       } else {
         builder.postParam(PARAM_MINOR_NOT, "");
       }
-      builder.postParam(editTokeAction.get().token());
+      if (tokens.isPresent()) {
+        editToken = tokens.get().get(GetApiToken.Intoken.EDIT, a.getTitle());
+      } else {
+        editToken = editTokeAction.get().token();
+      }
+      builder.postParam(editToken);
       second = false;
 
       editRequest = builder.buildPost();
@@ -139,11 +164,18 @@ public class PostModifyContent extends MWAction {
   @Override
   public String processReturningText(String xml, HttpAction hm) {
     String request = hm.getRequest();
-    if (request.equals(apiGet.getRequest())) {
+    if (apiGet != null && request.equals(apiGet.getRequest())) {
       editTokeAction.processReturningText(xml, hm);
     } else if (request.equals(editRequest.getRequest())) {
-      // FIXME feels very strage
-      XmlConverter.getRootElement(xml);
+      try {
+        // FIXME feels very strage
+        XmlConverter.getRootElement(xml);
+      } catch (ApiException e) {
+        if (tokens.isPresent()) {
+          tokens.get().invalidateIfBad(e, GetApiToken.Intoken.EDIT, editToken);
+        }
+        throw e;
+      }
     } else {
       log.trace(xml);
       throw new ActionException("unknown response");
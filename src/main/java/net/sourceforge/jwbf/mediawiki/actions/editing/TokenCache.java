@@ -0,0 +1,117 @@
+package net.sourceforge.jwbf.mediawiki.actions.editing;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import net.sourceforge.jwbf.core.actions.ParamTuple;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mediawiki.actions.editing.GetApiToken.Intoken;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The tokens of one bot, shared by all of its write actions. Tokens are valid for the whole
+ * session, so every type is requested once with {@link GetApiToken}; threads asking for the
+ * same type at the same time wait for this one request. A token is only requested again after
+ * the server rejected it with <code>badtoken</code>, or after {@link #invalidateAll()}.
+ *
+ * @see MediaWikiBot#getTokenCache()
+ */
+public final class TokenCache {
+
+  private static final Logger log = LoggerFactory.getLogger(TokenCache.class);
+
+  private static final String BAD_TOKEN = "badtoken";
+
+  private final MediaWikiBot bot;
+  private final Cache<Intoken, ParamTuple<String>> tokens = CacheBuilder.newBuilder().build();
+
+  public TokenCache(MediaWikiBot bot) {
+    this.bot = Checked.nonNull(bot, "bot");
+  }
+
+  /**
+   * @param title the token is requested for, if it is not cached; tokens do not depend on it
+   * @return the token as parameter of a write request
+   */
+  public ParamTuple<String> get(final Intoken intoken, final String title) {
+    Checked.nonNull(intoken, "intoken");
+    try {
+      return tokens.get(intoken, new Callable<ParamTuple<String>>() {
+        @Override
+        public ParamTuple<String> call() {
+          return fetch(intoken, title);
+        }
+      });
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  @VisibleForTesting
+  ParamTuple<String> fetch(Intoken intoken, String title) {
+    log.debug("requesting {} token", intoken.getRequestName());
+    GetApiToken tokenAction = new GetApiToken(intoken, title);
+    bot.getPerformedAction(new TokenRequest(tokenAction));
+    return tokenAction.get().token();
+  }
+
+  private static class TokenRequest extends MWAction {
+
+    private final GetApiToken tokenAction;
+
+    TokenRequest(GetApiToken tokenAction) {
+      this.tokenAction = tokenAction;
+    }
+
+    @Override
+    public HttpAction getNextMessage() {
+      return tokenAction.popAction();
+    }
+
+    @Override
+    public boolean hasMoreMessages() {
+      return tokenAction.hasMoreActions();
+    }
+
+    @Override
+    public String processReturningText(String s, HttpAction hm) {
+      tokenAction.processReturningText(s, hm);
+      return s;
+    }
+  }
+
+  /**
+   * Forgets the given token, if the server rejected it; a newer token of the same type, which was
+   * requested in the meantime, is kept.
+   */
+  public void invalidateIfBad(ApiException e, Intoken intoken, ParamTuple<String> token) {
+    if (isBadToken(e)) {
+      log.debug("{} token was rejected", intoken.getRequestName());
+      tokens.asMap().remove(intoken, token);
+    }
+  }
+
+  /**
+   * Forgets all tokens, e.g. because the session of the bot has changed.
+   */
+  public void invalidateAll() {
+    tokens.invalidateAll();
+  }
+
+  /**
+   * @return true, if the request was rejected because of an invalid or outdated token
+   */
+  public static boolean isBadToken(ApiException e) {
+    return BAD_TOKEN.equals(e.getCode());
+  }
+}
@@ -19,12 +19,14 @@
 
 package net.sourceforge.jwbf.mediawiki.actions.meta;
 
+import java.io.Reader;
 import java.util.Set;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.Sets;
 import net.sourceforge.jwbf.JWBF;
 import net.sourceforge.jwbf.core.actions.Get;
+import net.sourceforge.jwbf.core.actions.ReturningStreamProcessor;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.mapper.XmlConverter;
 import net.sourceforge.jwbf.mapper.XmlElement;
@@ -39,7 +41,7 @@ import org.slf4j.LoggerFactory;
  *
  * @author Thomas Stock
  */
-public class GetVersion extends MWAction {
+public class GetVersion extends MWAction implements ReturningStreamProcessor {
 
   private static final Logger log = LoggerFactory.getLogger(GetVersion.class);
 
@@ -83,6 +85,16 @@ public class GetVersion extends MWAction {
     return "";
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final String processReturningStream(Reader content, HttpAction action) {
+    // XXX ignore errors here => fallback to unknown version
+    findContent(XmlConverter.getRootElementWithError(content));
+    return "";
+  }
+
   /**
    * @return the, like "Wikipedia"
    */
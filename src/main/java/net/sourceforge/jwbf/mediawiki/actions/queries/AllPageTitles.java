@@ -24,11 +24,12 @@ import java.util.Iterator;
 import com.google.common.base.Optional;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import net.sourceforge.jwbf.core.Optionals;
 import net.sourceforge.jwbf.core.actions.Get;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
-import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.ListItem;
+import net.sourceforge.jwbf.mapper.ListPage;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
@@ -43,12 +44,12 @@ import org.slf4j.LoggerFactory;
  * @author Tobias Knerr
  * @author Thomas Stock
  */
-public class AllPageTitles extends BaseQuery<String> {
+public class AllPageTitles extends ListQuery<String> {
 
   private static final Logger log = LoggerFactory.getLogger(AllPageTitles.class);
 
   /**
-   * Constant value for the aplimit-parameter. *
+   * Default value for the aplimit-parameter. *
    */
   private static final int LIMIT = 50;
 
@@ -59,6 +60,7 @@ public class AllPageTitles extends BaseQuery<String> {
   private final int[] namespaces;
 
   private final String from;
+  private final String to;
 
   private final RedirectFilter rf;
 
@@ -76,12 +78,25 @@ public class AllPageTitles extends BaseQuery<String> {
    */
   public AllPageTitles(MediaWikiBot bot, String from, String prefix, RedirectFilter rf,
       int... namespaces) {
-    super(bot);
+    this(bot, from, null, prefix, rf, namespaces);
+  }
+
+  /**
+   * @param from       page title to start from, may be null
+   * @param to         page title to stop at, inclusive; may be null
+   * @param prefix     restricts search to titles that begin with this value, may be null
+   * @param rf         include redirects in the list
+   * @param namespaces the namespace(s) that will be searched for links
+   */
+  public AllPageTitles(MediaWikiBot bot, String from, String to, String prefix,
+      RedirectFilter rf, int... namespaces) {
+    super(bot, "allpages");
 
     this.rf = rf;
     this.prefix = prefix;
     this.namespaces = namespaces;
     this.from = from;
+    this.to = to;
   }
 
   public AllPageTitles(MediaWikiBot bot, int... namespaces) {
@@ -103,15 +118,18 @@ public class AllPageTitles extends BaseQuery<String> {
     RequestBuilder requestBuilder = new ApiRequestBuilder() //
         .action("query") //
         .paramNewContinue(bot().getVersion()) //
-        .formatXml() //
+        .formatList(bot().getVersion()) //
         .param("list", "allpages") //
         .param("apfilterredir", findRedirectFilterValue(rf)) //
-        .param("aplimit", LIMIT) //
+        .param("aplimit", nextLimit("aplimit", LIMIT)) //
         ;
 
     if (from.isPresent()) {
       requestBuilder.param("apfrom", MediaWiki.urlEncode(from.get()));
     }
+    if (!Strings.isNullOrEmpty(to)) {
+      requestBuilder.param("apto", MediaWiki.urlEncode(to));
+    }
     if (!Strings.isNullOrEmpty(prefix)) {
       requestBuilder.param("apprefix", MediaWiki.urlEncode(prefix));
     }
@@ -134,19 +152,16 @@ public class AllPageTitles extends BaseQuery<String> {
   /**
    * Picks the article name from a MediaWiki api response.
    *
-   * @param s text for parsing
+   * @param page for parsing
    * @return a
    */
   @Override
-  protected ImmutableList<String> parseElements(String s) {
+  protected ImmutableList<String> parseElements(ListPage page) {
     ImmutableList.Builder<String> titles = ImmutableList.builder();
-    Optional<XmlElement> child = XmlConverter.getChildOpt(s, "query", "allpages");
-    if (child.isPresent()) {
-      for (XmlElement pageElement : child.get().getChildren("p")) {
-        String title = pageElement.getAttributeValue("title");
-        log.debug("Found article title: \"{}\"", title);
-        titles.add(title);
-      }
+    for (ListItem pageElement : page.getItems()) {
+      String title = pageElement.getAttributeValue("title");
+      log.debug("Found article title: \"{}\"", title);
+      titles.add(title);
     }
     return titles.build();
   }
@@ -155,12 +170,12 @@ public class AllPageTitles extends BaseQuery<String> {
    * Gets the information about a follow-up page from a provided api response. If there is one, a
    * new request is added to msgs by calling generateRequest. If no exists, the string is empty.
    *
-   * @param xml text for parsing
+   * @param page for parsing
    * @return the
    */
   @Override
-  protected Optional<String> parseHasMore(final String xml) {
-    return parseXmlHasMore(xml, "allpages", "apfrom", "apcontinue");
+  protected Optional<String> parseHasMore(final ListPage page) {
+    return page.getContinue("apcontinue", "apfrom");
   }
 
   /**
@@ -168,7 +183,8 @@ public class AllPageTitles extends BaseQuery<String> {
    */
   @Override
   protected HttpAction prepareNextRequest() {
-    return generateRequest(nextPageInfoOpt(), prefix, rf, MWAction.createNsString(namespaces));
+    Optional<String> nextFrom = nextPageInfoOpt().or(Optionals.absentIfEmpty(from));
+    return generateRequest(nextFrom, prefix, rf, MWAction.createNsString(namespaces));
 
   }
 
@@ -177,7 +193,7 @@ public class AllPageTitles extends BaseQuery<String> {
    */
   @Override
   protected Iterator<String> copy() {
-    return new AllPageTitles(bot(), from, prefix, rf, namespaces);
+    return new AllPageTitles(bot(), from, to, prefix, rf, namespaces);
   }
 
 }
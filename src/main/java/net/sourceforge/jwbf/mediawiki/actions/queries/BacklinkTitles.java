@@ -20,7 +20,6 @@
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
 import java.util.Iterator;
-import java.util.List;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
@@ -28,8 +27,8 @@ import net.sourceforge.jwbf.core.actions.Get;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.internal.Checked;
-import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.ListItem;
+import net.sourceforge.jwbf.mapper.ListPage;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
@@ -45,7 +44,7 @@ import org.slf4j.LoggerFactory;
  * @author Tobias Knerr
  * @since JWBF 1.1
  */
-public class BacklinkTitles extends BaseQuery<String> {
+public class BacklinkTitles extends ListQuery<String> {
 
   private static final Logger log = LoggerFactory.getLogger(BacklinkTitles.class);
 
@@ -59,7 +58,7 @@ public class BacklinkTitles extends BaseQuery<String> {
 
   BacklinkTitles(MediaWikiBot bot, String articleName, int backlinksPerRequestLimit,
       RedirectFilter redirectFilter, ImmutableList<Integer> namespaces) {
-    super(bot);
+    super(bot, "backlinks");
     this.backlinksPerRequestLimit = backlinksPerRequestLimit;
 
     this.bot = Checked.nonNull(bot, "bot");
@@ -101,28 +100,24 @@ public class BacklinkTitles extends BaseQuery<String> {
    * gets the information about a follow-up page from a provided api response. If there is one, the
    * information for the next page parameter is added to the nextPageInfo field.
    *
-   * @param xml text for parsing
+   * @param page for parsing
    */
   @Override
-  protected Optional<String> parseHasMore(final String xml) {
-    return parseXmlHasMore(xml, "backlinks", "blcontinue", "blcontinue");
+  protected Optional<String> parseHasMore(final ListPage page) {
+    return page.getContinue("blcontinue", "blcontinue");
 
   }
 
   /**
    * picks the article name from a MediaWiki api response.
    *
-   * @param xml text for parsing
+   * @param page for parsing
    */
   @Override
-  protected ImmutableList<String> parseElements(String xml) {
-    Optional<XmlElement> child = XmlConverter.getChildOpt(xml, "query", "backlinks");
+  protected ImmutableList<String> parseElements(ListPage page) {
     ImmutableList.Builder<String> titleCollection = ImmutableList.builder();
-    if (child.isPresent()) {
-      List<XmlElement> backlinks = child.get().getChildren("bl");
-      for (XmlElement backlink : backlinks) {
-        titleCollection.add(backlink.getAttributeValue("title"));
-      }
+    for (ListItem backlink : page.getItems()) {
+      titleCollection.add(backlink.getAttributeValue("title"));
     }
     return titleCollection.build();
 
@@ -134,9 +129,9 @@ public class BacklinkTitles extends BaseQuery<String> {
     RequestBuilder builder = new ApiRequestBuilder() //
         .action("query") //
         .paramNewContinue(bot.getVersion()) //
-        .formatXml() //
+        .formatList(bot.getVersion()) //
         .param("list", "backlinks") //
-        .param("bllimit", backlinksPerRequestLimit) //
+        .param("bllimit", nextLimit("bllimit", backlinksPerRequestLimit)) //
         .param("bltitle", MediaWiki.urlEncode(title)) //
         .param("blfilterredir", MediaWiki.urlEncode(redirectFilter.toString()));
 
@@ -1,16 +1,32 @@
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.google.common.annotations.Beta;
 import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Iterables;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Iterators;
 import net.sourceforge.jwbf.core.Optionals;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.internal.Checked;
-import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.JsonListPage;
+import net.sourceforge.jwbf.mapper.JsonMapper;
+import net.sourceforge.jwbf.mapper.ListPage;
+import net.sourceforge.jwbf.mapper.XmlListPage;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 import org.slf4j.Logger;
@@ -23,6 +39,14 @@ import org.slf4j.LoggerFactory;
 public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneable {
 
   private static final Logger log = LoggerFactory.getLogger(BaseQuery.class);
+  private static final JsonMapper JSON = new JsonMapper();
+
+  static final Runnable NOOP = new Runnable() {
+    @Override
+    public void run() {
+      // nothing to do
+    }
+  };
 
   private Iterator<T> titleIterator = ImmutableList.<T>of().iterator();
   private final QueryAction inner;
@@ -31,6 +55,17 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
 
   private Optional<String> nextPageInfo = Optional.absent();
 
+  private Optional<Integer> limit = Optional.absent();
+  private boolean maxLimit = false;
+  private Optional<Integer> budget = Optional.absent();
+  private int delivered = 0;
+
+  private Optional<QueryCheckpoint> resumed = Optional.absent();
+  private RequestContext requestContext = new RequestContext(0, Optional.<Integer>absent());
+  private Optional<String> pageRequest = Optional.absent();
+  private Optional<String> pageInfo = Optional.absent();
+  private int pageOffset = 0;
+
   protected final String setNextPageInfo(String nextPageInfo) {
     this.nextPageInfo = Optionals.absentIfEmpty(nextPageInfo);
     return nextPageInfo;
@@ -62,9 +97,111 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
     return this;
   }
 
+  /**
+   * @return the first <code>count</code> elements of a new iteration of this query; its last
+   * request asks only for the missing elements
+   */
   @Beta
   public ImmutableList<T> getCopyOf(int count) {
-    return ImmutableList.copyOf(Iterables.limit(lazy(), count));
+    Iterator<T> copy = iterator();
+    Iterator<T> limited = Iterators.limit(copy, count);
+    if (copy instanceof BaseQuery) {
+      ((BaseQuery<?>) copy).budget = Optional.of(count);
+    }
+    return ImmutableList.copyOf(limited);
+  }
+
+  /**
+   * @param limit elements per request, instead of the default of this query; the API permits 500,
+   *              5000 for users with the right "apihighlimits"
+   */
+  @Beta
+  public BaseQuery<T> withLimit(int limit) {
+    Preconditions.checkArgument(limit > 0, "limit must be > 0, but was " + limit);
+    this.limit = Optional.of(limit);
+    this.maxLimit = false;
+    return this;
+  }
+
+  /**
+   * Requests as many elements per request as the API permits for the current user.
+   */
+  @Beta
+  public BaseQuery<T> withMaxLimit() {
+    this.limit = Optional.absent();
+    this.maxLimit = true;
+    return this;
+  }
+
+  /**
+   * @param limitKey     the name of the limit parameter, like "aplimit"
+   * @param defaultLimit elements per request, if no limit was configured
+   * @return the value of the limit parameter for the next request; either a number or
+   * <code>max</code>, which lets the server choose
+   */
+  protected final String nextLimit(String limitKey, int defaultLimit) {
+    requestContext.limitKey = Optional.of(Checked.nonNull(limitKey, "limitKey"));
+    Optional<Integer> remaining = Optional.absent();
+    if (requestContext.missing.isPresent()) {
+      remaining = Optional.of(requestContext.missing.get() + requestContext.skipped);
+    }
+    if (maxLimit) {
+      if (remaining.isPresent()) {
+        return String.valueOf(Math.min(remaining.get(), getMaxLimit(bot.hasApiHighLimits())));
+      }
+      return "max";
+    }
+    int perRequest = limit.or(defaultLimit);
+    if (remaining.isPresent()) {
+      return String.valueOf(Math.min(remaining.get(), perRequest));
+    }
+    return String.valueOf(perRequest);
+  }
+
+  /**
+   * @param highLimits if the current user has the right "apihighlimits"
+   * @return the maximum of elements per request of this query
+   */
+  protected int getMaxLimit(boolean highLimits) {
+    if (highLimits) {
+      return 5000;
+    }
+    return 500;
+  }
+
+  /**
+   * @return the position of this query, that can be passed to {@link #resume(QueryCheckpoint)}
+   * of an equal query; elements returned by {@link #prefetching(int, Executor)} are not covered
+   */
+  @Beta
+  public QueryCheckpoint checkpoint() {
+    if (inner.init && resumed.isPresent()) {
+      return resumed.get();
+    }
+    return new QueryCheckpoint(getClass().getName(), pageRequest, pageInfo, pageOffset);
+  }
+
+  /**
+   * Continues this query at the given position, instead of its first element. The first request
+   * is the one of the checkpoint, so this query must have the same parameters and limit as the
+   * query of the checkpoint; only the limit of {@link #getCopyOf(int)} may differ.
+   *
+   * @return this query; it is the iterator to use, {@link #iterator()} returns a copy that starts
+   * at the checkpoint, too
+   */
+  @Beta
+  public BaseQuery<T> resume(QueryCheckpoint checkpoint) {
+    Checked.nonNull(checkpoint, "checkpoint");
+    if (!getClass().getName().equals(checkpoint.getQueryType())) {
+      throw new IllegalArgumentException("a checkpoint of " + checkpoint.getQueryType() +
+          " can not resume " + getClass().getName());
+    }
+    if (!inner.init) {
+      throw new IllegalStateException("query was already started");
+    }
+    resumed = Optional.of(checkpoint);
+    setNextPageInfo(checkpoint.getPageInfo().orNull());
+    return this;
   }
 
   /**
@@ -72,11 +209,199 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
    */
   @Override
   public final Iterator<T> iterator() {
-    return copy();
+    Iterator<T> copy = copy();
+    if (copy instanceof BaseQuery) {
+      BaseQuery<?> query = (BaseQuery<?>) copy;
+      if (maxLimit) {
+        query.withMaxLimit();
+      } else if (limit.isPresent()) {
+        query.withLimit(limit.get());
+      }
+      if (resumed.isPresent()) {
+        query.resume(resumed.get());
+      }
+    }
+    return copy;
   }
 
   protected abstract Iterator<T> copy();
 
+  /**
+   * Iterates over the remaining elements of this query, while the following pages are requested
+   * in the background: as soon as a page was parsed, the next one is requested with its
+   * continuation, until <code>pages</code> parsed pages are waiting for the consumer. So the
+   * network latency overlaps with the processing of the elements.
+   * <p>
+   * The returned iterator takes over this query; do not iterate this query directly afterwards.
+   *
+   * @param pages    maximum number of parsed pages buffered ahead of the consumer
+   * @param executor requests the pages, one after another
+   */
+  @Beta
+  public Iterator<T> prefetching(int pages, Executor executor) {
+    return prefetching(pages, executor, NOOP);
+  }
+
+  /**
+   * Processes the remaining elements of this query in the given pool. Every page becomes a task as
+   * soon as it was parsed, so the pool works on the elements while the following page is
+   * requested. Blocks until all elements were processed.
+   * <p>
+   * After the first failure no further page is requested and the remaining elements are skipped;
+   * the failure is rethrown when all submitted tasks are finished, so the processor is not called
+   * after this method has returned.
+   *
+   * @throws RuntimeException the first one of a request or of the processor
+   */
+  @Beta
+  public void processParallel(ForkJoinPool pool, ElementProcessor<? super T> processor) {
+    processParallel(pool, pool.getParallelism() * 2, processor);
+  }
+
+  /**
+   * @param pagesInFlight maximum number of pages in the pool; the next page is requested after
+   *                      the oldest one was processed
+   * @see #processParallel(ForkJoinPool, ElementProcessor)
+   */
+  @Beta
+  public void processParallel(ForkJoinPool pool, int pagesInFlight,
+      ElementProcessor<? super T> processor) {
+    Preconditions.checkArgument(pagesInFlight > 0,
+        "pagesInFlight must be > 0, but was " + pagesInFlight);
+    Checked.nonNull(processor, "processor");
+    Deque<ForkJoinTask<Void>> inFlight = new ArrayDeque<>();
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    try {
+      ImmutableList<T> page = takeCurrentPage();
+      while (failure.get() == null) {
+        if (!page.isEmpty()) {
+          if (inFlight.size() >= pagesInFlight) {
+            inFlight.poll().join();
+          }
+          inFlight.add(pool.submit(new PageTask<T>(page, 0, page.size(), processor, failure)));
+        }
+        if (!hasNextPage()) {
+          break;
+        }
+        page = takeNextPage();
+      }
+    } catch (RuntimeException | Error e) {
+      failure.compareAndSet(null, e);
+    }
+    for (ForkJoinTask<Void> task : inFlight) {
+      task.join();
+    }
+    if (failure.get() != null) {
+      throw Throwables.propagate(failure.get());
+    }
+  }
+
+  /**
+   * Signals the remaining elements of this query to a single subscriber. The next page is only
+   * requested, when the subscriber has requested more elements than are already fetched.
+   *
+   * @param executor sends the requests and signals the elements
+   * @see #publisher(Executor, int)
+   */
+  @Beta
+  public QueryPublisher<T> publisher(Executor executor) {
+    return publisher(executor, 0);
+  }
+
+  /**
+   * @param pagesAhead number of pages, which are requested before the subscriber asks for them
+   * @see #publisher(Executor)
+   */
+  @Beta
+  public QueryPublisher<T> publisher(Executor executor, int pagesAhead) {
+    Preconditions.checkArgument(pagesAhead >= 0,
+        "pagesAhead must be >= 0, but was " + pagesAhead);
+    return new QueryPublisher<>(this, Checked.nonNull(executor, "executor"), pagesAhead);
+  }
+
+  /**
+   * @return the remaining elements of the current page, which are marked as returned
+   */
+  ImmutableList<T> takeCurrentPage() {
+    ImmutableList<T> page = ImmutableList.copyOf(titleIterator);
+    titleIterator = ImmutableList.<T>of().iterator();
+    delivered += page.size();
+    pageOffset += page.size();
+    return page;
+  }
+
+  boolean hasNextPage() {
+    return hasMissingElements() && (inner.init || hasNextPageInfo());
+  }
+
+  /**
+   * @return false, if the elements of {@link #getCopyOf(int)} were returned
+   */
+  private boolean hasMissingElements() {
+    return !budget.isPresent() || delivered < budget.get();
+  }
+
+  /**
+   * @return the elements of the next page, which are marked as returned
+   */
+  ImmutableList<T> takeNextPage() {
+    ImmutableList<T> page = fetchNextPage();
+    delivered += page.size();
+    pageOffset += page.size();
+    return page;
+  }
+
+  private static class PageTask<T> extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final ImmutableList<T> page;
+    private final int start;
+    private final int end;
+    private final ElementProcessor<? super T> processor;
+    private final AtomicReference<Throwable> failure;
+
+    PageTask(ImmutableList<T> page, int start, int end, ElementProcessor<? super T> processor,
+        AtomicReference<Throwable> failure) {
+      this.page = page;
+      this.start = start;
+      this.end = end;
+      this.processor = processor;
+      this.failure = failure;
+    }
+
+    /**
+     * Completes normally even if the processor fails, because {@link #invokeAll} would not wait
+     * for the sibling task otherwise; the failure is kept for the caller.
+     */
+    @Override
+    protected void compute() {
+      if (failure.get() != null) {
+        return;
+      }
+      if (end - start == 1) {
+        try {
+          processor.process(page.get(start));
+        } catch (RuntimeException | Error e) {
+          failure.compareAndSet(null, e);
+        }
+      } else {
+        int middle = start + (end - start) / 2;
+        invokeAll(new PageTask<>(page, start, middle, processor, failure),
+            new PageTask<>(page, middle, end, processor, failure));
+      }
+    }
+  }
+
+  /**
+   * @param listener is called by the executor, after a page was fetched or a request failed
+   */
+  PrefetchingIterator prefetching(int pages, Executor executor, Runnable listener) {
+    Preconditions.checkArgument(pages > 0, "pages must be > 0, but was " + pages);
+    return new PrefetchingIterator(pages, Checked.nonNull(executor, "executor"),
+        Checked.nonNull(listener, "listener"));
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -92,7 +417,10 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
   @Override
   public T next() {
     doCollection();
-    return titleIterator.next();
+    T next = titleIterator.next();
+    delivered++;
+    pageOffset++;
+    return next;
   }
 
   /**
@@ -109,33 +437,140 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
   @Deprecated
   protected Optional<String> parseXmlHasMore(String xml, String elementName, String attributeKey,
       String newContinueKey) {
-    XmlElement rootElement = XmlConverter.getRootElement(xml);
-    Optional<XmlElement> aContinue = rootElement.getChildOpt("continue");
-    if (aContinue.isPresent()) {
-      return aContinue.get().getAttributeValueOpt(newContinueKey);
+    return toListPage(xml, elementName).getContinue(newContinueKey, attributeKey);
+  }
+
+  /**
+   * @param listName like "allpages"
+   */
+  static ListPage toListPage(String response, String listName) {
+    if (firstNonWhitespace(response) == '{') {
+      return JsonListPage.parse(response, listName);
     } else {
-      // XXX fallback for < MW1_19
-      XmlElement queryContinue = rootElement.getChild("query-continue").getChild(elementName);
-      return queryContinue.getAttributeValueOpt(attributeKey);
+      return XmlListPage.parse(response, listName);
     }
   }
 
+  static JsonNode toJsonNode(String json) {
+    return JSON.toJsonNode(json);
+  }
+
+  /**
+   * @return the given response
+   * @throws ApiException if the response contains an error, e.g. "readapidenied"
+   */
+  static JsonNode checkForError(JsonNode response) {
+    JsonNode error = response.path("error");
+    if (error.isObject()) {
+      ApiException apiException =
+          new ApiException(error.path("code").asText(), error.path("info").asText());
+      log.error(apiException.getCode() + ": " + apiException.getValue());
+      throw apiException;
+    }
+    return response;
+  }
+
+  private static char firstNonWhitespace(String response) {
+    if (response != null) {
+      for (int i = 0; i < response.length(); i++) {
+        char c = response.charAt(i);
+        if (!Character.isWhitespace(c)) {
+          return c;
+        }
+      }
+    }
+    return ' ';
+  }
+
   /**
    * @return the first and all following requests; depends on {@link #parseHasMore(String)}.
    * Its implementation may ask {@link #nextPageInfoOpt()} for continuation value.
    */
   protected abstract HttpAction prepareNextRequest();
 
+  /**
+   * Prepares the next request of this query, e.g. of a delegate, that prepares the requests of
+   * another query.
+   */
+  final HttpAction prepareNextRequest(RequestContext context) {
+    requestContext = context;
+    return prepareNextRequest();
+  }
+
+  /**
+   * @return the context of the last request, that was prepared
+   */
+  final RequestContext requestContext() {
+    return requestContext;
+  }
+
   private void doCollection() {
 
-    if (inner.init || (!titleIterator.hasNext() && hasNextPageInfo())) {
-      inner.init = false;
-      inner.setHasMoreMessages(true);
-      inner.msg = prepareNextRequest();
-      bot.getPerformedAction(inner);
+    // pages may be empty, e.g. the rest of a resumed page
+    while (!titleIterator.hasNext() && hasNextPage()) {
+      titleIterator = fetchNextPage().iterator();
+    }
+  }
+
+  private ImmutableList<T> fetchNextPage() {
+    Optional<String> currentPageInfo = nextPageInfo;
+    boolean first = inner.init;
+    inner.init = false;
+    inner.setHasMoreMessages(true);
+    int skip = 0;
+    if (first && resumed.isPresent()) {
+      skip = resumed.get().getOffset();
+    }
+    Optional<Integer> missing = Optional.absent();
+    if (budget.isPresent()) {
+      missing = Optional.of(budget.get() - delivered);
+    }
+    RequestContext context = new RequestContext(skip, missing);
+    inner.msg = prepareNextRequest(context);
+    if (first && resumed.isPresent()) {
+      checkResumedRequest(resumed.get(), inner.msg.getRequest(), context.limitKey);
+    }
+    bot.getPerformedAction(inner);
+    pageRequest = Optional.of(inner.msg.getRequest());
+    pageInfo = currentPageInfo;
+    ImmutableList<T> elements = inner.elements;
+    pageOffset = Math.min(skip, elements.size());
+    return elements.subList(pageOffset, elements.size());
+  }
+
+  /**
+   * The limit parameter of this query is ignored, because {@link #getCopyOf(int)} shrinks it to
+   * the missing elements, both of the checkpointed and of the resumed query.
+   */
+  private static void checkResumedRequest(QueryCheckpoint checkpoint, String request,
+      Optional<String> limitKey) {
+    Optional<String> expected = checkpoint.getRequest();
+    if (expected.isPresent() &&
+        !requestParams(expected.get(), limitKey).equals(requestParams(request, limitKey))) {
+      throw new IllegalStateException("checkpoint of another query; expected request " +
+          expected.get() + " but was " + request);
     }
   }
 
+  /**
+   * @return the path of the request with the key "" and all parameters, except of the excluded
+   */
+  static ImmutableSetMultimap<String, String> requestParams(String request,
+      Optional<String> excludedKey) {
+    int query = request.indexOf('?') + 1;
+    ImmutableSetMultimap.Builder<String, String> params = ImmutableSetMultimap.builder();
+    params.put("", request.substring(0, query));
+    for (String param : Splitter.on('&').omitEmptyStrings().split(request.substring(query))) {
+      int separator = param.indexOf('=');
+      String key = separator < 0 ? param : param.substring(0, separator);
+      String value = separator < 0 ? "" : param.substring(separator + 1);
+      if (!excludedKey.equals(Optional.of(key))) {
+        params.put(key, value);
+      }
+    }
+    return params.build();
+  }
+
   /**
    * @param s content form the remote api; maybe xml or json.
    *          It depends on {@link #prepareNextRequest()}
@@ -149,14 +584,50 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
    */
   protected abstract Optional<String> parseHasMore(final String s);
 
+  /**
+   * Reads the elements and the continuation of a response with {@link #parseElements(String)} and
+   * {@link #parseHasMore(String)}. Queries, that read both from the same parsed form of the
+   * response, override this to parse it only once.
+   *
+   * @return the elements of the response
+   */
+  ImmutableList<T> readPage(String response) {
+    ImmutableList<T> elements = parseElements(response);
+    setNextPageInfo(parseHasMore(response).orNull());
+    return elements;
+  }
+
   protected MediaWikiBot bot() {
     return bot;
   }
 
+  /**
+   * Describes the request, that {@link #prepareNextRequest()} prepares.
+   */
+  static final class RequestContext {
+
+    /**
+     * Elements at the start of the page, which are skipped, because they were returned before the
+     * resumed checkpoint.
+     */
+    private final int skipped;
+    /**
+     * Elements, that are still missing in the limited iteration of {@link #getCopyOf(int)}.
+     */
+    private final Optional<Integer> missing;
+    private Optional<String> limitKey = Optional.absent();
+
+    RequestContext(int skipped, Optional<Integer> missing) {
+      this.skipped = skipped;
+      this.missing = missing;
+    }
+  }
+
   class QueryAction extends MWAction {
 
     private HttpAction msg;
     private boolean init = true;
+    private ImmutableList<T> elements = ImmutableList.of();
 
     /**
      * {@inheritDoc}
@@ -171,8 +642,7 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
      */
     @Override
     public final String processAllReturningText(final String s) {
-      ImmutableList<T> newTitles = parseElements(s);
-      setNextPageInfo(parseHasMore(s).orNull());
+      ImmutableList<T> newTitles = readPage(s);
       if (log.isWarnEnabled()) {
         if (oldTitlesForLogging.equals(newTitles) && !oldTitlesForLogging.isEmpty()) {
           log.warn("previous response has same payload");
@@ -181,11 +651,121 @@ public abstract class BaseQuery<T> implements Iterable<T>, Iterator<T>, Cloneabl
         oldTitlesForLogging = newTitles;
       }
 
-      titleIterator = newTitles.iterator();
+      elements = newTitles;
       return "";
     }
   }
 
+  class PrefetchingIterator extends AbstractIterator<T> {
+
+    private final int pages;
+    private final Executor executor;
+    private final Runnable listener;
+    private final Object lock = new Object();
+    private final Deque<ImmutableList<T>> buffer = new ArrayDeque<>();
+    private Iterator<T> current;
+    private boolean fetching = false;
+    private boolean done;
+    private RuntimeException failure;
+
+    private final Runnable fetch = new Runnable() {
+      @Override
+      public void run() {
+        fetchPage();
+      }
+    };
+
+    PrefetchingIterator(int pages, Executor executor, Runnable listener) {
+      this.pages = pages;
+      this.executor = executor;
+      this.listener = listener;
+      this.current = titleIterator;
+      this.done = !inner.init && !hasNextPageInfo();
+      titleIterator = ImmutableList.<T>of().iterator();
+      fetchAhead();
+    }
+
+    private void fetchAhead() {
+      synchronized (lock) {
+        if (fetching || done || failure != null || buffer.size() >= pages) {
+          return;
+        }
+        fetching = true;
+      }
+      try {
+        executor.execute(fetch);
+      } catch (RuntimeException e) {
+        fail(e);
+      }
+    }
+
+    /**
+     * @return true if {@link #hasNext()} will not wait for a request
+     */
+    boolean isReady() {
+      if (current.hasNext()) {
+        return true;
+      }
+      synchronized (lock) {
+        return !buffer.isEmpty() || failure != null || done;
+      }
+    }
+
+    private void fail(RuntimeException e) {
+      synchronized (lock) {
+        failure = e;
+        fetching = false;
+        lock.notifyAll();
+      }
+      listener.run();
+    }
+
+    private void fetchPage() {
+      try {
+        ImmutableList<T> page = fetchNextPage();
+        boolean more = hasNextPageInfo();
+        synchronized (lock) {
+          buffer.add(page);
+          done = !more;
+          fetching = false;
+          lock.notifyAll();
+        }
+      } catch (RuntimeException e) {
+        fail(e);
+        return;
+      }
+      listener.run();
+      fetchAhead();
+    }
+
+    @Override
+    protected T computeNext() {
+      while (!current.hasNext()) {
+        ImmutableList<T> page;
+        synchronized (lock) {
+          while (buffer.isEmpty() && failure == null && !done) {
+            try {
+              lock.wait();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              throw new IllegalStateException("interrupted while waiting for the next page", e);
+            }
+          }
+          page = buffer.poll();
+          if (page == null) {
+            if (failure != null) {
+              throw failure;
+            }
+            return endOfData();
+          }
+        }
+        fetchAhead();
+        current = page.iterator();
+      }
+      return current.next();
+    }
+  }
+
   @Override
   protected Object clone() throws CloneNotSupportedException {
     super.clone();
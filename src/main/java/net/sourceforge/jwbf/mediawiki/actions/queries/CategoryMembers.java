@@ -19,7 +19,6 @@
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
 import javax.annotation.Nonnull;
-import java.util.List;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.FluentIterable;
@@ -28,8 +27,8 @@ import net.sourceforge.jwbf.core.actions.Get;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.internal.Checked;
 import net.sourceforge.jwbf.core.internal.NonnullFunction;
-import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.ListItem;
+import net.sourceforge.jwbf.mapper.ListPage;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
@@ -45,12 +44,12 @@ import org.slf4j.LoggerFactory;
  * @see <a href= "http://www.mediawiki.org/wiki/API:Query_-_Lists#categorymembers_.2F_cm">API
  * documentation</a>
  */
-abstract class CategoryMembers extends BaseQuery<CategoryItem> {
+abstract class CategoryMembers extends ListQuery<CategoryItem> {
 
   private static final Logger log = LoggerFactory.getLogger(CategoryMembers.class);
 
   /**
-   * constant value for the bllimit-parameter. *
+   * default value for the cmlimit-parameter. *
    */
   protected static final int LIMIT = 50;
 
@@ -60,7 +59,7 @@ abstract class CategoryMembers extends BaseQuery<CategoryItem> {
 
   protected CategoryMembers(MediaWikiBot bot, String categoryName,
       ImmutableList<Integer> namespaces) {
-    super(bot);
+    super(bot, "categorymembers");
     this.namespace = Checked.nonNull(namespaces, "namespaces");
     this.namespaceStr = MWAction.createNsString(namespaces);
     this.categoryName = Checked.nonNull(categoryName, "categoryName").replace(" ", "_");
@@ -97,7 +96,12 @@ abstract class CategoryMembers extends BaseQuery<CategoryItem> {
    */
   @Override
   public Optional<String> parseHasMore(final String xml) {
-    return parseXmlHasMore(xml, "categorymembers", "cmcontinue", "cmcontinue");
+    return super.parseHasMore(xml);
+  }
+
+  @Override
+  protected Optional<String> parseHasMore(final ListPage page) {
+    return page.getContinue("cmcontinue", "cmcontinue");
   }
 
   /**
@@ -107,15 +111,19 @@ abstract class CategoryMembers extends BaseQuery<CategoryItem> {
    */
   @Override
   public ImmutableList<CategoryItem> parseElements(String xml) {
-    return parseArticles(xml, toCategoryItem());
+    return super.parseElements(xml);
+  }
 
+  @Override
+  protected ImmutableList<CategoryItem> parseElements(ListPage page) {
+    return parseArticles(page, toCategoryItem());
   }
 
-  private NonnullFunction<XmlElement, CategoryItem> toCategoryItem() {
-    return new NonnullFunction<XmlElement, CategoryItem>() {
+  private NonnullFunction<ListItem, CategoryItem> toCategoryItem() {
+    return new NonnullFunction<ListItem, CategoryItem>() {
       @Nonnull
       @Override
-      protected CategoryItem applyNonnull(@Nonnull XmlElement input) {
+      protected CategoryItem applyNonnull(@Nonnull ListItem input) {
         String title = input.getAttributeValueNonNull("title");
         int namespace = Integer.parseInt(input.getAttributeValueNonNull("ns"));
         int pageId = Integer.parseInt(input.getAttributeValueNonNull("pageid"));
@@ -125,14 +133,12 @@ abstract class CategoryMembers extends BaseQuery<CategoryItem> {
     };
   }
 
-  <T> ImmutableList<T> parseArticles(String xml, NonnullFunction<XmlElement, T> f) {
-    Optional<XmlElement> child = XmlConverter.getChildOpt(xml, "query", "categorymembers");
-    if (child.isPresent()) {
-      List<XmlElement> children = child.get().getChildren();
-      return FluentIterable.from(children).transform(f).toList();
-    } else {
-      return ImmutableList.of();
-    }
+  <T> ImmutableList<T> parseArticles(String xml, NonnullFunction<ListItem, T> f) {
+    return parseArticles(parseListPage(xml), f);
+  }
+
+  <T> ImmutableList<T> parseArticles(ListPage page, NonnullFunction<ListItem, T> f) {
+    return FluentIterable.from(page.getItems()).transform(f).toList();
   }
 
   private RequestBuilder newRequestBuilder() {
@@ -143,10 +149,10 @@ abstract class CategoryMembers extends BaseQuery<CategoryItem> {
 
     return requestBuilder //
         .action("query") //
-        .formatXml() //
+        .formatList(bot().getVersion()) //
         .paramNewContinue(bot().getVersion()) //
         .param("list", "categorymembers") //
-        .param("cmlimit", LIMIT) //
+        .param("cmlimit", nextLimit("cmlimit", LIMIT)) //
         .param("cmtitle", "Category:" + MediaWiki.urlEncode(categoryName)) //
         // TODO: do not add Category: - instead, change other methods' descs (e.g.
         // in MediaWikiBot)
@@ -27,7 +27,8 @@ import com.google.common.collect.ImmutableList;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.internal.Checked;
 import net.sourceforge.jwbf.core.internal.NonnullFunction;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.ListItem;
+import net.sourceforge.jwbf.mapper.ListPage;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 import org.slf4j.Logger;
@@ -38,7 +39,7 @@ import org.slf4j.LoggerFactory;
  *
  * @author Thomas Stock
  */
-public class CategoryMembersSimple extends BaseQuery<String> {
+public class CategoryMembersSimple extends ListQuery<String> {
 
   private static final Logger log = LoggerFactory.getLogger(CategoryMembersSimple.class);
 
@@ -46,7 +47,7 @@ public class CategoryMembersSimple extends BaseQuery<String> {
 
   @VisibleForTesting
   CategoryMembersSimple(MediaWikiBot bot, CategoryMembers cm) {
-    super(bot);
+    super(bot, "categorymembers");
     this.cm = Checked.nonNull(cm, "categoryMembers");
   }
 
@@ -73,7 +74,9 @@ public class CategoryMembersSimple extends BaseQuery<String> {
 
   @Override
   protected HttpAction prepareNextRequest() {
-    return cm.prepareNextRequest();
+    cm.setNextPageInfo(nextPageInfoOpt().orNull());
+    // cm sizes its limit by the elements missing in this query
+    return cm.prepareNextRequest(requestContext());
   }
 
   @Override
@@ -81,31 +84,49 @@ public class CategoryMembersSimple extends BaseQuery<String> {
     return cm.parseArticles(s, toTitleFunction());
   }
 
+  @Override
+  protected ImmutableList<String> parseElements(ListPage page) {
+    return cm.parseArticles(page, toTitleFunction());
+  }
+
   @Override
   protected Optional<String> parseHasMore(String s) {
-    return cm.parseHasMore(s);
+    return continueCategoryMembers(cm.parseHasMore(s));
   }
 
   @Override
-  protected Iterator<String> copy() {
-    return new CategoryMembersSimple(bot(), cm.categoryName, cm.namespace);
+  protected Optional<String> parseHasMore(ListPage page) {
+    return continueCategoryMembers(cm.parseHasMore(page));
+  }
+
+  private Optional<String> continueCategoryMembers(Optional<String> hasMore) {
+    // the requests are prepared by cm, so it must know the continuation
+    cm.setNextPageInfo(hasMore.orNull());
+    return hasMore;
+  }
+
+  @Override
+  public BaseQuery<String> withLimit(int limit) {
+    cm.withLimit(limit);
+    return super.withLimit(limit);
   }
 
   @Override
-  public boolean hasNext() {
-    return cm.hasNext();
+  public BaseQuery<String> withMaxLimit() {
+    cm.withMaxLimit();
+    return super.withMaxLimit();
   }
 
   @Override
-  public String next() {
-    return cm.next().getTitle();
+  protected Iterator<String> copy() {
+    return new CategoryMembersSimple(bot(), cm.categoryName, cm.namespace);
   }
 
-  static NonnullFunction<XmlElement, String> toTitleFunction() {
-    return new NonnullFunction<XmlElement, String>() {
+  static NonnullFunction<ListItem, String> toTitleFunction() {
+    return new NonnullFunction<ListItem, String>() {
       @Nonnull
       @Override
-      public String applyNonnull(@Nonnull XmlElement input) {
+      public String applyNonnull(@Nonnull ListItem input) {
         return input.getAttributeValueNonNull("title");
 
       }
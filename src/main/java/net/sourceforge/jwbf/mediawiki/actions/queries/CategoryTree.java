@@ -0,0 +1,309 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Ints;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import net.sourceforge.jwbf.mediawiki.contentRep.CategoryItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lists the members of a category and of all its subcategories. Every category is read with
+ * {@link CategoryMembersFull} by a task of the executor, so subcategories are read in parallel,
+ * level after level, if the executor has several threads and runs its tasks in order. Every
+ * category is read once, also if the tree has cycles, and every member is returned once.
+ * <pre>
+ * Iterable&lt;CategoryItem&gt; articles = CategoryTree.builder(bot, executor, "Physics") //
+ *     .withMaxDepth(3) //
+ *     .withNamespaces(MediaWiki.NS_MAIN) //
+ *     .build();
+ * </pre>
+ * Members are returned as soon as they were found; their order is not defined. At most
+ * {@link Builder#withBufferSize(int) bufferSize} members are read ahead, so the tasks of a
+ * traversal wait for the consumer; {@link #close()} stops all traversals of a tree, e.g. when the
+ * consumer stops early:
+ * <pre>
+ * try (CategoryTree tree = CategoryTree.builder(bot, executor, "Physics").build()) {
+ *   for (CategoryItem item : Iterables.limit(tree, 10)) {
+ *     ...
+ *   }
+ * }
+ * </pre>
+ */
+@Beta
+public class CategoryTree implements Iterable<CategoryItem>, AutoCloseable {
+
+  private static final Logger log = LoggerFactory.getLogger(CategoryTree.class);
+
+  private final MediaWikiBot bot;
+  private final Executor executor;
+  private final String categoryName;
+  private final int maxDepth;
+  private final ImmutableSet<Integer> namespaces;
+  private final int bufferSize;
+  private final Set<Traversal> traversals = newConcurrentSet();
+
+  private CategoryTree(Builder builder) {
+    this.bot = builder.bot;
+    this.executor = builder.executor;
+    this.categoryName = builder.categoryName;
+    this.maxDepth = builder.maxDepth;
+    this.namespaces = builder.namespaces;
+    this.bufferSize = builder.bufferSize;
+  }
+
+  /**
+   * Starts a traversal, which runs until all members were returned, it failed or it was closed.
+   */
+  @Override
+  public Iterator<CategoryItem> iterator() {
+    Traversal traversal = new Traversal();
+    traversals.add(traversal);
+    traversal.start();
+    return traversal;
+  }
+
+  /**
+   * Stops all running traversals; their iterators return no more members. Categories, which are
+   * read in this moment, are not read to their end.
+   */
+  @Override
+  public void close() {
+    for (Traversal traversal : traversals) {
+      traversal.cancel();
+    }
+  }
+
+  private static <E> Set<E> newConcurrentSet() {
+    return Collections.newSetFromMap(new ConcurrentHashMap<E, Boolean>());
+  }
+
+  /**
+   * @return the namespaces to request; categories are always requested to find subcategories
+   */
+  ImmutableList<Integer> requestedNamespaces() {
+    if (namespaces.isEmpty()) {
+      return ImmutableList.of();
+    }
+    return ImmutableSet.<Integer>builder() //
+        .addAll(namespaces) //
+        .add(MediaWiki.NS_CATEGORY) //
+        .build().asList();
+  }
+
+  /**
+   * @return the title without namespace prefix, which is localized, e.g. "Kategorie:"
+   */
+  static String categoryName(String title) {
+    return title.substring(title.indexOf(':') + 1);
+  }
+
+  private class Traversal extends AbstractIterator<CategoryItem> {
+
+    private final CategoryItem end = new CategoryItem("", -1, -1);
+    private final BlockingQueue<CategoryItem> found = new LinkedBlockingQueue<>(bufferSize);
+    private final Set<String> visitedCategories = newConcurrentSet();
+    private final Set<CategoryItem> visitedItems = newConcurrentSet();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final ImmutableList<Integer> requestedNamespaces = requestedNamespaces();
+    private volatile boolean cancelled = false;
+
+    void start() {
+      visitedCategories.add(categoryName.replace(' ', '_'));
+      submit(categoryName, 0);
+    }
+
+    void cancel() {
+      cancelled = true;
+      traversals.remove(this);
+      // wakes a waiting consumer
+      found.clear();
+      found.offer(end);
+    }
+
+    private boolean isRunning() {
+      return !cancelled && failure.get() == null;
+    }
+
+    private void submit(final String category, final int depth) {
+      if (cancelled) {
+        return;
+      }
+      pending.incrementAndGet();
+      final Thread submitter = Thread.currentThread();
+      final AtomicBoolean submitting = new AtomicBoolean(true);
+      try {
+        executor.execute(new Runnable() {
+          @Override
+          public void run() {
+            try {
+              if (submitting.get() && Thread.currentThread() == submitter) {
+                throw new IllegalArgumentException(
+                    "executor must not run the tasks in the calling thread");
+              }
+              if (isRunning()) {
+                read(category, depth);
+              }
+            } catch (RuntimeException | Error e) {
+              failure.compareAndSet(null, e);
+            } finally {
+              finish();
+            }
+          }
+        });
+      } catch (RuntimeException e) {
+        failure.compareAndSet(null, e);
+        finish();
+      } finally {
+        submitting.set(false);
+      }
+    }
+
+    private void finish() {
+      if (pending.decrementAndGet() == 0 || failure.get() != null) {
+        publish(end);
+      }
+    }
+
+    /**
+     * Waits for free space in the buffer, until the consumer took further members or the
+     * traversal was cancelled.
+     */
+    private void publish(CategoryItem item) {
+      try {
+        while (!cancelled) {
+          if (found.offer(item, 100, TimeUnit.MILLISECONDS)) {
+            return;
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("interrupted while publishing category members", e);
+      }
+    }
+
+    private void read(String category, int depth) {
+      log.debug("reading category {} at depth {}", category, depth);
+      CategoryMembersFull members = new CategoryMembersFull(bot, category, requestedNamespaces);
+      while (isRunning() && members.hasNext()) {
+        CategoryItem item = members.next();
+        boolean isCategory = item.getNamespace() == MediaWiki.NS_CATEGORY;
+        if (visitedItems.add(item) && isWanted(item)) {
+          publish(item);
+        }
+        if (isCategory && depth < maxDepth) {
+          String subcategory = categoryName(item.getTitle()).replace(' ', '_');
+          if (visitedCategories.add(subcategory)) {
+            submit(subcategory, depth + 1);
+          }
+        }
+      }
+    }
+
+    private boolean isWanted(CategoryItem item) {
+      return namespaces.isEmpty() || namespaces.contains(item.getNamespace());
+    }
+
+    @Override
+    protected CategoryItem computeNext() {
+      if (cancelled) {
+        return endOfData();
+      }
+      CategoryItem item;
+      try {
+        item = found.take();
+      } catch (InterruptedException e) {
+        cancel();
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("interrupted while waiting for category members", e);
+      }
+      if (item == end) {
+        cancel();
+        Throwable e = failure.get();
+        if (e != null) {
+          throw Throwables.propagate(e);
+        }
+        return endOfData();
+      }
+      return item;
+    }
+  }
+
+  /**
+   * @param executor     reads the categories; it must not run the tasks in the calling thread,
+   *                     because a task waits, while the buffer of found members is full, e.g.
+   *                     {@link com.google.common.util.concurrent.MoreExecutors#directExecutor()};
+   *                     the iterator fails with an {@link IllegalArgumentException} then
+   * @param categoryName like "Buildings" without prefix "Category:"
+   */
+  public static Builder builder(MediaWikiBot bot, Executor executor, String categoryName) {
+    return new Builder(bot, executor, categoryName);
+  }
+
+  public static class Builder {
+
+    private final MediaWikiBot bot;
+    private final Executor executor;
+    private final String categoryName;
+    private int maxDepth = Integer.MAX_VALUE;
+    private ImmutableSet<Integer> namespaces = ImmutableSet.of();
+    private int bufferSize = 1000;
+
+    Builder(MediaWikiBot bot, Executor executor, String categoryName) {
+      this.bot = Checked.nonNull(bot, "bot");
+      this.executor = Checked.nonNull(executor, "executor");
+      this.categoryName = Checked.nonNull(categoryName, "categoryName");
+    }
+
+    /**
+     * @param maxDepth levels of subcategories to read; 0 reads only the given category; default
+     *                 is unlimited
+     */
+    public Builder withMaxDepth(int maxDepth) {
+      Preconditions.checkArgument(maxDepth >= 0, "maxDepth must be >= 0, but was " + maxDepth);
+      this.maxDepth = maxDepth;
+      return this;
+    }
+
+    /**
+     * @param namespaces of the returned members, on every level; default is all
+     */
+    public Builder withNamespaces(int... namespaces) {
+      this.namespaces = ImmutableSet.copyOf(Ints.asList(namespaces));
+      return this;
+    }
+
+    /**
+     * @param bufferSize members, that are read ahead of the consumer; default is 1000
+     */
+    public Builder withBufferSize(int bufferSize) {
+      Preconditions.checkArgument(bufferSize > 0, "bufferSize must be > 0, but was " + bufferSize);
+      this.bufferSize = bufferSize;
+      return this;
+    }
+
+    public CategoryTree build() {
+      return new CategoryTree(this);
+    }
+  }
+}
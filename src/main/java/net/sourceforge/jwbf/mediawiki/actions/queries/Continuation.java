@@ -0,0 +1,59 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
+import com.google.common.base.Splitter;
+import com.google.common.collect.Maps;
+import net.sourceforge.jwbf.core.actions.RequestBuilder;
+import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+
+/**
+ * Stores the <code>continue</code> object of a JSON response as page info of a {@link BaseQuery}.
+ *
+ * @see <a href="https://www.mediawiki.org/wiki/API:Query#Continuing_queries">Continuing
+ * queries</a>
+ */
+final class Continuation {
+
+  private static final Joiner.MapJoiner JOINER = Joiner.on('&').withKeyValueSeparator("=");
+  private static final Splitter.MapSplitter SPLITTER =
+      Splitter.on('&').withKeyValueSeparator("=");
+
+  private Continuation() {
+    // no instances
+  }
+
+  /**
+   * @return all continuation parameters, url encoded and joined like a query string
+   */
+  static Optional<String> parse(JsonNode response) {
+    Map<String, String> params = Maps.newTreeMap();
+    Iterator<Map.Entry<String, JsonNode>> fields = response.path("continue").fields();
+    while (fields.hasNext()) {
+      Map.Entry<String, JsonNode> field = fields.next();
+      params.put(field.getKey(), MediaWiki.urlEncode(field.getValue().asText()));
+    }
+    if (params.isEmpty()) {
+      return Optional.absent();
+    }
+    return Optional.of(JOINER.join(params));
+  }
+
+  /**
+   * Adds the parameters of the given page info, or starts a new continuation without one.
+   */
+  static void addParams(RequestBuilder requestBuilder, Optional<String> pageInfo) {
+    if (pageInfo.isPresent()) {
+      for (Map.Entry<String, String> param : SPLITTER.split(pageInfo.get()).entrySet()) {
+        requestBuilder.param(param.getKey(), param.getValue());
+      }
+    } else {
+      requestBuilder.param(ApiRequestBuilder.NEW_CONTINUE);
+    }
+  }
+}
@@ -0,0 +1,16 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+/**
+ * Handles the elements of a query.
+ *
+ * @param <T> of the query
+ * @see BaseQuery#processParallel(java.util.concurrent.ForkJoinPool, ElementProcessor)
+ * @see RecentChangesFeed#tail(ElementProcessor)
+ */
+public interface ElementProcessor<T> {
+
+  /**
+   * Is called concurrently by the threads of a pool, if the elements are processed in parallel.
+   */
+  void process(T element);
+}
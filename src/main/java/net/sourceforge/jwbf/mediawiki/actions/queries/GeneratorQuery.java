@@ -0,0 +1,175 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import java.util.Iterator;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.annotations.Beta;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Ints;
+import net.sourceforge.jwbf.core.actions.RequestBuilder;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.actions.editing.GetRevision;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lists pages with a generator and reads their latest revision in the same request, e.g. all
+ * articles of a category with their content. This saves the additional requests of reading the
+ * titles of a {@link CategoryMembersSimple} with {@link MediaWikiBot#readData(String...)}.
+ * <pre>
+ * for (SimpleArticle article : GeneratorQuery.categoryMembers(bot, "Foo", GetRevision.CONTENT)) {
+ *   // ...
+ * }
+ * </pre>
+ * Articles are returned in the order of the API response, which is ordered by page id. Requires
+ * MW1_21 or higher, because the continuation of generators and revisions is only consistent with
+ * the new style of continuing queries.
+ *
+ * @see <a href="https://www.mediawiki.org/wiki/API:Query#Generators">Generators</a>
+ */
+@Beta
+public class GeneratorQuery extends BaseQuery<SimpleArticle> {
+
+  private static final Logger log = LoggerFactory.getLogger(GeneratorQuery.class);
+
+  /**
+   * Default value for the limit-parameter of the generator.
+   */
+  private static final int LIMIT = 50;
+
+  private final String generator;
+  private final String prefix;
+  private final ImmutableMap<String, String> generatorParams;
+  private final int properties;
+
+  GeneratorQuery(MediaWikiBot bot, String generator, String prefix,
+      ImmutableMap<String, String> generatorParams, int properties) {
+    super(bot);
+    this.generator = Checked.nonNull(generator, "generator");
+    this.prefix = Checked.nonNull(prefix, "prefix");
+    this.generatorParams = Checked.nonNull(generatorParams, "generatorParams");
+    this.properties = properties;
+  }
+
+  /**
+   * @param properties of the revisions, e.g. {@link GetRevision#CONTENT}
+   * @param namespace  of the pages, e.g. {@link MediaWiki#NS_MAIN}
+   */
+  public static GeneratorQuery allPages(MediaWikiBot bot, int properties, int namespace) {
+    return new GeneratorQuery(bot, "allpages", "gap", //
+        ImmutableMap.of("gapnamespace", Integer.toString(namespace)), properties);
+  }
+
+  /**
+   * @param categoryName like "Buildings" without prefix "Category:"
+   * @param properties   of the revisions, e.g. {@link GetRevision#CONTENT}
+   * @param namespaces   of the pages; all if empty
+   */
+  public static GeneratorQuery categoryMembers(MediaWikiBot bot, String categoryName,
+      int properties, int... namespaces) {
+    String title = "Category:" + Checked.nonNull(categoryName, "categoryName").replace(" ", "_");
+    return new GeneratorQuery(bot, "categorymembers", "gcm",
+        titleAndNamespaces("gcm", title, namespaces), properties);
+  }
+
+  /**
+   * @param title      of the linked page
+   * @param properties of the revisions, e.g. {@link GetRevision#CONTENT}
+   * @param namespaces of the linking pages; all if empty
+   */
+  public static GeneratorQuery backlinks(MediaWikiBot bot, String title, int properties,
+      int... namespaces) {
+    return new GeneratorQuery(bot, "backlinks", "gbl",
+        titleAndNamespaces("gbl", Checked.nonNull(title, "title"), namespaces), properties);
+  }
+
+  /**
+   * @param templateName like "Template:Foo"
+   * @param properties   of the revisions, e.g. {@link GetRevision#CONTENT}
+   * @param namespaces   of the embedding pages; all if empty
+   */
+  public static GeneratorQuery embeddedIn(MediaWikiBot bot, String templateName, int properties,
+      int... namespaces) {
+    return new GeneratorQuery(bot, "embeddedin", "gei",
+        titleAndNamespaces("gei", Checked.nonNull(templateName, "templateName"), namespaces),
+        properties);
+  }
+
+  private static ImmutableMap<String, String> titleAndNamespaces(String prefix, String title,
+      int... namespaces) {
+    ImmutableMap.Builder<String, String> params = ImmutableMap.builder();
+    params.put(prefix + "title", MediaWiki.urlEncode(title));
+    if (namespaces.length > 0) {
+      params.put(prefix + "namespace",
+          MediaWiki.urlEncodedNamespace(ImmutableList.copyOf(Ints.asList(namespaces))));
+    }
+    return params.build();
+  }
+
+  @Override
+  protected HttpAction prepareNextRequest() {
+    RequestBuilder requestBuilder = new ApiRequestBuilder() //
+        .action("query") //
+        .formatJson(bot().getVersion()) //
+        .param("generator", generator) //
+        .param(prefix + "limit", nextLimit(prefix + "limit", LIMIT)) //
+        .param("prop", "revisions") //
+        .param("rvprop", GetRevision.getDataProperties(properties));
+    for (Map.Entry<String, String> param : generatorParams.entrySet()) {
+      requestBuilder.param(param.getKey(), param.getValue());
+    }
+    Continuation.addParams(requestBuilder, nextPageInfoOpt());
+    log.debug("using query {}", requestBuilder.build());
+    return requestBuilder.buildGet();
+  }
+
+  @Override
+  protected ImmutableList<SimpleArticle> parseElements(String json) {
+    return parseElements(toJsonNode(json));
+  }
+
+  private ImmutableList<SimpleArticle> parseElements(JsonNode response) {
+    ImmutableList.Builder<SimpleArticle> articles = ImmutableList.builder();
+    for (JsonNode page : checkForError(response).path("query").path("pages")) {
+      if (page.has("revisions")) {
+        Optional<SimpleArticle> article = GetRevision.toArticleOpt(page, properties);
+        if (article.isPresent()) {
+          articles.add(article.get());
+        } else {
+          log.warn("skipping missing or invalid page {}", page.path("title").asText());
+        }
+      }
+      // pages without revisions are continued in one of the following responses
+    }
+    return articles.build();
+  }
+
+  /**
+   * @return all continuation parameters, url encoded and joined like a query string
+   */
+  @Override
+  protected Optional<String> parseHasMore(String json) {
+    return Continuation.parse(toJsonNode(json));
+  }
+
+  @Override
+  ImmutableList<SimpleArticle> readPage(String json) {
+    JsonNode response = toJsonNode(json);
+    ImmutableList<SimpleArticle> articles = parseElements(response);
+    setNextPageInfo(Continuation.parse(response).orNull());
+    return articles;
+  }
+
+  @Override
+  protected Iterator<SimpleArticle> copy() {
+    return new GeneratorQuery(bot(), generator, prefix, generatorParams, properties);
+  }
+}
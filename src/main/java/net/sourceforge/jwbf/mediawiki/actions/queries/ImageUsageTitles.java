@@ -25,8 +25,8 @@ import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
-import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.ListItem;
+import net.sourceforge.jwbf.mapper.ListPage;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
@@ -41,7 +41,7 @@ import org.slf4j.LoggerFactory;
  * @author Thomas Stock
  * @since MediaWiki 1.9.0
  */
-public class ImageUsageTitles extends BaseQuery<String> {
+public class ImageUsageTitles extends ListQuery<String> {
 
   private static final Logger log = LoggerFactory.getLogger(ImageUsageTitles.class);
 
@@ -58,7 +58,7 @@ public class ImageUsageTitles extends BaseQuery<String> {
 
   ImageUsageTitles(MediaWikiBot bot, int limit, String imageName,
       ImmutableList<Integer> namespaces) {
-    super(bot);
+    super(bot, "imageusage");
     this.bot = bot;
     this.limit = limit;
     this.imageName = imageName;
@@ -73,26 +73,23 @@ public class ImageUsageTitles extends BaseQuery<String> {
    * gets the information about a follow-up page from a provided api response. If there is one, a
    * new request is added to msgs by calling generateRequest.
    *
-   * @param xml text for parsing
+   * @param page for parsing
    */
   @Override
-  protected Optional<String> parseHasMore(final String xml) {
-    return parseXmlHasMore(xml, "imageusage", "iucontinue", "iucontinue");
+  protected Optional<String> parseHasMore(final ListPage page) {
+    return page.getContinue("iucontinue", "iucontinue");
   }
 
   /**
    * picks the article name from a MediaWiki api response.
    *
-   * @param s text for parsing
+   * @param page for parsing
    */
   @Override
-  protected ImmutableList<String> parseElements(String s) {
+  protected ImmutableList<String> parseElements(ListPage page) {
     ImmutableList.Builder<String> titleCollection = ImmutableList.builder();
-    Optional<XmlElement> childOpt = XmlConverter.getChildOpt(s, "query", "imageusage");
-    if (childOpt.isPresent()) {
-      for (XmlElement element : childOpt.get().getChildren("iu")) {
-        titleCollection.add(element.getAttributeValue("title"));
-      }
+    for (ListItem element : page.getItems()) {
+      titleCollection.add(element.getAttributeValue("title"));
     }
     return titleCollection.build();
   }
@@ -102,10 +99,10 @@ public class ImageUsageTitles extends BaseQuery<String> {
     RequestBuilder requestBuilder = new ApiRequestBuilder() //
         .action("query") //
         .paramNewContinue(bot.getVersion()) //
-        .formatXml() //
+        .formatList(bot.getVersion()) //
         .param("iutitle", MediaWiki.urlEncode(imageName)) //
         .param("list", "imageusage") //
-        .param("iulimit", limit) //
+        .param("iulimit", nextLimit("iulimit", limit)) //
         .param("iunamespace", MediaWiki.urlEncodedNamespace(namespaces));
 
     Optional<String> ilcontinue = nextPageInfoOpt();
@@ -0,0 +1,60 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mapper.ListPage;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+
+/**
+ * A query of a list like <code>list=allpages</code>. Every response is parsed once into a
+ * {@link ListPage}, which is passed to {@link #parseElements(ListPage)} and
+ * {@link #parseHasMore(ListPage)}. JSON and XML responses are accepted, see
+ * {@link net.sourceforge.jwbf.mediawiki.ApiRequestBuilder#formatList}.
+ *
+ * @param <T> of
+ */
+public abstract class ListQuery<T> extends BaseQuery<T> {
+
+  private final String listName;
+
+  /**
+   * @param listName like "allpages"
+   */
+  protected ListQuery(MediaWikiBot bot, String listName) {
+    super(bot);
+    this.listName = Checked.nonNull(listName, "listName");
+  }
+
+  protected final ListPage parseListPage(String response) {
+    return toListPage(response, listName);
+  }
+
+  /**
+   * @return elements that was found in the given page
+   */
+  protected abstract ImmutableList<T> parseElements(ListPage page);
+
+  /**
+   * @return a token, that will be used from {@link #prepareNextRequest()}
+   */
+  protected abstract Optional<String> parseHasMore(ListPage page);
+
+  @Override
+  protected ImmutableList<T> parseElements(String s) {
+    return parseElements(parseListPage(s));
+  }
+
+  @Override
+  protected Optional<String> parseHasMore(String s) {
+    return parseHasMore(parseListPage(s));
+  }
+
+  @Override
+  ImmutableList<T> readPage(String response) {
+    ListPage page = parseListPage(response);
+    ImmutableList<T> elements = parseElements(page);
+    setNextPageInfo(parseHasMore(page).orNull());
+    return elements;
+  }
+}
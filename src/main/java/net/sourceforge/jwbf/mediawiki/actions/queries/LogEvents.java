@@ -20,7 +20,6 @@ package net.sourceforge.jwbf.mediawiki.actions.queries;
 
 import javax.annotation.Nonnull;
 import java.util.Iterator;
-import java.util.List;
 
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
@@ -29,8 +28,8 @@ import com.google.common.collect.ImmutableList;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.internal.NonnullFunction;
-import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.ListItem;
+import net.sourceforge.jwbf.mapper.ListPage;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
@@ -47,7 +46,7 @@ import org.slf4j.LoggerFactory;
  *
  * @author Thomas Stock
  */
-public class LogEvents extends BaseQuery<LogItem> {
+public class LogEvents extends ListQuery<LogItem> {
 
   private static final Logger log = LoggerFactory.getLogger(LogEvents.class);
 
@@ -110,7 +109,7 @@ public class LogEvents extends BaseQuery<LogItem> {
   }
 
   LogEvents(MediaWikiBot bot, int limit, ImmutableList<String> logtypes) {
-    super(bot);
+    super(bot, "logevents");
     this.type = logtypes; // String because logtypes is an extension point
     Preconditions.checkArgument(limit > 0, "limit must be > 0, but was " + limit);
     this.limit = limit;
@@ -121,9 +120,9 @@ public class LogEvents extends BaseQuery<LogItem> {
     RequestBuilder requestBuilder = new ApiRequestBuilder() //
         .action("query") //
         .paramNewContinue(bot().getVersion()) //
-        .formatXml() //
+        .formatList(bot().getVersion()) //
         .param("list", "logevents") //
-        .param("lelimit", limit) //
+        .param("lelimit", nextLimit("lelimit", limit)) //
         ;
 
     if (logtypes.size() > 0) {
@@ -133,28 +132,23 @@ public class LogEvents extends BaseQuery<LogItem> {
   }
 
   @Override
-  protected ImmutableList<LogItem> parseElements(String xml) {
+  protected ImmutableList<LogItem> parseElements(ListPage page) {
 
     ImmutableList.Builder<LogItem> builder = ImmutableList.builder();
-    Optional<XmlElement> child = XmlConverter.getChildOpt(xml, "query", "logevents");
-    if (child.isPresent()) {
-      List<XmlElement> items = child.get().getChildren("item");
-      for (XmlElement item : items) {
-        String title = item.getAttributeValue("title");
-        String typeOf = item.getAttributeValue("type");
-        String user = item.getAttributeValue("user");
-        builder.add(new LogItem(title, typeOf, user));
-
-      }
+    for (ListItem item : page.getItems()) {
+      String title = item.getAttributeValue("title");
+      String typeOf = item.getAttributeValue("type");
+      String user = item.getAttributeValue("user");
+      builder.add(new LogItem(title, typeOf, user));
     }
     return builder.build();
 
   }
 
   @Override
-  protected Optional<String> parseHasMore(final String s) {
+  protected Optional<String> parseHasMore(final ListPage page) {
     if (bot().getVersion().greaterEqThen(MediaWiki.Version.MW1_23)) {
-      return parseXmlHasMore(s, "logevents", "lestart", "lecontinue");
+      return page.getContinue("lecontinue", "lestart");
     } else {
       log.warn("continuation is not supported");
       return Optional.absent();
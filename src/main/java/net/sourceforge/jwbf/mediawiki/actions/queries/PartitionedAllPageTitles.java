@@ -0,0 +1,343 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
+import net.sourceforge.jwbf.core.actions.HttpActionClient;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.actions.util.RedirectFilter;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+
+/**
+ * Lists all page titles like {@link AllPageTitles}, but splits the titles of every namespace into
+ * ranges, which are requested concurrently with <code>apfrom</code> and <code>apto</code>. Every
+ * range has its own continuation and keeps a few pages ahead of the consumer.
+ * <pre>
+ * Iterable&lt;String&gt; titles = PartitionedAllPageTitles.builder(bot, executor) //
+ *     .withBoundaries("D", "H", "M", "S") //
+ *     .unordered() //
+ *     .build();
+ * </pre>
+ * Use {@link HttpActionClient.Builder#withConcurrentRequests(int)} to send the requests of the
+ * ranges in parallel.
+ */
+@Beta
+public class PartitionedAllPageTitles implements Iterable<String> {
+
+  private final MediaWikiBot bot;
+  private final Executor executor;
+  private final ImmutableList<String> boundaries;
+  private final ImmutableList<Integer> namespaces;
+  private final RedirectFilter redirectFilter;
+  private final int pagesAhead;
+  private final boolean ordered;
+  private final Optional<Integer> limit;
+
+  private PartitionedAllPageTitles(Builder builder) {
+    this.bot = builder.bot;
+    this.executor = builder.executor;
+    this.boundaries = builder.boundaries;
+    this.namespaces = builder.namespaces;
+    this.redirectFilter = builder.redirectFilter;
+    this.pagesAhead = builder.pagesAhead;
+    this.ordered = builder.ordered;
+    this.limit = builder.limit;
+  }
+
+  /**
+   * @return one query per namespace and range, in the order of the titles
+   */
+  ImmutableList<Partition> partitions() {
+    ImmutableList.Builder<Partition> partitions = ImmutableList.builder();
+    for (int namespace : namespaces) {
+      String from = null;
+      for (String to : boundaries) {
+        partitions.add(new Partition(from, Optional.of(to), namespace));
+        from = to;
+      }
+      partitions.add(new Partition(from, Optional.<String>absent(), namespace));
+    }
+    return partitions.build();
+  }
+
+  /**
+   * Starts the requests of all ranges.
+   *
+   * @return the titles in the order of namespaces and titles, if ordered; otherwise in the order
+   * they were received
+   */
+  @Override
+  public Iterator<String> iterator() {
+    if (ordered) {
+      return new OrderedTitles(partitions());
+    } else {
+      return new UnorderedTitles(partitions());
+    }
+  }
+
+  class Partition {
+
+    private final AllPageTitles query;
+    private final int namespace;
+    /**
+     * apto is inclusive, but the boundary is the first title of the following range.
+     */
+    private final Optional<String> exclusiveTo;
+    private BaseQuery<String>.PrefetchingIterator titles;
+
+    Partition(String from, Optional<String> to, int namespace) {
+      this.query = new AllPageTitles(bot, from, to.orNull(), null, redirectFilter, namespace);
+      this.namespace = namespace;
+      this.exclusiveTo = to;
+      if (limit.isPresent()) {
+        query.withLimit(limit.get());
+      }
+    }
+
+    void start(Runnable listener) {
+      titles = query.prefetching(pagesAhead, executor, listener);
+    }
+
+    boolean isReady() {
+      return titles.isReady();
+    }
+
+    Optional<String> nextTitle() {
+      while (titles.hasNext()) {
+        String title = titles.next();
+        if (!isUpperBound(title)) {
+          return Optional.of(title);
+        }
+      }
+      return Optional.absent();
+    }
+
+    boolean isUpperBound(String title) {
+      if (exclusiveTo.isPresent()) {
+        if (namespace == MediaWiki.NS_MAIN) {
+          return title.equals(exclusiveTo.get());
+        }
+        // titles of other namespaces have a prefix, apto has none; prefixes contain no colon
+        return title.substring(title.indexOf(':') + 1).equals(exclusiveTo.get());
+      }
+      return false;
+    }
+  }
+
+  private static class OrderedTitles extends AbstractIterator<String> {
+
+    private final Iterator<Partition> partitions;
+    private Optional<Partition> current = Optional.absent();
+
+    OrderedTitles(ImmutableList<Partition> partitions) {
+      for (Partition partition : partitions) {
+        partition.start(BaseQuery.NOOP);
+      }
+      this.partitions = partitions.iterator();
+    }
+
+    @Override
+    protected String computeNext() {
+      while (true) {
+        if (current.isPresent()) {
+          Optional<String> title = current.get().nextTitle();
+          if (title.isPresent()) {
+            return title.get();
+          }
+        }
+        if (!partitions.hasNext()) {
+          return endOfData();
+        }
+        current = Optional.of(partitions.next());
+      }
+    }
+  }
+
+  private static class UnorderedTitles extends AbstractIterator<String> {
+
+    private final Object signal = new Object();
+    private final List<Partition> active;
+    private long version = 0;
+
+    UnorderedTitles(ImmutableList<Partition> partitions) {
+      this.active = Lists.newLinkedList(partitions);
+      Runnable listener = new Runnable() {
+        @Override
+        public void run() {
+          synchronized (signal) {
+            version++;
+            signal.notifyAll();
+          }
+        }
+      };
+      for (Partition partition : partitions) {
+        partition.start(listener);
+      }
+    }
+
+    @Override
+    protected String computeNext() {
+      while (!active.isEmpty()) {
+        long seen;
+        synchronized (signal) {
+          seen = version;
+        }
+        Iterator<Partition> partitions = active.iterator();
+        while (partitions.hasNext()) {
+          Partition partition = partitions.next();
+          if (partition.isReady()) {
+            Optional<String> title = partition.nextTitle();
+            if (title.isPresent()) {
+              return title.get();
+            }
+            partitions.remove();
+          }
+        }
+        if (!active.isEmpty()) {
+          awaitChange(seen);
+        }
+      }
+      return endOfData();
+    }
+
+    private void awaitChange(long seen) {
+      synchronized (signal) {
+        while (version == seen) {
+          try {
+            signal.wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for the next page", e);
+          }
+        }
+      }
+    }
+  }
+
+  public static Builder builder(MediaWikiBot bot, Executor executor) {
+    return new Builder(bot, executor);
+  }
+
+  public static class Builder {
+
+    private final MediaWikiBot bot;
+    private final Executor executor;
+    private ImmutableList<String> boundaries = ImmutableList.of();
+    private ImmutableList<Integer> namespaces = ImmutableList.of(MediaWiki.NS_MAIN);
+    private RedirectFilter redirectFilter = RedirectFilter.nonredirects;
+    private int pagesAhead = 2;
+    private boolean ordered = true;
+    private Optional<Integer> limit = Optional.absent();
+
+    Builder(MediaWikiBot bot, Executor executor) {
+      this.bot = Checked.nonNull(bot, "bot");
+      this.executor = Checked.nonNull(executor, "executor");
+    }
+
+    /**
+     * @param boundaries the first titles of the second, third ... range; e.g. "M" splits the
+     *                   titles of every namespace into the ranges before "M" and from "M"
+     */
+    public Builder withBoundaries(String... boundaries) {
+      ImmutableSortedSet.Builder<String> normalized = ImmutableSortedSet.orderedBy(DB_KEY_ORDER);
+      for (String boundary : boundaries) {
+        normalized.add(toTitle(Checked.nonNull(boundary, "boundary")));
+      }
+      this.boundaries = normalized.build().asList();
+      return this;
+    }
+
+    /**
+     * The order of apfrom and apto: MediaWiki compares the bytes of titles with underscores, so
+     * "Foo!" comes before "Foo bar", although a space is less than "!".
+     */
+    static final Comparator<String> DB_KEY_ORDER = new Comparator<String>() {
+      @Override
+      public int compare(String a, String b) {
+        String left = a.replace(' ', '_');
+        String right = b.replace(' ', '_');
+        int i = 0;
+        int j = 0;
+        // code points have the order of their UTF-8 bytes, chars have not
+        while (i < left.length() && j < right.length()) {
+          int leftCodePoint = left.codePointAt(i);
+          int rightCodePoint = right.codePointAt(j);
+          if (leftCodePoint != rightCodePoint) {
+            return Integer.compare(leftCodePoint, rightCodePoint);
+          }
+          i += Character.charCount(leftCodePoint);
+          j += Character.charCount(rightCodePoint);
+        }
+        return Integer.compare(left.length() - i, right.length() - j);
+      }
+    };
+
+    /**
+     * @return the boundary like the API returns titles, with spaces and an upper case first
+     * letter; otherwise it would not match the first title of its range
+     */
+    static String toTitle(String boundary) {
+      String title = boundary.replace('_', ' ');
+      if (title.isEmpty()) {
+        return title;
+      }
+      return Character.toUpperCase(title.charAt(0)) + title.substring(1);
+    }
+
+    /**
+     * @param namespaces every namespace is split into its own ranges; default is
+     *                   {@link MediaWiki#NS_MAIN}
+     */
+    public Builder withNamespaces(int... namespaces) {
+      Preconditions.checkArgument(namespaces.length > 0, "namespaces must not be empty");
+      this.namespaces = ImmutableList.copyOf(Ints.asList(namespaces));
+      return this;
+    }
+
+    public Builder withRedirectFilter(RedirectFilter redirectFilter) {
+      this.redirectFilter = Checked.nonNull(redirectFilter, "redirectFilter");
+      return this;
+    }
+
+    /**
+     * @param pagesAhead parsed pages every range requests ahead of the consumer; default is 2
+     */
+    public Builder withPagesAhead(int pagesAhead) {
+      Preconditions.checkArgument(pagesAhead > 0, "pagesAhead must be > 0, but was " + pagesAhead);
+      this.pagesAhead = pagesAhead;
+      return this;
+    }
+
+    /**
+     * @see BaseQuery#withLimit(int)
+     */
+    public Builder withLimit(int limit) {
+      Preconditions.checkArgument(limit > 0, "limit must be > 0, but was " + limit);
+      this.limit = Optional.of(limit);
+      return this;
+    }
+
+    /**
+     * Titles are returned as soon as they were received, instead of in the order of the ranges.
+     */
+    public Builder unordered() {
+      this.ordered = false;
+      return this;
+    }
+
+    public PartitionedAllPageTitles build() {
+      return new PartitionedAllPageTitles(this);
+    }
+  }
+}
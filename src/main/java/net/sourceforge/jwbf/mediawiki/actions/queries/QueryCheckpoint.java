@@ -0,0 +1,93 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import javax.annotation.Nullable;
+import java.io.Serializable;
+import java.util.Objects;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Optional;
+import net.sourceforge.jwbf.core.internal.Checked;
+
+/**
+ * The position of a {@link BaseQuery}: the continuation of its current page and the number of
+ * elements already returned from this page. Persist it (e.g. with Java serialization) to resume
+ * a long running query with {@link BaseQuery#resume(QueryCheckpoint)} after a restart.
+ *
+ * @see BaseQuery#checkpoint()
+ */
+public final class QueryCheckpoint implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String queryType;
+  @Nullable
+  private final String request;
+  @Nullable
+  private final String pageInfo;
+  private final int offset;
+
+  QueryCheckpoint(String queryType, Optional<String> request, Optional<String> pageInfo,
+      int offset) {
+    this.queryType = Checked.nonNull(queryType, "queryType");
+    this.request = request.orNull();
+    this.pageInfo = pageInfo.orNull();
+    this.offset = offset;
+  }
+
+  /**
+   * @return the class name of the query
+   */
+  public String getQueryType() {
+    return queryType;
+  }
+
+  /**
+   * @return the request of the current page, which contains all parameters of the query; absent
+   * if the query was not started
+   */
+  public Optional<String> getRequest() {
+    return Optional.fromNullable(request);
+  }
+
+  /**
+   * @return the continuation of the current page; absent for the first page
+   */
+  public Optional<String> getPageInfo() {
+    return Optional.fromNullable(pageInfo);
+  }
+
+  /**
+   * @return the number of elements of the current page, that were already returned
+   */
+  public int getOffset() {
+    return offset;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof QueryCheckpoint) {
+      QueryCheckpoint that = (QueryCheckpoint) obj;
+      return Objects.equals(this.queryType, that.queryType) && //
+          Objects.equals(this.request, that.request) && //
+          Objects.equals(this.pageInfo, that.pageInfo) && //
+          this.offset == that.offset;
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(queryType, request, pageInfo, offset);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this) //
+        .add("queryType", queryType) //
+        .add("request", request) //
+        .add("pageInfo", pageInfo) //
+        .add("offset", offset) //
+        .toString();
+  }
+}
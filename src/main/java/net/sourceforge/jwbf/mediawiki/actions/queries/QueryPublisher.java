@@ -0,0 +1,217 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableList;
+import net.sourceforge.jwbf.core.internal.Checked;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Publishes the elements of a {@link BaseQuery} to one {@link QuerySubscriber}. Pages are requested
+ * with the executor, when the subscriber has requested more elements than are buffered, or to keep
+ * the configured number of pages ahead. The interfaces follow the
+ * <a href="http://www.reactive-streams.org/">Reactive Streams</a> rules, so an adapter to a
+ * <code>org.reactivestreams.Publisher</code> only needs to delegate the calls.
+ * <pre>
+ * query.publisher(executor).subscribe(new QuerySubscriber&lt;String&gt;() {
+ *   // ...
+ * });
+ * </pre>
+ *
+ * @param <T> of the query
+ * @see BaseQuery#publisher(Executor, int)
+ */
+@Beta
+public class QueryPublisher<T> {
+
+  private static final Logger log = LoggerFactory.getLogger(QueryPublisher.class);
+
+  private final BaseQuery<T> query;
+  private final Executor executor;
+  private final int pagesAhead;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  QueryPublisher(BaseQuery<T> query, Executor executor, int pagesAhead) {
+    this.query = query;
+    this.executor = executor;
+    this.pagesAhead = pagesAhead;
+  }
+
+  /**
+   * Only one subscriber is supported, because a query can be read only once; every further
+   * subscriber receives an {@link IllegalStateException}.
+   */
+  public void subscribe(QuerySubscriber<? super T> subscriber) {
+    Checked.nonNull(subscriber, "subscriber");
+    if (subscribed.compareAndSet(false, true)) {
+      QuerySubscriptionImpl subscription = new QuerySubscriptionImpl(subscriber);
+      subscriber.onSubscribe(subscription);
+      subscription.drain();
+    } else {
+      subscriber.onSubscribe(new QuerySubscription() {
+        @Override
+        public void request(long n) {
+          // nothing to do
+        }
+
+        @Override
+        public void cancel() {
+          // nothing to do
+        }
+      });
+      subscriber.onError(new IllegalStateException("only one subscriber is supported"));
+    }
+  }
+
+  private class QuerySubscriptionImpl implements QuerySubscription {
+
+    private final QuerySubscriber<? super T> subscriber;
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final Queue<ImmutableList<T>> pages = new ConcurrentLinkedQueue<>();
+    private final AtomicLong buffered = new AtomicLong();
+    private Iterator<T> current = ImmutableList.<T>of().iterator();
+    private volatile boolean fetching = false;
+    private volatile boolean done;
+    private volatile boolean cancelled = false;
+    private volatile RuntimeException failure;
+    private volatile IllegalArgumentException invalidRequest;
+    private boolean terminated = false;
+
+    private final Runnable fetch = new Runnable() {
+      @Override
+      public void run() {
+        fetchPage();
+      }
+    };
+
+    QuerySubscriptionImpl(QuerySubscriber<? super T> subscriber) {
+      this.subscriber = subscriber;
+      ImmutableList<T> page = query.takeCurrentPage();
+      current = page.iterator();
+      buffered.addAndGet(page.size());
+      done = !query.hasNextPage();
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = new IllegalArgumentException("n must be > 0, but was " + n);
+      } else {
+        long current;
+        long next;
+        do {
+          current = demand.get();
+          next = current + n;
+          if (next < 0) {
+            next = Long.MAX_VALUE;
+          }
+        } while (!demand.compareAndSet(current, next));
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      drain();
+    }
+
+    private void fetchPage() {
+      try {
+        ImmutableList<T> page = query.takeNextPage();
+        boolean more = query.hasNextPage();
+        pages.add(page);
+        buffered.addAndGet(page.size());
+        done = !more;
+      } catch (RuntimeException e) {
+        failure = e;
+      }
+      fetching = false;
+      drain();
+    }
+
+    /**
+     * Signals are only sent by the thread, which increments wip from zero; other threads leave
+     * their work to this one.
+     */
+    void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        if (!terminated) {
+          emit();
+        }
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void emit() {
+      while (!cancelled && invalidRequest == null && demand.get() > 0 && nextAvailable()) {
+        T element = current.next();
+        buffered.decrementAndGet();
+        if (demand.get() != Long.MAX_VALUE) {
+          demand.decrementAndGet();
+        }
+        try {
+          subscriber.onNext(element);
+        } catch (RuntimeException e) {
+          log.warn("subscriber failed; cancel the subscription", e);
+          cancelled = true;
+        }
+      }
+      if (invalidRequest != null) {
+        terminated = true;
+        pages.clear();
+        subscriber.onError(invalidRequest);
+      } else if (cancelled) {
+        terminated = true;
+        pages.clear();
+      } else if (!fetching && !nextAvailable() && failure != null) {
+        terminated = true;
+        subscriber.onError(failure);
+      } else if (!fetching && !nextAvailable() && done) {
+        terminated = true;
+        subscriber.onComplete();
+      } else if (!fetching && !done && failure == null && needsPage()) {
+        fetching = true;
+        try {
+          executor.execute(fetch);
+        } catch (RuntimeException e) {
+          fetching = false;
+          terminated = true;
+          subscriber.onError(e);
+        }
+      }
+    }
+
+    private boolean nextAvailable() {
+      while (!current.hasNext()) {
+        ImmutableList<T> page = pages.poll();
+        if (page == null) {
+          return false;
+        }
+        current = page.iterator();
+      }
+      return true;
+    }
+
+    private boolean needsPage() {
+      int pagesBuffered = pages.size();
+      if (current.hasNext()) {
+        pagesBuffered++;
+      }
+      return demand.get() > buffered.get() || pagesBuffered < pagesAhead;
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import net.sourceforge.jwbf.core.actions.util.ProcessException;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+
+/**
+ * Receives the elements of a {@link QueryPublisher}, with the same rules as a
+ * <a href="http://www.reactive-streams.org/">Reactive Streams</a> subscriber: signals are never
+ * concurrent and {@link #onNext(Object)} is only called for requested elements.
+ *
+ * @param <T> of the query
+ */
+public interface QuerySubscriber<T> {
+
+  /**
+   * Is called once, before all other signals. Nothing is requested, until
+   * {@link QuerySubscription#request(long)} is called.
+   */
+  void onSubscribe(QuerySubscription subscription);
+
+  void onNext(T element);
+
+  /**
+   * Is called once, if a request failed, e.g. with an {@link ApiException} or another
+   * {@link ProcessException}. No signals follow.
+   */
+  void onError(Throwable t);
+
+  /**
+   * Is called once, after the last element of the query. No signals follow.
+   */
+  void onComplete();
+}
@@ -0,0 +1,19 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+/**
+ * The demand of a {@link QuerySubscriber}.
+ */
+public interface QuerySubscription {
+
+  /**
+   * @param n additional elements, which may be signaled; must be &gt; 0, {@link Long#MAX_VALUE}
+   *          requests all elements
+   */
+  void request(long n);
+
+  /**
+   * Stops signaling elements and requesting pages; a page, which is already requested, is
+   * discarded.
+   */
+  void cancel();
+}
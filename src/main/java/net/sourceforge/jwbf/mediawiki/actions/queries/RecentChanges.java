@@ -0,0 +1,131 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import java.util.Date;
+import java.util.Iterator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.annotations.Beta;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import net.sourceforge.jwbf.core.actions.RequestBuilder;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.core.internal.TimeConverter;
+import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import net.sourceforge.jwbf.mediawiki.contentRep.RecentChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Lists recent changes from the oldest to the newest, with <code>rccontinue</code> between the
+ * pages. Unlike {@link RecentchangeTitles} no change is skipped or repeated, if several changes
+ * have the same timestamp. Requires MW1_21 or higher.
+ *
+ * @see RecentChangesFeed
+ */
+@Beta
+public class RecentChanges extends BaseQuery<RecentChange> {
+
+  private static final Logger log = LoggerFactory.getLogger(RecentChanges.class);
+
+  /**
+   * Default value for the rclimit-parameter.
+   */
+  private static final int LIMIT = 50;
+
+  private static final String PROPERTIES = "ids|title|user|timestamp|sizes|comment";
+
+  private final Optional<String> start;
+  private final ImmutableList<Integer> namespaces;
+  private final boolean newestFirst;
+
+  /**
+   * @param start      timestamp of the oldest change, inclusive; e.g. "2014-04-28T16:43:00Z"
+   * @param namespaces of the changes; all if empty
+   */
+  public RecentChanges(MediaWikiBot bot, Optional<String> start,
+      ImmutableList<Integer> namespaces) {
+    this(bot, start, namespaces, false);
+  }
+
+  private RecentChanges(MediaWikiBot bot, Optional<String> start,
+      ImmutableList<Integer> namespaces, boolean newestFirst) {
+    super(bot);
+    this.start = Checked.nonNull(start, "start");
+    this.namespaces = Checked.nonNull(namespaces, "namespaces");
+    this.newestFirst = newestFirst;
+  }
+
+  /**
+   * @return the changes from the newest to the oldest
+   */
+  static RecentChanges newestFirst(MediaWikiBot bot, ImmutableList<Integer> namespaces) {
+    return new RecentChanges(bot, Optional.<String>absent(), namespaces, true);
+  }
+
+  @Override
+  protected HttpAction prepareNextRequest() {
+    RequestBuilder requestBuilder = new ApiRequestBuilder() //
+        .action("query") //
+        .formatJson() //
+        .param("list", "recentchanges") //
+        .param("rcdir", newestFirst ? "older" : "newer") //
+        .param("rcprop", MediaWiki.urlEncode(PROPERTIES)) //
+        .param("rclimit", nextLimit("rclimit", LIMIT));
+    if (!namespaces.isEmpty()) {
+      requestBuilder.param("rcnamespace", MediaWiki.urlEncodedNamespace(namespaces));
+    }
+    if (start.isPresent()) {
+      requestBuilder.param("rcstart", MediaWiki.urlEncode(start.get()));
+    }
+    Continuation.addParams(requestBuilder, nextPageInfoOpt());
+    log.debug("using query {}", requestBuilder.build());
+    return requestBuilder.buildGet();
+  }
+
+  @Override
+  protected ImmutableList<RecentChange> parseElements(String json) {
+    return parseElements(toJsonNode(json));
+  }
+
+  private static ImmutableList<RecentChange> parseElements(JsonNode response) {
+    ImmutableList.Builder<RecentChange> changes = ImmutableList.builder();
+    for (JsonNode rc : checkForError(response).path("query").path("recentchanges")) {
+      changes.add(toRecentChange(rc));
+    }
+    return changes.build();
+  }
+
+  private static RecentChange toRecentChange(JsonNode rc) {
+    String timestamp = rc.path("timestamp").asText();
+    Optional<Date> date = TimeConverter.from(timestamp, TimeConverter.YYYYMMDD_T_HHMMSS_Z);
+    if (!date.isPresent()) {
+      throw new IllegalStateException("invalid timestamp \"" + timestamp + "\"");
+    }
+    return new RecentChange(rc.path("rcid").asLong(), rc.path("type").asText(),
+        rc.path("ns").asInt(), rc.path("title").asText(), rc.path("pageid").asLong(),
+        rc.path("revid").asLong(), rc.path("old_revid").asLong(), rc.path("user").asText(),
+        rc.path("oldlen").asInt(), rc.path("newlen").asInt(), date.get(),
+        rc.path("comment").asText());
+  }
+
+  @Override
+  protected Optional<String> parseHasMore(String json) {
+    return Continuation.parse(toJsonNode(json));
+  }
+
+  @Override
+  ImmutableList<RecentChange> readPage(String json) {
+    JsonNode response = toJsonNode(json);
+    ImmutableList<RecentChange> changes = parseElements(response);
+    setNextPageInfo(Continuation.parse(response).orNull());
+    return changes;
+  }
+
+  @Override
+  protected Iterator<RecentChange> copy() {
+    return new RecentChanges(bot(), start, namespaces, newestFirst);
+  }
+}
@@ -0,0 +1,62 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableSet;
+import net.sourceforge.jwbf.core.internal.Checked;
+
+/**
+ * The position of a {@link RecentChangesFeed}: the timestamp of the newest change and the ids of
+ * all changes with this timestamp, which were already returned. Persist it (e.g. with Java
+ * serialization) to continue the feed after a restart without missing or repeating changes.
+ */
+public final class RecentChangesCursor implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final String timestamp;
+  private final ImmutableSet<Long> rcids;
+
+  /**
+   * @param timestamp like "2014-04-28T16:43:00Z"
+   * @param rcids     of the changes with this timestamp, which are skipped
+   */
+  public RecentChangesCursor(String timestamp, ImmutableSet<Long> rcids) {
+    this.timestamp = Checked.nonNull(timestamp, "timestamp");
+    this.rcids = Checked.nonNull(rcids, "rcids");
+  }
+
+  public String getTimestamp() {
+    return timestamp;
+  }
+
+  public ImmutableSet<Long> getRcids() {
+    return rcids;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof RecentChangesCursor) {
+      RecentChangesCursor that = (RecentChangesCursor) obj;
+      return Objects.equals(this.timestamp, that.timestamp) && //
+          Objects.equals(this.rcids, that.rcids);
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(timestamp, rcids);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this) //
+        .add("timestamp", timestamp) //
+        .add("rcids", rcids) //
+        .toString();
+  }
+}
@@ -0,0 +1,240 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.core.internal.TimeConverter;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import net.sourceforge.jwbf.mediawiki.contentRep.RecentChange;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Follows the recent changes of a wiki, e.g. for a patrol bot. Every poll lists the changes since
+ * the cursor with {@link RecentChanges}; changes with the timestamp of the cursor, which were
+ * already returned, are skipped by their <code>rcid</code>. The interval between two polls is
+ * reset to the minimum after new changes and doubled up to the maximum while the wiki is idle.
+ * <pre>
+ * RecentChangesFeed feed = RecentChangesFeed.builder(bot) //
+ *     .withCursor(storedCursor) //
+ *     .build();
+ * feed.tail(new ElementProcessor&lt;RecentChange&gt;() {
+ *   // ...
+ * });
+ * </pre>
+ * Instances are not thread safe.
+ */
+@Beta
+public class RecentChangesFeed {
+
+  private static final Logger log = LoggerFactory.getLogger(RecentChangesFeed.class);
+
+  /**
+   * Changes, that are read to find the start of a feed without cursor.
+   */
+  private static final int NEWEST_CHANGES = 50;
+
+  private final MediaWikiBot bot;
+  private final ImmutableList<Integer> namespaces;
+  private final long minIntervalMillis;
+  private final long maxIntervalMillis;
+  private Optional<RecentChangesCursor> cursor;
+  private long intervalMillis;
+
+  private RecentChangesFeed(Builder builder) {
+    this.bot = builder.bot;
+    this.namespaces = builder.namespaces;
+    this.minIntervalMillis = builder.minIntervalMillis;
+    this.maxIntervalMillis = builder.maxIntervalMillis;
+    this.cursor = builder.cursor;
+    this.intervalMillis = minIntervalMillis;
+  }
+
+  /**
+   * @return the position after the last returned change; absent before the first poll of a feed
+   * without cursor, or while the wiki has no recent changes
+   */
+  public Optional<RecentChangesCursor> getCursor() {
+    return cursor;
+  }
+
+  /**
+   * @return the time to wait before the next poll
+   */
+  public long getIntervalMillis() {
+    return intervalMillis;
+  }
+
+  /**
+   * Requests all changes after the cursor, oldest first, and moves the cursor behind them. A feed
+   * without cursor starts behind the newest change of the wiki.
+   */
+  public ImmutableList<RecentChange> poll() {
+    final ImmutableList.Builder<RecentChange> changes = ImmutableList.builder();
+    poll(new ElementProcessor<RecentChange>() {
+      @Override
+      public void process(RecentChange change) {
+        changes.add(change);
+      }
+    });
+    return changes.build();
+  }
+
+  /**
+   * Reads the changes after the cursor page by page and passes each one on, after the cursor was
+   * moved behind it.
+   */
+  private void poll(ElementProcessor<? super RecentChange> processor) {
+    if (!cursor.isPresent()) {
+      cursor = newestCursor();
+    }
+    Optional<String> start = Optional.absent();
+    Set<Long> skip = ImmutableSet.of();
+    if (cursor.isPresent()) {
+      start = Optional.of(cursor.get().getTimestamp());
+      skip = cursor.get().getRcids();
+    }
+    int count = 0;
+    for (RecentChange change : newQuery(start)) {
+      if (!skip.contains(change.getRcid())) {
+        moveBehind(change);
+        processor.process(change);
+        count++;
+      }
+    }
+    if (count > 0) {
+      intervalMillis = minIntervalMillis;
+    } else {
+      intervalMillis = Math.min(maxIntervalMillis, intervalMillis * 2);
+    }
+    log.debug("{} new changes, next poll in {} ms", count, intervalMillis);
+  }
+
+  /**
+   * The start is taken from the wiki, so the clock of this machine does not matter.
+   *
+   * @return the position behind the newest change, which skips all changes with its timestamp
+   * among the last {@link #NEWEST_CHANGES}; absent if the wiki has no recent changes
+   */
+  private Optional<RecentChangesCursor> newestCursor() {
+    ImmutableList<RecentChange> newest =
+        RecentChanges.newestFirst(bot, namespaces).getCopyOf(NEWEST_CHANGES);
+    if (newest.isEmpty()) {
+      return Optional.absent();
+    }
+    Date timestamp = newest.get(0).getTimestamp();
+    ImmutableSet.Builder<Long> rcids = ImmutableSet.builder();
+    for (RecentChange change : newest) {
+      if (change.getTimestamp().equals(timestamp)) {
+        rcids.add(change.getRcid());
+      }
+    }
+    return Optional.of(new RecentChangesCursor(TimeConverter.valueOf(timestamp), rcids.build()));
+  }
+
+  private void moveBehind(RecentChange change) {
+    String timestamp = TimeConverter.valueOf(change.getTimestamp());
+    Set<Long> rcids = Sets.newHashSet();
+    if (cursor.isPresent() && cursor.get().getTimestamp().equals(timestamp)) {
+      rcids.addAll(cursor.get().getRcids());
+    }
+    rcids.add(change.getRcid());
+    cursor = Optional.of(new RecentChangesCursor(timestamp, ImmutableSet.copyOf(rcids)));
+  }
+
+  @VisibleForTesting
+  RecentChanges newQuery(Optional<String> start) {
+    return new RecentChanges(bot, start, namespaces);
+  }
+
+  /**
+   * Polls until the current thread is interrupted and passes every new change to the processor,
+   * as soon as its page was read. The cursor is moved behind each change right before it is
+   * passed on, so persisting {@link #getCursor()} in the processor after handling a change
+   * continues with the next one after a restart.
+   */
+  public void tail(ElementProcessor<? super RecentChange> processor) {
+    Checked.nonNull(processor, "processor");
+    while (!Thread.currentThread().isInterrupted()) {
+      poll(processor);
+      try {
+        sleepMillis(intervalMillis);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  @VisibleForTesting
+  void sleepMillis(long millis) throws InterruptedException {
+    TimeUnit.MILLISECONDS.sleep(millis);
+  }
+
+  public static Builder builder(MediaWikiBot bot) {
+    return new Builder(bot);
+  }
+
+  public static class Builder {
+
+    private final MediaWikiBot bot;
+    private ImmutableList<Integer> namespaces = ImmutableList.of();
+    private long minIntervalMillis = TimeUnit.SECONDS.toMillis(2);
+    private long maxIntervalMillis = TimeUnit.SECONDS.toMillis(60);
+    private Optional<RecentChangesCursor> cursor = Optional.absent();
+
+    Builder(MediaWikiBot bot) {
+      this.bot = Checked.nonNull(bot, "bot");
+    }
+
+    /**
+     * @param namespaces of the changes; default is all
+     */
+    public Builder withNamespaces(int... namespaces) {
+      this.namespaces = ImmutableList.copyOf(Ints.asList(namespaces));
+      return this;
+    }
+
+    /**
+     * @param min interval after new changes; default is 2 seconds
+     * @param max interval while the wiki is idle; default is 60 seconds
+     */
+    public Builder withPollInterval(long min, long max, TimeUnit unit) {
+      Preconditions.checkArgument(min > 0, "min must be > 0, but was " + min);
+      Preconditions.checkArgument(max >= min,
+          "max must be >= min (" + min + "), but was " + max);
+      this.minIntervalMillis = unit.toMillis(min);
+      this.maxIntervalMillis = unit.toMillis(max);
+      return this;
+    }
+
+    /**
+     * @param cursor of a previous feed; default is to start behind the newest change
+     */
+    public Builder withCursor(RecentChangesCursor cursor) {
+      this.cursor = Optional.of(Checked.nonNull(cursor, "cursor"));
+      return this;
+    }
+
+    /**
+     * @param start timestamp of the oldest change
+     */
+    public Builder startingAt(Date start) {
+      return withCursor(new RecentChangesCursor(TimeConverter.valueOf(start),
+          ImmutableSet.<Long>of()));
+    }
+
+    public RecentChangesFeed build() {
+      return new RecentChangesFeed(this);
+    }
+  }
+}
@@ -26,8 +26,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
-import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.ListItem;
+import net.sourceforge.jwbf.mapper.ListPage;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
@@ -43,12 +43,12 @@ import org.slf4j.LoggerFactory;
  *
  * @author Thomas Stock
  */
-public class RecentchangeTitles extends BaseQuery<String> {
+public class RecentchangeTitles extends ListQuery<String> {
 
   private static final Logger log = LoggerFactory.getLogger(RecentchangeTitles.class);
 
   /**
-   * value for the bllimit-parameter. *
+   * default value for the rclimit-parameter. *
    */
   private static final int LIMIT = 50;
 
@@ -67,9 +67,9 @@ public class RecentchangeTitles extends BaseQuery<String> {
 
     RequestBuilder requestBuilder = new ApiRequestBuilder() //
         .action("query") //
-        .formatXml() //
+        .formatList(bot().getVersion()) //
         .param("list", "recentchanges") //
-        .param("rclimit", LIMIT) //
+        .param("rclimit", nextLimit("rclimit", LIMIT)) //
         ;
     if (namespace != null) {
       requestBuilder.param("rcnamespace", MediaWiki.urlEncode(MWAction.createNsString(namespace)));
@@ -90,7 +90,7 @@ public class RecentchangeTitles extends BaseQuery<String> {
    *
    */
   public RecentchangeTitles(MediaWikiBot bot, int... ns) {
-    super(bot);
+    super(bot, "recentchanges");
     namespaces = ns;
     this.bot = bot;
 
@@ -106,30 +106,19 @@ public class RecentchangeTitles extends BaseQuery<String> {
   /**
    * picks the article name from a MediaWiki api response.
    *
-   * @param s text for parsing
+   * @param page for parsing
    */
   @Override
-  protected ImmutableList<String> parseElements(String s) {
-    XmlElement root = XmlConverter.getRootElement(s);
+  protected ImmutableList<String> parseElements(ListPage page) {
     List<String> titleCollection = Lists.newArrayList();
-    findContent(root, titleCollection);
+    for (ListItem xmlElement : page.getItems()) {
+      titleCollection.add(MediaWiki.htmlUnescape(xmlElement.getAttributeValue("title")));
+      setNextPageInfo(xmlElement.getAttributeValue("timestamp"));
+    }
     return ImmutableList.copyOf(titleCollection);
 
   }
 
-  private void findContent(final XmlElement root, List<String> titleCollection) {
-
-    for (XmlElement xmlElement : root.getChildren()) {
-      if (xmlElement.getQualifiedName().equalsIgnoreCase("rc")) {
-        titleCollection.add(MediaWiki.htmlUnescape(xmlElement.getAttributeValue("title")));
-        setNextPageInfo(xmlElement.getAttributeValue("timestamp"));
-      } else {
-        findContent(xmlElement, titleCollection);
-      }
-
-    }
-  }
-
   @Override
   protected HttpAction prepareNextRequest() {
     if (hasNextPageInfo()) {
@@ -146,7 +135,7 @@ public class RecentchangeTitles extends BaseQuery<String> {
   }
 
   @Override
-  protected Optional<String> parseHasMore(String s) {
+  protected Optional<String> parseHasMore(ListPage page) {
     return Optional.absent();
   }
 
@@ -97,7 +97,7 @@ public class Search extends BaseQuery<SearchResult> {
   private static final Logger log = LoggerFactory.getLogger(Search.class);
 
   /**
-   * Constant value for the srlimit-parameter.
+   * Default value for the srlimit-parameter.
    */
   private static final int LIMIT = 50;
   private final JsonMapper mapper = new JsonMapper();
@@ -157,7 +157,7 @@ public class Search extends BaseQuery<SearchResult> {
         .param("srwhat", joinParam(what)) //
         .param("srinfo", joinParam(searchInfo)) //
         .param("srprop", joinParam(props)) //
-        .param("srlimit", LIMIT);
+        .param("srlimit", nextLimit("srlimit", LIMIT));
 
     if (hasNextPageInfo()) {
       requestBuilder.param("sroffset", getNextPageInfo());
@@ -26,8 +26,8 @@ import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
-import net.sourceforge.jwbf.mapper.XmlConverter;
-import net.sourceforge.jwbf.mapper.XmlElement;
+import net.sourceforge.jwbf.mapper.ListItem;
+import net.sourceforge.jwbf.mapper.ListPage;
 import net.sourceforge.jwbf.mediawiki.ApiRequestBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.actions.util.MWAction;
@@ -43,7 +43,7 @@ import org.slf4j.LoggerFactory;
  * @author Thomas Stock
  * @since MediaWiki 1.9.0
  */
-public class TemplateUserTitles extends BaseQuery<String> {
+public class TemplateUserTitles extends ListQuery<String> {
 
   private static final Logger log = LoggerFactory.getLogger(TemplateUserTitles.class);
 
@@ -59,7 +59,7 @@ public class TemplateUserTitles extends BaseQuery<String> {
 
   TemplateUserTitles(MediaWikiBot bot, int limit, String templateName,
       ImmutableList<Integer> namespaces) {
-    super(bot);
+    super(bot, "embeddedin");
     this.bot = bot;
     this.templateName = templateName;
     this.namespaces = namespaces;
@@ -70,21 +70,18 @@ public class TemplateUserTitles extends BaseQuery<String> {
    * gets the information about a follow-up page from a provided api response. If there is one, a
    * new request is added to msgs by calling generateRequest.
    *
-   * @param xml text for parsing
+   * @param page for parsing
    */
   @Override
-  protected Optional<String> parseHasMore(final String xml) {
-    return parseXmlHasMore(xml, "embeddedin", "eicontinue", "eicontinue");
+  protected Optional<String> parseHasMore(final ListPage page) {
+    return page.getContinue("eicontinue", "eicontinue");
   }
 
   @Override
-  protected ImmutableList<String> parseElements(String xml) {
-    Optional<XmlElement> children = XmlConverter.getChildOpt(xml, "query", "embeddedin");
+  protected ImmutableList<String> parseElements(ListPage page) {
     ImmutableList.Builder<String> titleCollection = ImmutableList.builder();
-    if (children.isPresent()) {
-      for (XmlElement e : children.get().getChildren("ei")) {
-        titleCollection.add(e.getAttributeValue("title"));
-      }
+    for (ListItem e : page.getItems()) {
+      titleCollection.add(e.getAttributeValue("title"));
     }
 
     return titleCollection.build();
@@ -95,9 +92,9 @@ public class TemplateUserTitles extends BaseQuery<String> {
     RequestBuilder requestBuilder = new ApiRequestBuilder() //
         .action("query") //
         .paramNewContinue(bot.getVersion()) //
-        .formatXml() //
+        .formatList(bot.getVersion()) //
         .param("list", "embeddedin") //
-        .param("eilimit", limit) //
+        .param("eilimit", nextLimit("eilimit", limit)) //
         .param("eititle", MediaWiki.urlEncode(templateName)) //
         ;
 
@@ -1,11 +1,12 @@
 package net.sourceforge.jwbf.mediawiki.actions.util;
 
+import net.sourceforge.jwbf.core.actions.util.HasErrorCode;
 import net.sourceforge.jwbf.core.actions.util.ProcessException;
 
 /**
  * @author Thomas Stock
  */
-public class ApiException extends ProcessException {
+public class ApiException extends ProcessException implements HasErrorCode {
 
   private static final long serialVersionUID = -959971173922381579L;
   private final String code;
@@ -21,6 +22,7 @@ public class ApiException extends ProcessException {
     return value;
   }
 
+  @Override
   public String getCode() {
     return code;
   }
@@ -0,0 +1,201 @@
+package net.sourceforge.jwbf.mediawiki.bots;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import net.sourceforge.jwbf.core.internal.Checked;
+import net.sourceforge.jwbf.mediawiki.actions.editing.GetRevision;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Merges single article reads of many threads into one multi title request. A read waits at most
+ * the given window for further reads; a batch is sent earlier, when it reached its maximum size.
+ * <pre>
+ * BatchingArticleReader reader =
+ *     new BatchingArticleReader(bot, 50, 20, TimeUnit.MILLISECONDS, executor);
+ * // in many threads
+ * Optional&lt;SimpleArticle&gt; article = reader.readDataOpt("Main Page");
+ * </pre>
+ *
+ * @see MediaWikiBot#readDataOpt(String)
+ */
+@Beta
+public class BatchingArticleReader {
+
+  private static final Logger log = LoggerFactory.getLogger(BatchingArticleReader.class);
+
+  private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder() //
+          .setNameFormat("jwbf-article-batch-%d") //
+          .setDaemon(true) //
+          .build());
+
+  private final MediaWikiBot bot;
+  private final int maxBatchSize;
+  private final long windowMillis;
+  private final Executor executor;
+
+  private final Object lock = new Object();
+  private List<PendingRead> pending = Lists.newArrayList();
+
+  /**
+   * @param maxBatchSize of reads; batches with more titles than the API accepts per request (50,
+   * 500 for bots) are read in chunks
+   * @param executor sends the batches; it must not run them in the calling thread, because the
+   * batches of expired windows are passed to it by a timer thread, that is shared by all readers
+   */
+  public BatchingArticleReader(MediaWikiBot bot, int maxBatchSize, long window, TimeUnit unit,
+      Executor executor) {
+    Preconditions.checkArgument(maxBatchSize > 0,
+        "maxBatchSize must be > 0, but was " + maxBatchSize);
+    this.bot = Checked.nonNull(bot, "bot");
+    this.maxBatchSize = maxBatchSize;
+    this.windowMillis = unit.toMillis(window);
+    this.executor = Checked.nonNull(executor, "executor");
+  }
+
+  /**
+   * @return the article or absent, if it is missing; blocks until the batch of this read was sent
+   */
+  public Optional<SimpleArticle> readDataOpt(String name) {
+    try {
+      return Uninterruptibles.getUninterruptibly(readDataOptAsync(name));
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    }
+  }
+
+  public ListenableFuture<Optional<SimpleArticle>> readDataOptAsync(String name) {
+    PendingRead read = new PendingRead(Checked.nonNull(name, "name"));
+    List<PendingRead> full = null;
+    List<PendingRead> started = null;
+    synchronized (lock) {
+      pending.add(read);
+      if (pending.size() >= maxBatchSize) {
+        full = takePending();
+      } else if (pending.size() == 1) {
+        started = pending;
+      }
+    }
+    if (full != null) {
+      send(full);
+    } else if (started != null) {
+      final List<PendingRead> batch = started;
+      TIMER.schedule(new Runnable() {
+        @Override
+        public void run() {
+          flush(batch);
+        }
+      }, windowMillis, TimeUnit.MILLISECONDS);
+    }
+    return read.result;
+  }
+
+  private void flush(List<PendingRead> batch) {
+    synchronized (lock) {
+      if (pending != batch) {
+        // already sent, because it was full or flushed
+        return;
+      }
+      takePending();
+    }
+    send(batch);
+  }
+
+  /**
+   * Sends all pending reads now.
+   */
+  public void flush() {
+    List<PendingRead> reads;
+    synchronized (lock) {
+      reads = takePending();
+    }
+    if (!reads.isEmpty()) {
+      send(reads);
+    }
+  }
+
+  private List<PendingRead> takePending() {
+    List<PendingRead> reads = pending;
+    pending = Lists.newArrayList();
+    return reads;
+  }
+
+  private void send(final List<PendingRead> reads) {
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          read(reads);
+        }
+      });
+    } catch (Throwable e) {
+      // e.g. a rejection of a shut down executor; the timer thread would swallow it
+      log.warn("could not send a batch of {} reads", reads.size(), e);
+      fail(reads, e);
+    }
+  }
+
+  private void read(List<PendingRead> reads) {
+    try {
+      ImmutableSortedSet.Builder<String> names = ImmutableSortedSet.naturalOrder();
+      for (PendingRead read : reads) {
+        names.add(read.name);
+      }
+      ImmutableList<String> titles = names.build().asList();
+      log.debug("reading {} titles for {} reads", titles.size(), reads.size());
+      int chunkSize = titles.size();
+      if (titles.size() > MediaWikiBot.TITLES_PER_REQUEST) {
+        chunkSize = bot.getTitlesPerRequest();
+      }
+      Map<String, Optional<SimpleArticle>> articles = Maps.newHashMap();
+      for (List<String> chunk : Lists.partition(titles, chunkSize)) {
+        GetRevision revisions = bot.getPerformedAction(
+            new GetRevision(ImmutableList.copyOf(chunk), MediaWikiBot.DEFAULT_READ_PROPERTIES));
+        for (String title : chunk) {
+          articles.put(title, revisions.getArticleOpt(title));
+        }
+      }
+      for (PendingRead read : reads) {
+        read.result.set(articles.get(read.name));
+      }
+    } catch (Throwable e) {
+      fail(reads, e);
+    }
+  }
+
+  private static void fail(List<PendingRead> reads, Throwable e) {
+    for (PendingRead read : reads) {
+      read.result.setException(e);
+    }
+    Throwables.propagateIfInstanceOf(e, Error.class);
+  }
+
+  private static class PendingRead {
+    private final String name;
+    private final SettableFuture<Optional<SimpleArticle>> result = SettableFuture.create();
+
+    PendingRead(String name) {
+      this.name = name;
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package net.sourceforge.jwbf.mediawiki.bots;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import net.sourceforge.jwbf.mediawiki.actions.editing.GetRevision;
+
+/**
+ * Reads the articles of a title list in chunks; a fixed number of chunks is requested ahead, but
+ * the articles are returned in the order of the titles.
+ */
+class ChunkedArticleIterator extends AbstractIterator<Optional<SimpleArticle>> {
+
+  private final MediaWikiBot bot;
+  private final Executor executor;
+  private final int properties;
+  private final Iterator<List<String>> chunks;
+  private final Deque<PendingChunk> inFlight = new ArrayDeque<>();
+  private Iterator<Optional<SimpleArticle>> current =
+      ImmutableList.<Optional<SimpleArticle>>of().iterator();
+
+  ChunkedArticleIterator(MediaWikiBot bot, ImmutableList<String> names, int chunkSize,
+      int chunksInFlight, int properties, Executor executor) {
+    this.bot = bot;
+    this.executor = executor;
+    this.properties = properties;
+    this.chunks = Lists.partition(names, chunkSize).iterator();
+    for (int i = 0; i < chunksInFlight && chunks.hasNext(); i++) {
+      requestNextChunk();
+    }
+  }
+
+  private void requestNextChunk() {
+    ImmutableList<String> chunk = ImmutableList.copyOf(chunks.next());
+    ListenableFuture<GetRevision> revisions =
+        bot.getPerformedAction(new GetRevision(chunk, properties), executor);
+    inFlight.add(new PendingChunk(chunk, revisions));
+  }
+
+  @Override
+  protected Optional<SimpleArticle> computeNext() {
+    while (!current.hasNext()) {
+      PendingChunk next = inFlight.poll();
+      if (next == null) {
+        return endOfData();
+      }
+      if (chunks.hasNext()) {
+        requestNextChunk();
+      }
+      current = next.articles();
+    }
+    return current.next();
+  }
+
+  private static class PendingChunk {
+    private final ImmutableList<String> names;
+    private final ListenableFuture<GetRevision> revisions;
+
+    PendingChunk(ImmutableList<String> names, ListenableFuture<GetRevision> revisions) {
+      this.names = names;
+      this.revisions = revisions;
+    }
+
+    Iterator<Optional<SimpleArticle>> articles() {
+      GetRevision result;
+      try {
+        result = Uninterruptibles.getUninterruptibly(revisions);
+      } catch (ExecutionException e) {
+        throw Throwables.propagate(e.getCause());
+      }
+      ImmutableList.Builder<Optional<SimpleArticle>> articles = ImmutableList.builder();
+      for (String name : names) {
+        articles.add(result.getArticleOpt(name));
+      }
+      return articles.build().iterator();
+    }
+  }
+}
@@ -4,10 +4,22 @@ import javax.annotation.Nonnull;
 import javax.inject.Inject;
 
 import java.net.URL;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 
+import com.google.common.annotations.Beta;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
 
 import net.sourceforge.jwbf.core.actions.ContentProcessable;
 import net.sourceforge.jwbf.core.actions.HttpActionClient;
@@ -24,10 +36,12 @@ import net.sourceforge.jwbf.mediawiki.actions.WatchUnwatchAction;
 import net.sourceforge.jwbf.mediawiki.actions.editing.GetRevision;
 import net.sourceforge.jwbf.mediawiki.actions.editing.PostDelete;
 import net.sourceforge.jwbf.mediawiki.actions.editing.PostModifyContent;
+import net.sourceforge.jwbf.mediawiki.actions.editing.TokenCache;
 import net.sourceforge.jwbf.mediawiki.actions.login.PostLogin;
 import net.sourceforge.jwbf.mediawiki.actions.meta.GetUserinfo;
 import net.sourceforge.jwbf.mediawiki.actions.meta.GetVersion;
 import net.sourceforge.jwbf.mediawiki.actions.meta.Siteinfo;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import net.sourceforge.jwbf.mediawiki.contentRep.LoginData;
 
 import org.slf4j.Logger;
@@ -60,19 +74,21 @@ public class MediaWikiBot implements WikiBot {
 
   private static final Logger log = LoggerFactory.getLogger(MediaWikiBot.class);
 
-  private LoginData login = null;
+  private volatile LoginData login = null;
 
-  private Version version = null;
-  private Userinfo ui = null;
+  private volatile Version version = null;
+  private volatile Userinfo ui = null;
 
-  private boolean loginChangeUserInfo = false;
-  private boolean loginChangeVersion = false;
+  private volatile boolean loginChangeUserInfo = false;
+  private volatile boolean loginChangeVersion = false;
 
   @Inject
   private HttpBot bot;
 
   private HttpActionClient client;
 
+  private final TokenCache tokens = new TokenCache(this);
+
   /**
    * These chars are not allowed in article names.
    */
@@ -81,7 +97,10 @@ public class MediaWikiBot implements WikiBot {
     return "[]{}<>|".toCharArray();
   }
 
-  private static final int DEFAULT_READ_PROPERTIES =
+  static final int TITLES_PER_REQUEST = 50;
+  private static final int TITLES_PER_REQUEST_HIGH = 500;
+
+  static final int DEFAULT_READ_PROPERTIES =
       GetRevision.CONTENT | GetRevision.COMMENT | GetRevision.USER | GetRevision.TIMESTAMP |
           GetRevision.IDS |
           GetRevision.FLAGS;
@@ -141,6 +160,7 @@ public class MediaWikiBot implements WikiBot {
   public void login(String username, String passwd, String domain) {
     this.login = getPerformedAction(new PostLogin(username, passwd, domain)).getLoginData();
     loginChangeUserInfo = true;
+    tokens.invalidateAll();
     if (getVersion() == Version.UNKNOWN) {
       loginChangeVersion = true;
     }
@@ -190,9 +210,20 @@ public class MediaWikiBot implements WikiBot {
     return readData(ImmutableList.copyOf(names));
   }
 
+  /**
+   * Lists longer than the API limit of titles per request are read in chunks.
+   */
   // TODO 'data' is not very descriptive
   public ImmutableList<SimpleArticle> readData(ImmutableList<String> names) {
-    return getPerformedAction(new GetRevision(names, DEFAULT_READ_PROPERTIES)).asList();
+    if (names.size() <= TITLES_PER_REQUEST) {
+      return getPerformedAction(new GetRevision(names, DEFAULT_READ_PROPERTIES)).asList();
+    }
+    ImmutableList.Builder<SimpleArticle> articles = ImmutableList.builder();
+    for (List<String> chunk : Lists.partition(names, getTitlesPerRequest())) {
+      GetRevision action = new GetRevision(ImmutableList.copyOf(chunk), DEFAULT_READ_PROPERTIES);
+      articles.addAll(getPerformedAction(action).asList());
+    }
+    return articles.build();
   }
 
   /**
@@ -209,9 +240,61 @@ public class MediaWikiBot implements WikiBot {
     return readDataOpt(ImmutableList.copyOf(names));
   }
 
+  /**
+   * Lists longer than the API limit of titles per request are read in chunks.
+   */
   // TODO 'data' is not very descriptive
   public ImmutableList<Optional<SimpleArticle>> readDataOpt(ImmutableList<String> names) {
-    return getPerformedAction(new GetRevision(names, DEFAULT_READ_PROPERTIES)).asListOpt();
+    if (names.size() <= TITLES_PER_REQUEST) {
+      return getPerformedAction(new GetRevision(names, DEFAULT_READ_PROPERTIES)).asListOpt();
+    }
+    ImmutableList.Builder<Optional<SimpleArticle>> articles = ImmutableList.builder();
+    for (List<String> chunk : Lists.partition(names, getTitlesPerRequest())) {
+      GetRevision action = new GetRevision(ImmutableList.copyOf(chunk), DEFAULT_READ_PROPERTIES);
+      articles.addAll(getPerformedAction(action).asListOpt());
+    }
+    return articles.build();
+  }
+
+  /**
+   * Reads the given articles in chunks of {@link #getTitlesPerRequest()} titles; up to
+   * <code>chunksInFlight</code> chunks are requested concurrently by the given executor, but the
+   * returned articles are in the order of the given names. Only the chunks in flight are kept in
+   * memory, so even very long lists of titles can be read. Use
+   * {@link HttpActionClient.Builder#withConcurrentRequests(int)} to send the requests in parallel.
+   *
+   * @return for every name the article or absent, if it is missing
+   */
+  @Beta
+  public Iterator<Optional<SimpleArticle>> readDataOpt(ImmutableList<String> names,
+      Executor executor, int chunksInFlight) {
+    Preconditions.checkArgument(chunksInFlight > 0,
+        "chunksInFlight must be > 0, but was " + chunksInFlight);
+    int chunkSize = TITLES_PER_REQUEST;
+    if (names.size() > TITLES_PER_REQUEST) {
+      chunkSize = getTitlesPerRequest();
+    }
+    return new ChunkedArticleIterator(this, names, chunkSize, chunksInFlight,
+        DEFAULT_READ_PROPERTIES, Checked.nonNull(executor, "executor"));
+  }
+
+  /**
+   * @return the maximum of titles per request; 500 if the current user has the right
+   * "apihighlimits" (e.g. bots), otherwise 50
+   */
+  public int getTitlesPerRequest() {
+    if (hasApiHighLimits()) {
+      return TITLES_PER_REQUEST_HIGH;
+    }
+    return TITLES_PER_REQUEST;
+  }
+
+  /**
+   * @return true if the current user has the right "apihighlimits" (e.g. bots), which permits
+   * more elements per request
+   */
+  public boolean hasApiHighLimits() {
+    return getUserinfo().getRights().contains("apihighlimits");
   }
 
   // TODO 'data' is not very descriptive
@@ -219,6 +302,25 @@ public class MediaWikiBot implements WikiBot {
     return getPerformedAction(new GetRevision(null, name, DEFAULT_READ_PROPERTIES))
         .getArticleOpt();
   }
+
+  /**
+   * @param executor to read the article with; one of its threads is blocked until the article was
+   *                 read
+   * @see #readDataOpt(String)
+   * @see #getPerformedAction(ContentProcessable, Executor)
+   */
+  @Beta
+  public ListenableFuture<Optional<SimpleArticle>> readDataOpt(String name, Executor executor) {
+    GetRevision action = new GetRevision(null, name, DEFAULT_READ_PROPERTIES);
+    return Futures.transform(getPerformedAction(action, executor),
+        new Function<GetRevision, Optional<SimpleArticle>>() {
+          @Override
+          public Optional<SimpleArticle> apply(GetRevision input) {
+            return input.getArticleOpt();
+          }
+        });
+  }
+
   /**
    * @param name of article in a mediawiki like "Main Page"
    * @return a content representation of requested article, never null
@@ -240,7 +342,12 @@ public class MediaWikiBot implements WikiBot {
     SimpleArticle nonNullArticle = Checked.nonNull(simpleArticle, "content");
     checkTitle(nonNullArticle.getTitle());
 
-    getPerformedAction(new PostModifyContent(this, simpleArticle));
+    performWithToken(new Supplier<PostModifyContent>() {
+      @Override
+      public PostModifyContent get() {
+        return new PostModifyContent(MediaWikiBot.this, simpleArticle, tokens);
+      }
+    });
     if (nonNullArticle.getText().trim().length() < 1) {
       throw new RuntimeException("Content is empty, still written");
     }
@@ -286,15 +393,44 @@ public class MediaWikiBot implements WikiBot {
   /**
    * deletes an article with a reason
    */
-  public void delete(String title, String reason) {
-    getPerformedAction(new PostDelete(getUserinfo(), title, reason));
+  public void delete(final String title, final String reason) {
+    performWithToken(new Supplier<PostDelete>() {
+      @Override
+      public PostDelete get() {
+        return new PostDelete(getUserinfo(), title, reason, tokens);
+      }
+    });
+  }
+
+  /**
+   * Performs the given write action; once more with a new token, if the cached token was
+   * rejected, e.g. because the session has expired.
+   */
+  private <T extends ContentProcessable> T performWithToken(Supplier<T> action) {
+    try {
+      return getPerformedAction(action.get());
+    } catch (ApiException e) {
+      if (TokenCache.isBadToken(e)) {
+        log.debug("retrying with a new token");
+        return getPerformedAction(action.get());
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * @return the tokens of this bot, which are shared by its write actions; e.g. for
+   * {@link net.sourceforge.jwbf.mediawiki.actions.editing.MovePage}
+   */
+  public TokenCache getTokenCache() {
+    return tokens;
   }
 
   /**
    * @deprecated use {@link #getPerformedAction(ContentProcessable)} instead
    */
   @Deprecated
-  synchronized String performAction(ContentProcessable a) {
+  String performAction(ContentProcessable a) {
     if (a.isSelfExecuter()) {
       throw new ActionException(
           "this is a selfexcecuting action, " + "please do not perform this action manually");
@@ -308,6 +444,29 @@ public class MediaWikiBot implements WikiBot {
     return answer;
   }
 
+  /**
+   * Runs {@link #getPerformedAction(ContentProcessable)} as one task of the given executor. The
+   * HTTP requests are still blocking, so the executing thread is blocked until the last message of
+   * the action was processed; the executor needs a thread for every action in flight. Use a client
+   * with concurrent requests to run more than one action at the same time; see
+   * {@link HttpActionClient.Builder#withConcurrentRequests(int)}.
+   *
+   * @return a future that is done when the last message of the action was processed
+   */
+  @Beta
+  public <T extends ContentProcessable> ListenableFuture<T> getPerformedAction(final T answer,
+      Executor executor) {
+    Checked.nonNull(answer, "action");
+    ListenableFutureTask<T> task = ListenableFutureTask.create(new Callable<T>() {
+      @Override
+      public T call() {
+        return getPerformedAction(answer);
+      }
+    });
+    Checked.nonNull(executor, "executor").execute(task);
+    return task;
+  }
+
   public <T extends ContentProcessable> T getPerformedAction(Class<T> clazz) {
     T answer;
     try {
@@ -363,14 +522,23 @@ public class MediaWikiBot implements WikiBot {
       if (!isLoggedIn()) {
           throw new ActionException("Please login first");
       }
-      getPerformedAction(new WatchUnwatchAction(true, titles));
+      performWatch(true, titles);
   }
 
   public void unwatch(String... titles) {
       if (!isLoggedIn()) {
           throw new ActionException("Please login first");
       }
-      getPerformedAction(new WatchUnwatchAction(false, titles));
+      performWatch(false, titles);
+  }
+
+  private void performWatch(final boolean watch, final String... titles) {
+    performWithToken(new Supplier<WatchUnwatchAction>() {
+      @Override
+      public WatchUnwatchAction get() {
+        return new WatchUnwatchAction(tokens, watch, titles);
+      }
+    });
   }
 
 }
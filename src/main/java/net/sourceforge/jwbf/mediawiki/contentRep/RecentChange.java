@@ -0,0 +1,160 @@
+package net.sourceforge.jwbf.mediawiki.contentRep;
+
+import java.util.Date;
+import java.util.Objects;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * An entry of <code>list=recentchanges</code>.
+ */
+public class RecentChange {
+
+  private final long rcid;
+  private final String type;
+  private final int namespace;
+  private final String title;
+  private final long pageid;
+  private final long revid;
+  private final long oldRevid;
+  private final String user;
+  private final int oldLen;
+  private final int newLen;
+  private final Date timestamp;
+  private final String comment;
+
+  public RecentChange(long rcid, String type, int namespace, String title, long pageid,
+      long revid, long oldRevid, String user, int oldLen, int newLen, Date timestamp,
+      String comment) {
+    this.rcid = rcid;
+    this.type = type;
+    this.namespace = namespace;
+    this.title = title;
+    this.pageid = pageid;
+    this.revid = revid;
+    this.oldRevid = oldRevid;
+    this.user = user;
+    this.oldLen = oldLen;
+    this.newLen = newLen;
+    this.timestamp = new Date(timestamp.getTime());
+    this.comment = comment;
+  }
+
+  /**
+   * @return the unique id of this change
+   */
+  public long getRcid() {
+    return rcid;
+  }
+
+  /**
+   * @return e.g. "edit", "new" or "log"
+   */
+  public String getType() {
+    return type;
+  }
+
+  public int getNamespace() {
+    return namespace;
+  }
+
+  public String getTitle() {
+    return title;
+  }
+
+  public long getPageid() {
+    return pageid;
+  }
+
+  /**
+   * @return the revision of this change; 0 for log entries
+   */
+  public long getRevid() {
+    return revid;
+  }
+
+  /**
+   * @return the previous revision of the page; 0 for new pages and log entries
+   */
+  public long getOldRevid() {
+    return oldRevid;
+  }
+
+  public String getUser() {
+    return user;
+  }
+
+  /**
+   * @return the page size before the change
+   */
+  public int getOldLen() {
+    return oldLen;
+  }
+
+  /**
+   * @return the page size after the change
+   */
+  public int getNewLen() {
+    return newLen;
+  }
+
+  /**
+   * @return the difference of the page size in bytes
+   */
+  public int getSizeChange() {
+    return newLen - oldLen;
+  }
+
+  public Date getTimestamp() {
+    return new Date(timestamp.getTime());
+  }
+
+  public String getComment() {
+    return comment;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj instanceof RecentChange) {
+      RecentChange that = (RecentChange) obj;
+      return this.rcid == that.rcid && //
+          Objects.equals(this.type, that.type) && //
+          this.namespace == that.namespace && //
+          Objects.equals(this.title, that.title) && //
+          this.pageid == that.pageid && //
+          this.revid == that.revid && //
+          this.oldRevid == that.oldRevid && //
+          Objects.equals(this.user, that.user) && //
+          this.oldLen == that.oldLen && //
+          this.newLen == that.newLen && //
+          Objects.equals(this.timestamp, that.timestamp) && //
+          Objects.equals(this.comment, that.comment);
+    } else {
+      return false;
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(rcid, type, namespace, title, pageid, revid, oldRevid, user, oldLen,
+        newLen, timestamp, comment);
+  }
+
+  @Override
+  public String toString() {
+    return MoreObjects.toStringHelper(this) //
+        .add("rcid", rcid) //
+        .add("type", type) //
+        .add("namespace", namespace) //
+        .add("title", title) //
+        .add("pageid", pageid) //
+        .add("revid", revid) //
+        .add("oldRevid", oldRevid) //
+        .add("user", user) //
+        .add("oldLen", oldLen) //
+        .add("newLen", newLen) //
+        .add("timestamp", timestamp) //
+        .add("comment", comment) //
+        .toString();
+  }
+}
@@ -11,7 +11,11 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
 
+import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
@@ -23,6 +27,7 @@ import com.google.common.collect.Multimaps;
 import com.google.common.collect.Ordering;
 import com.google.common.io.CharStreams;
 import com.google.common.net.HttpHeaders;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.eclipse.jetty.server.NetworkConnector;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
@@ -52,6 +57,9 @@ public class JettyServer extends Server implements AutoCloseable {
   public void stopSilent() {
     try {
       super.stop();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
     } catch (Exception e) {
       throw new IllegalStateException(e);
     }
@@ -143,7 +151,7 @@ public class JettyServer extends Server implements AutoCloseable {
   }
 
   @Override
-  public void close() throws Exception {
+  public void close() {
     stopSilent();
   }
 
@@ -211,4 +219,123 @@ public class JettyServer extends Server implements AutoCloseable {
 
     };
   }
+
+  /**
+   * @param maxParallel will contain the maximum of requests that were handled at the same time
+   */
+  public static ContextHandler parallelismHandler(final AtomicInteger maxParallel,
+      final long delayMillis) {
+    final AtomicInteger inFlight = new AtomicInteger();
+    return new ContextHandler() {
+      @Override
+      public void doHandle(String arg0, Request request, HttpServletRequest req,
+          HttpServletResponse response) throws IOException, ServletException {
+        int current = inFlight.incrementAndGet();
+        try {
+          synchronized (maxParallel) {
+            maxParallel.set(Math.max(current, maxParallel.get()));
+          }
+          Uninterruptibles.sleepUninterruptibly(delayMillis, TimeUnit.MILLISECONDS);
+          response.getWriter().print(current);
+          response.setStatus(HttpServletResponse.SC_OK);
+          request.setHandled(true);
+        } finally {
+          inFlight.decrementAndGet();
+        }
+      }
+
+    };
+  }
+
+  /**
+   * Like {@link #textHandler(String)}, but gzip encoded if the client accepts it.
+   */
+  public static ContextHandler gzipTextHandler(final String text) {
+    return new ContextHandler() {
+      @Override
+      public void doHandle(String arg0, Request request, HttpServletRequest req,
+          HttpServletResponse response) throws IOException, ServletException {
+        byte[] bytes = text.getBytes(Charsets.UTF_8);
+        String acceptEncoding = req.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        response.setStatus(HttpServletResponse.SC_OK);
+        if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+          response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+          try (GZIPOutputStream out = new GZIPOutputStream(response.getOutputStream())) {
+            out.write(bytes);
+          }
+        } else {
+          response.getOutputStream().write(bytes);
+        }
+        request.setHandled(true);
+      }
+
+    };
+  }
+
+  /**
+   * Rejects the first requests like a lagged MediaWiki and answers the query string of later
+   * requests.
+   */
+  public static ContextHandler maxlagHandler(final int laggedResponses) {
+    final AtomicInteger requests = new AtomicInteger();
+    return new ContextHandler() {
+      @Override
+      public void doHandle(String arg0, Request request, HttpServletRequest req,
+          HttpServletResponse response) throws IOException, ServletException {
+        if (requests.incrementAndGet() <= laggedResponses) {
+          response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+          response.setHeader("MediaWiki-API-Error", "maxlag");
+          response.setHeader("Retry-After", "1");
+          response.setHeader("X-Database-Lag", "7");
+          response.getWriter().print("lagged");
+        } else {
+          response.setStatus(HttpServletResponse.SC_OK);
+          response.getWriter().print(req.getQueryString());
+        }
+        request.setHandled(true);
+      }
+
+    };
+  }
+
+  /**
+   * Answers the first requests with the given status and later requests with the text.
+   */
+  public static ContextHandler failingHandler(final int failures, final int status,
+      final String text) {
+    final AtomicInteger requests = new AtomicInteger();
+    return new ContextHandler() {
+      @Override
+      public void doHandle(String arg0, Request request, HttpServletRequest req,
+          HttpServletResponse response) throws IOException, ServletException {
+        if (requests.incrementAndGet() <= failures) {
+          response.setStatus(status);
+        } else {
+          response.setStatus(HttpServletResponse.SC_OK);
+          response.getWriter().print(text);
+        }
+        request.setHandled(true);
+      }
+
+    };
+  }
+
+  /**
+   * Answers every request after the given delay with its number.
+   */
+  public static ContextHandler countingHandler(final AtomicInteger requests,
+      final long delayMillis) {
+    return new ContextHandler() {
+      @Override
+      public void doHandle(String arg0, Request request, HttpServletRequest req,
+          HttpServletResponse response) throws IOException, ServletException {
+        int current = requests.incrementAndGet();
+        Uninterruptibles.sleepUninterruptibly(delayMillis, TimeUnit.MILLISECONDS);
+        response.getWriter().print(current);
+        response.setStatus(HttpServletResponse.SC_OK);
+        request.setHandled(true);
+      }
+
+    };
+  }
 }
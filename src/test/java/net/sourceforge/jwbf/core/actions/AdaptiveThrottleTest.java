@@ -0,0 +1,143 @@
+package net.sourceforge.jwbf.core.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Test;
+
+public class AdaptiveThrottleTest {
+
+  private final List<Long> sleeps = Lists.newArrayList();
+
+  private AdaptiveThrottle newThrottle(AdaptiveThrottle.Builder builder) {
+    return new AdaptiveThrottle(builder) {
+      @Override
+      long currentTimeMillis() {
+        return 1000;
+      }
+
+      @Override
+      void sleepMillis(long millis) {
+        sleeps.add(millis);
+      }
+    };
+  }
+
+  @Test
+  public void testAddMaxlag() {
+    // GIVEN
+    AdaptiveThrottle testee = AdaptiveThrottle.builder().withMaxlag(3).build();
+    HttpGet get = new HttpGet("http://localhost/api.php?action=query");
+    HttpPost post = new HttpPost("http://localhost/api.php");
+    HttpGet withMaxlag = new HttpGet("http://localhost/api.php?action=query&maxlag=1");
+
+    // WHEN
+    testee.addMaxlag(get);
+    testee.addMaxlag(post);
+    testee.addMaxlag(withMaxlag);
+
+    // THEN
+    assertEquals("http://localhost/api.php?action=query&maxlag=3", get.getURI().toString());
+    assertEquals("http://localhost/api.php?maxlag=3", post.getURI().toString());
+    assertEquals("http://localhost/api.php?action=query&maxlag=1",
+        withMaxlag.getURI().toString());
+  }
+
+  @Test
+  public void testOnResponse_maxlag() {
+    // GIVEN
+    AdaptiveThrottle testee = newThrottle(AdaptiveThrottle.builder().withRates(4, 1, 8));
+    HttpResponse response = response(503);
+    response.setHeader(AdaptiveThrottle.API_ERROR, "maxlag");
+    response.setHeader(AdaptiveThrottle.RETRY_AFTER, "3");
+    response.setHeader(AdaptiveThrottle.DATABASE_LAG, "12");
+
+    // WHEN
+    boolean lagged = testee.onResponse(response, 10);
+    testee.acquire();
+
+    // THEN
+    assertTrue(lagged);
+    assertEquals(2.0, testee.getRate(), 0.001);
+    assertEquals(ImmutableList.of(3000L), sleeps);
+  }
+
+  @Test
+  public void testOnResponse_maxlagWithoutRetryAfter() {
+    // GIVEN
+    AdaptiveThrottle testee = newThrottle(AdaptiveThrottle.builder().withRates(1, 1, 8));
+    HttpResponse response = response(200);
+    response.setHeader(AdaptiveThrottle.API_ERROR, "maxlag");
+
+    // WHEN
+    boolean lagged = testee.onResponse(response, 10);
+    testee.acquire();
+
+    // THEN
+    assertTrue(lagged);
+    assertEquals(1.0, testee.getRate(), 0.001);
+    assertEquals(ImmutableList.of(5000L), sleeps);
+  }
+
+  @Test
+  public void testOnResponse_tooManyRequests() {
+    // GIVEN
+    AdaptiveThrottle testee = newThrottle(AdaptiveThrottle.builder().withRates(4, 1, 8));
+    HttpResponse response = response(429);
+    response.setHeader(AdaptiveThrottle.RETRY_AFTER, "2");
+
+    // WHEN
+    boolean lagged = testee.onResponse(response, 10);
+    testee.acquire();
+
+    // THEN
+    assertFalse(lagged);
+    assertEquals(2.0, testee.getRate(), 0.001);
+    assertEquals(ImmutableList.of(2000L), sleeps);
+  }
+
+  @Test
+  public void testOnResponse_fastAndSlow() {
+    // GIVEN
+    AdaptiveThrottle testee = newThrottle(AdaptiveThrottle.builder() //
+        .withRates(4, 1, 5) //
+        .withRateStep(0.5) //
+        .withSlowResponse(1, java.util.concurrent.TimeUnit.SECONDS));
+
+    // WHEN / THEN
+    assertFalse(testee.onResponse(response(200), 10));
+    assertEquals(4.5, testee.getRate(), 0.001);
+    testee.onResponse(response(200), 10);
+    testee.onResponse(response(200), 10);
+    assertEquals(5.0, testee.getRate(), 0.001);
+    testee.onResponse(response(200), 1001);
+    assertEquals(3.75, testee.getRate(), 0.001);
+    assertEquals(ImmutableList.of(), sleeps);
+  }
+
+  @Test
+  public void testBuilder_invalid() {
+    try {
+      AdaptiveThrottle.builder().withRates(1, 2, 3);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("rates must be 0 < min <= initial <= max, but were 2.0, 1.0, 3.0",
+          e.getMessage());
+    }
+  }
+
+  private static HttpResponse response(int status) {
+    return new BasicHttpResponse(HttpVersion.HTTP_1_1, status, "any");
+  }
+}
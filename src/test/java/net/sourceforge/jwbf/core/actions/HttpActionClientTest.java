@@ -8,6 +8,7 @@ import static com.google.common.net.HttpHeaders.HOST;
 import static com.google.common.net.HttpHeaders.USER_AGENT;
 import static net.sourceforge.jwbf.JettyServer.entry;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
@@ -18,25 +19,39 @@ import static org.mockito.Mockito.when;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Reader;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.google.common.base.Charsets;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
+import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableList.Builder;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Range;
 import com.google.common.io.ByteSource;
+import com.google.common.io.CharStreams;
 import net.sourceforge.jwbf.GAssert;
 import net.sourceforge.jwbf.JWBF;
 import net.sourceforge.jwbf.JettyServer;
 import net.sourceforge.jwbf.Logging;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.core.actions.util.HttpStatusException;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import org.apache.http.HttpEntity;
 import org.apache.http.HttpResponse;
 import org.apache.http.client.HttpClient;
@@ -45,6 +60,8 @@ import org.apache.http.client.methods.HttpUriRequest;
 import org.apache.http.entity.mime.MultipartEntityBuilder;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.junit.Test;
 import org.mockito.Mockito;
 
@@ -819,4 +836,579 @@ public class HttpActionClientTest {
         }
 
     }
+
+    @Test
+    public void testPerformAction_streamProcessor() {
+        JettyServer server = new JettyServer();
+        try {
+            // GIVEN
+            String text = "line one\nline two";
+            server.setHandler(JettyServer.textHandler(text));
+            server.startSilent();
+            testee = HttpActionClient.of(server.getTestUrl());
+            final Get get = new RequestBuilder("/").buildGet();
+            final List<String> streamed = Lists.newArrayList();
+            ContentProcessable action = new StreamAction(get, streamed);
+
+            // WHEN
+            String result = testee.performAction(action);
+
+            // THEN
+            assertEquals("streamed", result);
+            assertEquals(ImmutableList.of(text), streamed);
+        } finally {
+            server.stopSilent();
+        }
+    }
+
+    private static class StreamAction implements ContentProcessable,
+            ReturningStreamProcessor {
+
+        private final Get get;
+        private final List<String> streamed;
+        private boolean hasMore = true;
+
+        StreamAction(Get get, List<String> streamed) {
+            this.get = get;
+            this.streamed = streamed;
+        }
+
+        @Override
+        public String processReturningStream(Reader content, HttpAction action) {
+            try {
+                streamed.add(CharStreams.toString(content));
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return "streamed";
+        }
+
+        @Override
+        public String processReturningText(String s, HttpAction action) {
+            throw new AssertionError("text processing must not be used");
+        }
+
+        @Override
+        public HttpAction getNextMessage() {
+            return get;
+        }
+
+        @Override
+        public boolean hasMoreMessages() {
+            boolean result = hasMore;
+            hasMore = false;
+            return result;
+        }
+
+        @Override
+        @Deprecated
+        public boolean isSelfExecuter() {
+            return false;
+        }
+    }
+
+    @Test
+    public void testContentCompression() throws Exception {
+        // GIVEN
+        String text = Strings.repeat("compressible content\n", 100);
+        HttpActionClient.Builder builder = HttpActionClient.builder();
+
+        // WHEN
+        TransferStatistics statistics = transferStatisticsOf(builder, text);
+
+        // THEN
+        assertEquals(1, statistics.getResponseCount());
+        assertEquals(text.length(), statistics.getContentBytes());
+        assertTrue(statistics.getWireBytes() < text.length() / 5);
+    }
+
+    @Test
+    public void testContentCompression_disabled() throws Exception {
+        // GIVEN
+        String text = Strings.repeat("compressible content\n", 100);
+        HttpActionClient.Builder builder = HttpActionClient.builder() //
+                .withContentCompression(false);
+
+        // WHEN
+        TransferStatistics statistics = transferStatisticsOf(builder, text);
+
+        // THEN
+        assertEquals(1, statistics.getResponseCount());
+        assertEquals(text.length(), statistics.getContentBytes());
+        assertEquals(text.length(), statistics.getWireBytes());
+    }
+
+    @Test
+    public void testTransferStatistics_perClient() throws Exception {
+        try (JettyServer server = new JettyServer().started(JettyServer
+                .textHandler("a"))) {
+            // GIVEN
+            String url = server.getTestUrl();
+            final List<String> transfers = Lists.newArrayList();
+            HttpActionClient.Builder builder = HttpActionClient.builder()
+                    .withUrl(url) //
+                    .withTransferListener(new TransferStatistics.Listener() {
+                        @Override
+                        public void onResponse(String requestUri,
+                                long wireBytes, long contentBytes) {
+                            transfers.add(requestUri + " " + contentBytes);
+                        }
+                    });
+            HttpActionClient first = builder.build();
+            HttpActionClient second = builder.build();
+
+            // WHEN
+            first.get(new Get(url + "?a=1"));
+            first.get(new Get(url + "?a=2"));
+            second.get(new Get(url + "?a=3"));
+
+            // THEN
+            assertEquals(2, first.getTransferStatistics().get().getResponseCount());
+            assertEquals(1, second.getTransferStatistics().get().getResponseCount());
+            assertEquals(ImmutableList.of("/?a=1 1", "/?a=2 1", "/?a=3 1"), transfers);
+        }
+    }
+
+    @Test
+    public void testTransferStatistics_withClient() {
+        // GIVEN / WHEN
+        testee = HttpActionClient.builder() //
+                .withUrl("http://localhost/") //
+                .withClient(HttpClientBuilder.create().build()) //
+                .build();
+
+        // THEN
+        assertFalse(testee.getTransferStatistics().isPresent());
+    }
+
+    private TransferStatistics transferStatisticsOf(HttpActionClient.Builder builder,
+            String text) throws Exception {
+        try (JettyServer server = new JettyServer().started(JettyServer
+                .gzipTextHandler(text))) {
+            String url = server.getTestUrl();
+            testee = builder.withUrl(url).build();
+            String result = testee.get(new Get(url));
+            assertEquals(text, result);
+            return testee.getTransferStatistics().get();
+        }
+    }
+
+    @Test
+    public void testConnectionPool_reuse() throws Exception {
+        try (JettyServer server = new JettyServer().started(JettyServer
+                .textHandler("a"))) {
+            // GIVEN
+            String url = server.getTestUrl();
+            testee = HttpActionClient.builder().withUrl(url) //
+                    .withConnectionPool(10, 5) //
+                    .withKeepAlive(1, TimeUnit.MINUTES) //
+                    .build();
+
+            // WHEN
+            testee.get(new Get(url));
+            testee.get(new Get(url));
+
+            // THEN
+            PoolStats stats = testee.getPoolStats().get();
+            assertEquals(0, stats.getLeased());
+            assertEquals(1, stats.getAvailable());
+            assertEquals(10, stats.getMax());
+        }
+    }
+
+    @Test
+    public void testConnectionPool_idleEviction() throws Exception {
+        try (JettyServer server = new JettyServer().started(JettyServer
+                .textHandler("a"))) {
+            // GIVEN
+            String url = server.getTestUrl();
+            testee = HttpActionClient.builder().withUrl(url) //
+                    .withIdleConnectionEviction(50, TimeUnit.MILLISECONDS) //
+                    .build();
+            testee.get(new Get(url));
+            assertEquals(1, testee.getPoolStats().get().getAvailable());
+
+            // WHEN
+            Thread.sleep(500);
+
+            // THEN
+            assertEquals(0, testee.getPoolStats().get().getAvailable());
+        }
+    }
+
+    @Test
+    public void testConnectionPool_shared() throws Exception {
+        try (JettyServer server = new JettyServer().started(JettyServer
+                .textHandler("a"))) {
+            // GIVEN
+            String url = server.getTestUrl();
+            PoolingHttpClientConnectionManager manager = new PoolingHttpClientConnectionManager();
+            HttpActionClient first = HttpActionClient.builder().withUrl(url) //
+                    .withSharedConnectionManager(manager).build();
+            HttpActionClient second = HttpActionClient.builder().withUrl(url) //
+                    .withSharedConnectionManager(manager).build();
+
+            // WHEN
+            first.get(new Get(url));
+            second.get(new Get(url));
+
+            // THEN
+            assertEquals(1, manager.getTotalStats().getAvailable());
+            assertEquals(1, second.getPoolStats().get().getAvailable());
+        }
+    }
+
+    @Test
+    public void testConnectionPool_withClient() {
+        // GIVEN
+        testee = HttpActionClient.builder().withUrl("http://localhost/") //
+                .withClient(HttpClientBuilder.create().build()).build();
+
+        // WHEN / THEN
+        assertFalse(testee.getPoolStats().isPresent());
+    }
+
+    @Test
+    public void testSocketTimeout() throws Exception {
+        try (JettyServer server = new JettyServer().started(JettyServer
+                .parallelismHandler(new AtomicInteger(), 1000))) {
+            // GIVEN
+            String url = server.getTestUrl();
+            testee = HttpActionClient.builder().withUrl(url) //
+                    .withSocketTimeout(100, TimeUnit.MILLISECONDS) //
+                    .build();
+
+            try {
+                // WHEN
+                testee.get(new Get(url));
+                fail();
+            } catch (IllegalStateException e) {
+                // THEN
+                assertEquals(SocketTimeoutException.class, e.getCause().getClass());
+            }
+        }
+    }
+
+    @Test
+    public void testConnectionOptions_invalid() {
+        HttpActionClient.Builder builder = HttpActionClient.builder();
+        try {
+            builder.withConnectionPool(0, 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("maxConnections must be > 0, but was 0", e.getMessage());
+        }
+        try {
+            builder.withKeepAlive(0, TimeUnit.SECONDS);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("keep alive must be > 0 ms, but was 0", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testAdaptiveThrottle_maxlag() throws Exception {
+        try (JettyServer server = new JettyServer().started(JettyServer
+                .maxlagHandler(2))) {
+            // GIVEN
+            String url = server.getTestUrl();
+            AdaptiveThrottle throttle = AdaptiveThrottle.builder() //
+                    .withRates(4, 1, 8) //
+                    .build();
+            testee = HttpActionClient.builder().withUrl(url) //
+                    .withAdaptiveThrottle(throttle) //
+                    .build();
+
+            // WHEN
+            String result = testee.get(new Get(url + "?action=query"));
+
+            // THEN
+            assertEquals("action=query&maxlag=5\n", result);
+            assertEquals(1.1, throttle.getRate(), 0.001);
+        }
+    }
+
+    @Test
+    public void testAdaptiveThrottle_maxlagExceeded() throws Exception {
+        try (JettyServer server = new JettyServer().started(JettyServer
+                .maxlagHandler(2))) {
+            // GIVEN
+            String url = server.getTestUrl();
+            testee = HttpActionClient.builder().withUrl(url) //
+                    .withAdaptiveThrottle(AdaptiveThrottle.builder() //
+                            .withRates(4, 1, 8) //
+                            .withMaxLagRetries(1) //
+                            .build()) //
+                    .build();
+
+            try {
+                // WHEN
+                testee.get(new Get(url));
+                fail();
+            } catch (IllegalStateException e) {
+                // THEN
+                GAssert.assertStartsWith("server is lagged, gave up after 2 attempts",
+                        e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testRetryPolicy_serverError() throws Exception {
+        try (JettyServer server = new JettyServer().started(JettyServer
+                .failingHandler(2, 503, "ok"))) {
+            // GIVEN
+            String url = server.getTestUrl();
+            RetryPolicy retryPolicy = RetryPolicy.builder() //
+                    .withBackoff(1, 10, TimeUnit.MILLISECONDS).build();
+            testee = HttpActionClient.builder().withUrl(url) //
+                    .withRetryPolicy(retryPolicy).build();
+
+            // WHEN
+            String result = testee.get(new Get(url));
+
+            // THEN
+            assertEquals("ok\n", result);
+            assertEquals(2, retryPolicy.getRetryCount());
+        }
+    }
+
+    @Test
+    public void testRetryPolicy_exhausted() throws Exception {
+        try (JettyServer server = new JettyServer().started(JettyServer
+                .failingHandler(3, 502, "ok"))) {
+            // GIVEN
+            String url = server.getTestUrl();
+            RetryPolicy retryPolicy = RetryPolicy.builder() //
+                    .withMaxRetries(2) //
+                    .withBackoff(1, 10, TimeUnit.MILLISECONDS).build();
+            testee = HttpActionClient.builder().withUrl(url) //
+                    .withRetryPolicy(retryPolicy).build();
+
+            try {
+                // WHEN
+                testee.get(new Get(url));
+                fail();
+            } catch (HttpStatusException e) {
+                // THEN
+                assertEquals(502, e.getStatusCode());
+                assertEquals(2, retryPolicy.getRetryCount());
+                assertEquals(1, retryPolicy.getExhaustedCount());
+            }
+        }
+    }
+
+    @Test
+    public void testRetryPolicy_apiError() throws Exception {
+        try (JettyServer server = new JettyServer().started(JettyServer
+                .textHandler("ok"))) {
+            // GIVEN
+            RetryPolicy retryPolicy = RetryPolicy.builder() //
+                    .withBackoff(1, 10, TimeUnit.MILLISECONDS).build();
+            testee = HttpActionClient.builder().withUrl(server.getTestUrl()) //
+                    .withRetryPolicy(retryPolicy).build();
+            final AtomicInteger calls = new AtomicInteger();
+            ReturningTextProcessor processor = new ReturningTextProcessor() {
+                @Override
+                public String processReturningText(String s, HttpAction action) {
+                    if (calls.incrementAndGet() == 1) {
+                        throw new ApiException("readonly", "The wiki is in read-only mode");
+                    }
+                    return s;
+                }
+            };
+
+            // WHEN
+            String result = testee.processAction(new RequestBuilder("/").buildGet(),
+                    processor);
+
+            // THEN
+            assertEquals("ok\n", result);
+            assertEquals(2, calls.get());
+            assertEquals(1, retryPolicy.getRetryCount());
+        }
+    }
+
+    @Test
+    public void testRetryPolicy_maxlagOwnedByThrottle() throws Exception {
+        try (JettyServer server = new JettyServer().started(JettyServer
+                .textHandler("ok"))) {
+            // GIVEN
+            RetryPolicy retryPolicy = RetryPolicy.builder() //
+                    .withBackoff(1, 10, TimeUnit.MILLISECONDS).build();
+            testee = HttpActionClient.builder().withUrl(server.getTestUrl()) //
+                    .withAdaptiveThrottle(AdaptiveThrottle.builder().build()) //
+                    .withRetryPolicy(retryPolicy).build();
+            ReturningTextProcessor processor = new ReturningTextProcessor() {
+                @Override
+                public String processReturningText(String s, HttpAction action) {
+                    throw new ApiException("maxlag", "Waiting for a database server");
+                }
+            };
+
+            try {
+                // WHEN
+                testee.processAction(new RequestBuilder("/").buildGet(), processor);
+                fail();
+            } catch (ApiException e) {
+                // THEN
+                assertEquals("maxlag", e.getCode());
+                assertEquals(0, retryPolicy.getRetryCount());
+            }
+        }
+    }
+
+    @Test
+    public void testWithoutRetryPolicy() throws Exception {
+        try (JettyServer server = new JettyServer().started(JettyServer
+                .failingHandler(1, 503, "ok"))) {
+            // GIVEN
+            String url = server.getTestUrl();
+            testee = HttpActionClient.of(url);
+
+            try {
+                // WHEN
+                testee.get(new Get(url));
+                fail();
+            } catch (IllegalStateException e) {
+                // THEN
+                GAssert.assertStartsWith("invalid status: HTTP/1.1 503", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testRequestCoalescing() throws Exception {
+        // GIVEN
+        HttpActionClient.Builder builder = HttpActionClient.builder() //
+                .withConcurrentRequests(5) //
+                .withRequestCoalescing();
+
+        // WHEN
+        ImmutableList<String> results = concurrentGetsOf(builder, 5);
+
+        // THEN
+        assertEquals(ImmutableList.of("1\n", "1\n", "1\n", "1\n", "1\n"), results);
+        assertEquals(4, testee.getCoalescedRequestCount());
+    }
+
+    @Test
+    public void testRequestCoalescing_disabled() throws Exception {
+        // GIVEN
+        HttpActionClient.Builder builder = HttpActionClient.builder() //
+                .withConcurrentRequests(5);
+
+        // WHEN
+        ImmutableList<String> results = concurrentGetsOf(builder, 5);
+
+        // THEN
+        assertEquals(5, ImmutableSet.copyOf(results).size());
+        assertEquals(0, testee.getCoalescedRequestCount());
+    }
+
+    private ImmutableList<String> concurrentGetsOf(HttpActionClient.Builder builder,
+            int threads) throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        try (JettyServer server = new JettyServer().started(JettyServer
+                .countingHandler(requests, 500))) {
+            final String url = server.getTestUrl();
+            testee = builder.withUrl(url).build();
+            final CyclicBarrier barrier = new CyclicBarrier(threads);
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<String>> futures = Lists.newArrayList();
+                for (int i = 0; i < threads; i++) {
+                    futures.add(executor.submit(new Callable<String>() {
+                        @Override
+                        public String call() throws Exception {
+                            barrier.await();
+                            return testee.get(new Get(url + "?action=query"));
+                        }
+                    }));
+                }
+                ImmutableList.Builder<String> results = ImmutableList.builder();
+                for (Future<String> future : futures) {
+                    results.add(future.get());
+                }
+                return results.build();
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    @Test
+    public void testPerformAction_serialized() throws Exception {
+        // GIVEN
+        HttpActionClient.Builder builder = newVersionMockBuilder();
+
+        // WHEN
+        int maxParallel = maxParallelRequestsOf(builder, 4);
+
+        // THEN
+        assertEquals(1, maxParallel);
+        assertFalse(builder.build().isConcurrent());
+    }
+
+    @Test
+    public void testPerformAction_concurrent() throws Exception {
+        // GIVEN
+        HttpActionClient.Builder builder = newVersionMockBuilder() //
+                .withConcurrentRequests(3);
+
+        // WHEN
+        int maxParallel = maxParallelRequestsOf(builder, 6);
+
+        // THEN
+        assertEquals(3, maxParallel);
+        assertTrue(builder.build().isConcurrent());
+    }
+
+    @Test
+    public void testConcurrentRequests_invalid() {
+        try {
+            // GIVEN / WHEN
+            HttpActionClient.builder().withConcurrentRequests(0);
+            fail();
+        } catch (IllegalArgumentException e) {
+            // THEN
+            assertEquals("maxRequestsPerHost must be > 0, but was 0",
+                    e.getMessage());
+        }
+    }
+
+    private int maxParallelRequestsOf(HttpActionClient.Builder builder,
+            int threads) throws Exception {
+        AtomicInteger maxParallel = new AtomicInteger();
+        try (JettyServer server = new JettyServer().started(JettyServer
+                .parallelismHandler(maxParallel, 300))) {
+            final HttpActionClient hac = builder.withUrl(server.getTestUrl())
+                    .build();
+            final Get get = RequestBuilder.of("/").buildGet();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                List<Future<ImmutableList<String>>> results = Lists
+                        .newArrayList();
+                for (int i = 0; i < threads; i++) {
+                    results.add(executor
+                            .submit(new Callable<ImmutableList<String>>() {
+                                @Override
+                                public ImmutableList<String> call() {
+                                    return ContentProcessableBuilder //
+                                            .create(hac) //
+                                            .withActions(get) //
+                                            .<String> build() //
+                                            .get();
+                                }
+                            }));
+                }
+                for (Future<ImmutableList<String>> result : results) {
+                    assertEquals(1, result.get().size());
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+        return maxParallel.get();
+    }
 }
@@ -0,0 +1,129 @@
+package net.sourceforge.jwbf.core.actions;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import net.sourceforge.jwbf.core.actions.util.HttpStatusException;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.junit.Test;
+
+public class RetryPolicyTest {
+
+  private final HttpGet get = new HttpGet("http://localhost/api.php");
+  private final HttpPost post = new HttpPost("http://localhost/api.php");
+
+  private final List<Long> sleeps = Lists.newArrayList();
+
+  private RetryPolicy newPolicy(RetryPolicy.Builder builder) {
+    return new RetryPolicy(builder) {
+      @Override
+      void sleepMillis(long millis) {
+        sleeps.add(millis);
+      }
+    };
+  }
+
+  @Test
+  public void testIsRetryable() {
+    // GIVEN
+    RetryPolicy testee = RetryPolicy.builder().build();
+
+    // WHEN / THEN
+    assertTrue(testee.isRetryable(get, new HttpStatusException(503, "a")));
+    assertTrue(testee.isRetryable(get, new HttpStatusException(429, "a")));
+    assertFalse(testee.isRetryable(get, new HttpStatusException(404, "a")));
+    assertFalse(testee.isRetryable(post, new HttpStatusException(503, "a")));
+
+    assertTrue(testee.isRetryable(get, new IllegalStateException(new SocketException("reset"))));
+    assertFalse(testee.isRetryable(post, new IllegalStateException(new SocketException("a"))));
+    assertTrue(testee.isRetryable(post, new IllegalStateException(new ConnectException("a"))));
+    assertFalse(testee.isRetryable(get, new IllegalStateException("a")));
+
+    assertTrue(testee.isRetryable(post, new ApiException("maxlag", "lagged")));
+    assertTrue(testee.isRetryable(get, new ApiException("readonly", "locked")));
+    assertTrue(testee.isRetryable(get, new ApiException("ratelimited", "slow down")));
+    assertFalse(testee.isRetryable(get, new ApiException("badtoken", "a")));
+  }
+
+  @Test
+  public void testIsRetryable_customApiErrors() {
+    // GIVEN
+    RetryPolicy testee = RetryPolicy.builder().withApiErrorCodes("internal_api_error").build();
+
+    // WHEN / THEN
+    assertTrue(testee.isRetryable(get, new ApiException("internal_api_error", "a")));
+    assertFalse(testee.isRetryable(get, new ApiException("maxlag", "a")));
+  }
+
+  @Test
+  public void testIsMaxlag() {
+    // GIVEN / WHEN / THEN
+    assertTrue(RetryPolicy.isMaxlag(new ApiException("maxlag", "lagged")));
+    assertFalse(RetryPolicy.isMaxlag(new ApiException("readonly", "locked")));
+    assertFalse(RetryPolicy.isMaxlag(new IllegalStateException("maxlag")));
+  }
+
+  @Test
+  public void testDelayMillis() {
+    // GIVEN
+    RetryPolicy testee = RetryPolicy.builder() //
+        .withBackoff(100, 1000, TimeUnit.MILLISECONDS).build();
+
+    // WHEN / THEN
+    for (int i = 0; i < 50; i++) {
+      assertTrue(testee.delayMillis(0) <= 100);
+      assertTrue(testee.delayMillis(2) <= 400);
+      assertTrue(testee.delayMillis(4) <= 1000);
+      assertTrue(testee.delayMillis(70) <= 1000);
+      assertTrue(testee.delayMillis(70) >= 0);
+    }
+  }
+
+  @Test
+  public void testRetry() {
+    // GIVEN
+    RetryPolicy testee = newPolicy(RetryPolicy.builder().withMaxRetries(2));
+    HttpStatusException failure = new HttpStatusException(503, "a");
+
+    // WHEN
+    ImmutableList<Boolean> results = ImmutableList.of( //
+        testee.retry(get, failure, 0), //
+        testee.retry(get, failure, 1), //
+        testee.retry(get, failure, 2), //
+        testee.retry(get, new HttpStatusException(400, "a"), 0));
+
+    // THEN
+    assertEquals(ImmutableList.of(true, true, false, false), results);
+    assertEquals(2, sleeps.size());
+    assertEquals(2, testee.getRetryCount());
+    assertEquals(1, testee.getExhaustedCount());
+  }
+
+  @Test
+  public void testBuilder_invalid() {
+    try {
+      RetryPolicy.builder().withBackoff(2, 1, TimeUnit.SECONDS);
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertEquals("delays must be 0 < base <= max, but were 2000 ms, 1000 ms", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testIsRetryable_ioException() {
+    RetryPolicy testee = RetryPolicy.builder().build();
+    assertTrue(testee.isRetryable(get, new IllegalStateException(new IOException())));
+  }
+}
@@ -0,0 +1,97 @@
+package net.sourceforge.jwbf.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+import org.junit.Test;
+
+public class JsonListPageTest {
+
+  private static final String PAGE = "{\"batchcomplete\":false," + //
+      "\"continue\":{\"apcontinue\":\"C\",\"continue\":\"-||\"}," + //
+      "\"query\":{\"allpages\":[" + //
+      "{\"pageid\":1,\"ns\":0,\"title\":\"A & B\",\"redirect\":true,\"new\":false}," + //
+      "{\"pageid\":2,\"ns\":0,\"title\":\"B\",\"params\":{\"title\":\"N\"}}]," + //
+      "\"other\":[{\"title\":\"O\"}]}}";
+
+  @Test
+  public void testParse() {
+    // GIVEN / WHEN
+    JsonListPage result = JsonListPage.parse(PAGE, "allpages");
+
+    // THEN
+    ImmutableList<ListItem> items = result.getItems();
+    assertEquals(2, items.size());
+    assertEquals(new ListItem(ImmutableMap.of("pageid", "1", "ns", "0", "title", "A & B", //
+        "redirect", "")), items.get(0));
+    assertEquals(new ListItem(ImmutableMap.of("pageid", "2", "ns", "0", "title", "B")),
+        items.get(1));
+    assertEquals(Optional.of("C"), result.getContinue("apcontinue", "apfrom"));
+  }
+
+  @Test
+  public void testParse_queryContinue() {
+    // GIVEN
+    String json = "{\"query-continue\":{\"allpages\":{\"apfrom\":\"D\"}}," + //
+        "\"query\":{\"allpages\":[]}}";
+
+    // WHEN
+    JsonListPage result = JsonListPage.parse(json, "allpages");
+
+    // THEN
+    assertEquals(ImmutableList.<ListItem>of(), result.getItems());
+    assertEquals(Optional.of("D"), result.getContinue("apcontinue", "apfrom"));
+  }
+
+  @Test
+  public void testParse_done() {
+    // GIVEN / WHEN
+    JsonListPage result = JsonListPage.parse("{\"batchcomplete\":true}", "allpages");
+
+    // THEN
+    assertEquals(ImmutableList.<ListItem>of(), result.getItems());
+    assertFalse(result.getContinue("apcontinue", "apfrom").isPresent());
+  }
+
+  @Test
+  public void testParse_error() {
+    try {
+      // GIVEN / WHEN
+      JsonListPage.parse("{\"error\":{\"code\":\"badtoken\",\"info\":\"Invalid token\"}}", "a");
+      fail();
+    } catch (ApiException e) {
+      // THEN
+      assertEquals("badtoken", e.getCode());
+      assertEquals("Invalid token", e.getValue());
+    }
+  }
+
+  @Test
+  public void testParse_invalid() {
+    try {
+      // GIVEN / WHEN
+      JsonListPage.parse("{\"query\":", "allpages");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("{\"query\": is no valid json", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testParse_empty() {
+    try {
+      // GIVEN / WHEN
+      JsonListPage.parse("", "allpages");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals(" is no valid json", e.getMessage());
+    }
+  }
+}
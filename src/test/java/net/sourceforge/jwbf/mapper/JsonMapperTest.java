@@ -1,21 +1,26 @@
 package net.sourceforge.jwbf.mapper;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 import javax.annotation.Nonnull;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.HashMap;
 import java.util.Map;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.google.common.base.Charsets;
 import com.google.common.io.Files;
 import com.google.common.io.Resources;
@@ -47,6 +52,34 @@ public class JsonMapperTest {
     assertEquals("Main Page", siteInfoData.getMainpage());
   }
 
+  @Test
+  public void testRead() {
+    // GIVEN
+    String content =
+        getContent(JWBF.urlToFile(Resources.getResource("mediawiki/v1-22/siteinfo.json")));
+
+    // WHEN
+    SiteInfoData siteInfoData = testee.read(new StringReader(content), SiteInfoData.class);
+
+    // THEN
+    assertEquals("Main Page", siteInfoData.getMainpage());
+  }
+
+  @Test
+  public void testReadTree_withoutStreamFunction() {
+    // GIVEN
+    JsonMapper.ToJsonFunction stringOnly = mock(JsonMapper.ToJsonFunction.class);
+    JsonNode node = mock(JsonNode.class);
+    when(stringOnly.toJsonNode("{\"a\":1}")).thenReturn(node);
+    testee = new JsonMapper(stringOnly);
+
+    // WHEN
+    JsonNode result = testee.readTree(new StringReader("{\"a\":1}"));
+
+    // THEN
+    assertSame(node, result);
+  }
+
   @Test
   public void testNullInput() {
     try {
@@ -98,8 +131,10 @@ public class JsonMapperTest {
       @Override
       ObjectMapper newObjectMapper() {
         ObjectMapper mock = mock(ObjectMapper.class);
+        ObjectReader reader = mock(ObjectReader.class);
+        when(mock.reader(Object.class)).thenReturn(reader);
         try {
-          doThrow(IOException.class).when(mock).readValue(isA(String.class), isA(Class.class));
+          doThrow(IOException.class).when(reader).readValue(isA(String.class));
         } catch (IOException e) {
           fail();
         }
@@ -112,6 +147,43 @@ public class JsonMapperTest {
     fail();
   }
 
+  @Test
+  public void testReaderFor_cached() {
+    // GIVEN
+    JsonMapper.JacksonToJsonFunction testee = new JsonMapper.JacksonToJsonFunction();
+
+    // WHEN
+    ObjectReader result = testee.readerFor(SiteInfoData.class);
+
+    // THEN
+    assertSame(result, testee.readerFor(SiteInfoData.class));
+  }
+
+  @Test
+  public void testParser() throws IOException {
+    // GIVEN
+    JsonParser parser = testee.parser(new StringReader("{\"a\":{\"b\":1}}"));
+
+    // WHEN
+    parser.nextToken();
+    parser.nextToken();
+    parser.nextToken();
+    JsonNode result = parser.readValueAsTree();
+
+    // THEN
+    assertEquals(1, result.path("b").asInt());
+    parser.close();
+  }
+
+  @Test
+  public void testToMap() {
+    // GIVEN / WHEN
+    Map<String, Object> result = testee.toMap("{\"a\":1}");
+
+    // THEN
+    assertEquals(1, result.get("a"));
+  }
+
   String getContent(File file) {
     String content;
     try {
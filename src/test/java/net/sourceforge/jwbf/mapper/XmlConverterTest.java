@@ -4,10 +4,20 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.common.io.Resources;
 import net.sourceforge.jwbf.TestHelper;
 import net.sourceforge.jwbf.mediawiki.actions.queries.BaseQueryTest;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import org.junit.Test;
 
 public class XmlConverterTest {
@@ -81,4 +91,106 @@ public class XmlConverterTest {
     // THEN
     assertEquals(Optional.absent(), first);
   }
+
+  @Test
+  public void testGetRootElement_reader() {
+    // GIVEN
+    String xml = TestHelper.textOf(Resources.getResource("mediawiki/any/intoken_fail.xml"));
+
+    // WHEN
+    XmlElement root = XmlConverter.getRootElement(new StringReader(xml));
+
+    // THEN
+    assertEquals("api", root.getQualifiedName());
+    assertEquals("pages", root.getChild("query").getChild("pages").getQualifiedName());
+  }
+
+  @Test
+  public void testGetRootElement_readerWithError() {
+    // GIVEN
+    String xml = "<api><error code=\"badtoken\" info=\"Invalid token\" /></api>";
+
+    try {
+      // WHEN
+      XmlConverter.getRootElement(new StringReader(xml));
+      fail();
+    } catch (ApiException e) {
+      // THEN
+      assertEquals("badtoken", e.getCode());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetRootElementWithError_invalidReader() {
+    // GIVEN
+    String xml = "<api>";
+
+    // WHEN / THEN
+    XmlConverter.getRootElementWithError(new StringReader(xml));
+  }
+
+  @Test
+  public void testGetRootElementWithError_afterInvalid() {
+    // GIVEN
+    assertEquals(Optional.absent(), XmlConverter.getRootElementWithErrorOpt("<api>"));
+
+    // WHEN
+    XmlElement root = XmlConverter.getRootElementWithError("<api><query /></api>");
+
+    // THEN
+    assertEquals("query", root.getChild("query").getQualifiedName());
+  }
+
+  @Test
+  public void testEvaluateXpath() {
+    // GIVEN
+    String xml = "<api><query><random><page title=\"\u00e4 A\" /></random></query></api>";
+    String xpath = "/api/query/random/page/@title";
+
+    // WHEN
+    String result = XmlConverter.evaluateXpath(xml, xpath);
+
+    // THEN
+    assertEquals("\u00e4 A", result);
+    assertEquals("", XmlConverter.evaluateXpath("<api />", xpath));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testEvaluateXpath_invalid() {
+    // GIVEN / WHEN / THEN
+    XmlConverter.evaluateXpath("<api />", "/api/[");
+  }
+
+  @Test
+  public void testEvaluateXpath_concurrent() throws Exception {
+    // GIVEN
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<String>> results = Lists.newArrayList();
+
+    // WHEN
+    try {
+      for (int i = 0; i < 100; i++) {
+        final int n = i;
+        results.add(executor.submit(new Callable<String>() {
+          @Override
+          public String call() {
+            String xml = "<api><a n=\"" + n + "\" /><b n=\"" + -n + "\" /></api>";
+            return XmlConverter.evaluateXpath(xml, "/api/a/@n") + //
+                XmlConverter.evaluateXpath(xml, "/api/b/@n");
+          }
+        }));
+      }
+
+      // THEN
+      ImmutableList.Builder<String> expected = ImmutableList.builder();
+      ImmutableList.Builder<String> actual = ImmutableList.builder();
+      for (int i = 0; i < results.size(); i++) {
+        expected.add(i + "" + -i);
+        actual.add(results.get(i).get());
+      }
+      assertEquals(expected.build(), actual.build());
+    } finally {
+      executor.shutdown();
+    }
+  }
 }
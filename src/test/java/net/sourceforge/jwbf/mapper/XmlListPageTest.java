@@ -0,0 +1,98 @@
+package net.sourceforge.jwbf.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.StringReader;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+import org.junit.Test;
+
+public class XmlListPageTest {
+
+  private static final String PAGE = "<?xml version=\"1.0\"?><api>" + //
+      "<query-continue><allpages apfrom=\"C\" /><other apfrom=\"X\" /></query-continue>" + //
+      "<query><allpages>" + //
+      "<p pageid=\"1\" ns=\"0\" title=\"A &amp; B\" />" + //
+      "<p pageid=\"2\" ns=\"0\" title=\"B\"><nested title=\"N\" /></p>" + //
+      "</allpages><other><p title=\"O\" /></other></query></api>";
+
+  @Test
+  public void testParse() {
+    // GIVEN / WHEN
+    XmlListPage result = XmlListPage.parse(PAGE, "allpages");
+
+    // THEN
+    ImmutableList<ListItem> items = result.getItems();
+    assertEquals(2, items.size());
+    assertEquals("A & B", items.get(0).getAttributeValue("title"));
+    assertEquals(new ListItem(ImmutableMap.of("pageid", "2", "ns", "0", "title", "B")),
+        items.get(1));
+    assertEquals(Optional.of("C"), result.getContinue("apcontinue", "apfrom"));
+  }
+
+  @Test
+  public void testParse_newContinue() {
+    // GIVEN
+    String xml = "<api><continue apcontinue=\"D\" continue=\"-||\" />" + //
+        "<query-continue><allpages apfrom=\"C\" /></query-continue>" + //
+        "<query><allpages /></query></api>";
+
+    // WHEN
+    XmlListPage result = XmlListPage.parse(new StringReader(xml), "allpages");
+
+    // THEN
+    assertEquals(ImmutableList.<XmlElement>of(), result.getItems());
+    assertEquals(Optional.of("D"), result.getContinue("apcontinue", "apfrom"));
+  }
+
+  @Test
+  public void testParse_done() {
+    // GIVEN / WHEN
+    XmlListPage result = XmlListPage.parse("<api><query><allpages /></query></api>", "allpages");
+
+    // THEN
+    assertFalse(result.getContinue("apcontinue", "apfrom").isPresent());
+  }
+
+  @Test
+  public void testParse_error() {
+    try {
+      // GIVEN / WHEN
+      XmlListPage.parse("<api><error code=\"badtoken\" info=\"Invalid token\" /></api>", "a");
+      fail();
+    } catch (ApiException e) {
+      // THEN
+      assertEquals("badtoken", e.getCode());
+      assertEquals("Invalid token", e.getValue());
+    }
+  }
+
+  @Test
+  public void testParse_invalid() {
+    try {
+      // GIVEN / WHEN
+      XmlListPage.parse("<api><query>", "allpages");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("<api><query> is no valid xml", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testParse_empty() {
+    try {
+      // GIVEN / WHEN
+      XmlListPage.parse("", "allpages");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals(" is no valid xml", e.getMessage());
+    }
+  }
+}
@@ -1,7 +1,17 @@
 package net.sourceforge.jwbf.mediawiki.actions.editing;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import net.sourceforge.jwbf.core.actions.Get;
+import net.sourceforge.jwbf.core.actions.Post;
 import org.junit.Test;
 
 public class GetRevisionTest {
@@ -17,4 +27,118 @@ public class GetRevisionTest {
         GetRevision.getDataProperties(GetRevision.IDS | GetRevision.USER | GetRevision.IDS));
 
   }
+
+  @Test
+  public void testGetArticleOpt_normalized() {
+    // GIVEN
+    GetRevision testee = new GetRevision(ImmutableList.of("a_b", "C", "<"), GetRevision.CONTENT);
+    String json = "{\"query\":{" + //
+        "\"normalized\":[{\"from\":\"a_b\",\"to\":\"A b\"}]," + //
+        "\"pages\":{" + //
+        "\"-1\":{\"ns\":0,\"title\":\"C\",\"missing\":\"\"}," + //
+        "\"-2\":{\"title\":\"<\",\"invalid\":\"\"}," + //
+        "\"7\":{\"pageid\":7,\"ns\":0,\"title\":\"A b\"," + //
+        "\"revisions\":[{\"*\":\"text\"}]}}}}";
+
+    // WHEN
+    testee.processReturningText(json, testee.getNextMessage());
+
+    // THEN
+    assertEquals("text", testee.getArticleOpt("a_b").get().getText());
+    assertEquals("text", testee.getArticleOpt("A b").get().getText());
+    assertEquals(Optional.absent(), testee.getArticleOpt("C"));
+    assertEquals(Optional.absent(), testee.getArticleOpt("<"));
+    assertEquals(Optional.absent(), testee.getArticleOpt("unknown"));
+  }
+
+  @Test
+  public void testProcessReturningStream() {
+    // GIVEN
+    GetRevision testee = new GetRevision(ImmutableList.of("a_b", "C"), GetRevision.CONTENT);
+    String json = "{\"batchcomplete\":\"\",\"warnings\":{\"main\":{\"*\":\"w\"}}," + //
+        "\"query\":{\"pages\":{" + //
+        "\"-1\":{\"ns\":0,\"title\":\"C\",\"missing\":\"\"}," + //
+        "\"7\":{\"pageid\":7,\"ns\":0,\"title\":\"A b\"," + //
+        "\"revisions\":[{\"*\":\"text\"}]}}," + //
+        "\"normalized\":[{\"from\":\"a_b\",\"to\":\"A b\"}]}}";
+
+    // WHEN
+    testee.processReturningStream(new StringReader(json), testee.getNextMessage());
+
+    // THEN
+    assertEquals(2, testee.asList().size());
+    assertEquals("text", testee.getArticleOpt("a_b").get().getText());
+    assertEquals(7, testee.getArticleOpt("A b").get().getPageId());
+    assertEquals(Optional.absent(), testee.getArticleOpt("C"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testProcessReturningStream_invalid() {
+    // GIVEN
+    GetRevision testee = new GetRevision(ImmutableList.of("A"), GetRevision.CONTENT);
+
+    // WHEN / THEN
+    testee.processReturningStream(new StringReader("{\"query\":{\"pages\":{"),
+        testee.getNextMessage());
+  }
+
+  @Test
+  public void testProcessReturningStream_interruptedAndRetried() {
+    // GIVEN
+    GetRevision testee = new GetRevision(ImmutableList.of("A", "B"), GetRevision.CONTENT);
+    String json = "{\"query\":{\"pages\":{" + //
+        "\"1\":{\"pageid\":1,\"ns\":0,\"title\":\"A\",\"revisions\":[{\"*\":\"a\"}]}," + //
+        "\"2\":{\"pageid\":2,\"ns\":0,\"title\":\"B\",\"revisions\":[{\"*\":\"b\"}]}}}}";
+    final String head = json.substring(0, json.indexOf("\"2\""));
+    Reader interrupted = new Reader() {
+      private boolean read;
+
+      @Override
+      public int read(char[] buffer, int offset, int length) throws IOException {
+        if (read) {
+          throw new IOException("Connection reset");
+        }
+        read = true;
+        head.getChars(0, head.length(), buffer, offset);
+        return head.length();
+      }
+
+      @Override
+      public void close() {
+        // nothing to close
+      }
+    };
+
+    // WHEN
+    try {
+      testee.processReturningStream(interrupted, testee.getNextMessage());
+      fail();
+    } catch (IllegalStateException e) {
+      // THEN
+      assertTrue(e.getCause() instanceof IOException);
+    }
+    testee.processReturningStream(new StringReader(json), testee.getNextMessage());
+    assertEquals(2, testee.asList().size());
+    assertEquals("b", testee.getArticleOpt("B").get().getText());
+  }
+
+  @Test
+  public void testLongTitleListIsPosted() {
+    // GIVEN
+    ImmutableList.Builder<String> names = ImmutableList.builder();
+    for (int i = 0; i < 500; i++) {
+      names.add("A long article title " + i);
+    }
+
+    // WHEN
+    GetRevision shortList = new GetRevision(ImmutableList.of("A", "B"), GetRevision.CONTENT);
+    GetRevision longList = new GetRevision(names.build(), GetRevision.CONTENT);
+
+    // THEN
+    assertTrue(shortList.getNextMessage() instanceof Get);
+    assertTrue(longList.getNextMessage() instanceof Post);
+    Post post = (Post) longList.getNextMessage();
+    assertTrue(post.getParams().get("titles").toString().startsWith("A long article title 0|"));
+    assertTrue(post.getRequest().length() < GetRevision.MAX_TITLES_URL_LENGTH);
+  }
 }
@@ -5,21 +5,29 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import net.sourceforge.jwbf.core.actions.ContentProcessable;
 import net.sourceforge.jwbf.core.actions.ParamTuple;
 import net.sourceforge.jwbf.core.actions.Post;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
 import net.sourceforge.jwbf.core.contentRep.Userinfo;
 import net.sourceforge.jwbf.mediawiki.MediaWiki.Version;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import net.sourceforge.jwbf.mediawiki.actions.util.VersionException;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
@@ -163,4 +171,56 @@ public class PostModifyContentTest {
             assertEquals(editFailMsg, e.getMessage());
         }
     }
+
+    @Test
+    public void testGetNextMessage_cachedToken() {
+        // GIVEN
+        when(userinfo.getRights()).thenReturn(rights);
+        TokenCache tokens = new TokenCache(newTokenBot(new AtomicInteger()));
+        testee = new PostModifyContent(bot, simpleArticle, tokens);
+
+        // WHEN
+        Post message = (Post) testee.getNextMessage();
+
+        // THEN
+        assertEquals("{summary=, text=, notminor=, token=t1}", message.getParams().toString());
+        assertFalse(testee.hasMoreMessages());
+    }
+
+    @Test
+    public void testProcessReturningText_badToken() {
+        // GIVEN
+        when(userinfo.getRights()).thenReturn(rights);
+        AtomicInteger tokenRequests = new AtomicInteger();
+        TokenCache tokens = new TokenCache(newTokenBot(tokenRequests));
+        testee = new PostModifyContent(bot, simpleArticle, tokens);
+        HttpAction message = testee.getNextMessage();
+
+        try {
+            // WHEN
+            testee.processReturningText(
+                    "<api><error code=\"badtoken\" info=\"Invalid token\" /></api>", message);
+            fail();
+        } catch (ApiException e) {
+            // THEN
+            assertEquals("badtoken", e.getCode());
+            assertEquals("t2", tokens.get(GetApiToken.Intoken.EDIT, "Test").value());
+            assertEquals(2, tokenRequests.get());
+        }
+    }
+
+    private static MediaWikiBot newTokenBot(final AtomicInteger tokenRequests) {
+        MediaWikiBot tokenBot = mock(MediaWikiBot.class);
+        doAnswer(new Answer<ContentProcessable>() {
+            @Override
+            public ContentProcessable answer(InvocationOnMock invocation) {
+                ContentProcessable action = (ContentProcessable) invocation.getArguments()[0];
+                HttpAction msg = action.getNextMessage();
+                action.processReturningText("{\"query\":{\"pages\":{\"-1\":{\"edittoken\":\"t" +
+                        tokenRequests.incrementAndGet() + "\"}}}}", msg);
+                return action;
+            }
+        }).when(tokenBot).getPerformedAction(Mockito.any(ContentProcessable.class));
+        return tokenBot;
+    }
 }
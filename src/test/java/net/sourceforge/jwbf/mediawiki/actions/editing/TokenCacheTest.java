@@ -0,0 +1,174 @@
+package net.sourceforge.jwbf.mediawiki.actions.editing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.collect.Lists;
+import net.sourceforge.jwbf.core.actions.ContentProcessable;
+import net.sourceforge.jwbf.core.actions.ParamTuple;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.mediawiki.actions.editing.GetApiToken.Intoken;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class TokenCacheTest {
+
+  private final AtomicInteger requests = new AtomicInteger();
+  private TokenCache testee;
+
+  @Before
+  public void before() {
+    testee = new TokenCache(newBot(new CountDownLatch(0)));
+  }
+
+  /**
+   * @return a bot, which answers every token request with a new token: t1, t2 ...; after the
+   * given latch was released
+   */
+  private MediaWikiBot newBot(final CountDownLatch latch) {
+    MediaWikiBot mock = mock(MediaWikiBot.class);
+    doAnswer(new Answer<ContentProcessable>() {
+      @Override
+      public ContentProcessable answer(InvocationOnMock invocation) throws Exception {
+        ContentProcessable action = (ContentProcessable) invocation.getArguments()[0];
+        HttpAction msg = action.getNextMessage();
+        int n = requests.incrementAndGet();
+        latch.await(5, TimeUnit.SECONDS);
+        String type = "edittoken";
+        if (msg.getRequest().contains("intoken=delete")) {
+          type = "deletetoken";
+        }
+        action.processReturningText(
+            "{\"query\":{\"pages\":{\"-1\":{\"" + type + "\":\"t" + n + "\"}}}}", msg);
+        return action;
+      }
+    }).when(mock).getPerformedAction(Mockito.any(ContentProcessable.class));
+    return mock;
+  }
+
+  @Test
+  public void testGet() {
+    // GIVEN / WHEN
+    ParamTuple<String> result = testee.get(Intoken.EDIT, "A");
+
+    // THEN
+    assertEquals(new ParamTuple<>("token", "t1"), result);
+    assertEquals(result, testee.get(Intoken.EDIT, "B"));
+    assertEquals(new ParamTuple<>("token", "t2"), testee.get(Intoken.DELETE, "A"));
+    assertEquals(2, requests.get());
+  }
+
+  @Test
+  public void testGet_concurrent() throws Exception {
+    // GIVEN
+    CountDownLatch slowResponse = new CountDownLatch(1);
+    testee = new TokenCache(newBot(slowResponse));
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<ParamTuple<String>>> results = Lists.newArrayList();
+
+    try {
+      // WHEN
+      for (int i = 0; i < 4; i++) {
+        results.add(executor.submit(new Callable<ParamTuple<String>>() {
+          @Override
+          public ParamTuple<String> call() {
+            return testee.get(Intoken.EDIT, "A");
+          }
+        }));
+      }
+      slowResponse.countDown();
+
+      // THEN
+      for (Future<ParamTuple<String>> result : results) {
+        assertEquals(new ParamTuple<>("token", "t1"), result.get(5, TimeUnit.SECONDS));
+      }
+      assertEquals(1, requests.get());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testInvalidateIfBad() {
+    // GIVEN
+    ParamTuple<String> token = testee.get(Intoken.EDIT, "A");
+
+    // WHEN
+    testee.invalidateIfBad(new ApiException("badtoken", "Invalid token"), Intoken.EDIT, token);
+
+    // THEN
+    assertEquals(new ParamTuple<>("token", "t2"), testee.get(Intoken.EDIT, "A"));
+  }
+
+  @Test
+  public void testInvalidateIfBad_otherError() {
+    // GIVEN
+    ParamTuple<String> token = testee.get(Intoken.EDIT, "A");
+
+    // WHEN
+    testee.invalidateIfBad(new ApiException("protectedpage", "Protected"), Intoken.EDIT, token);
+
+    // THEN
+    assertEquals(token, testee.get(Intoken.EDIT, "A"));
+    assertEquals(1, requests.get());
+  }
+
+  @Test
+  public void testInvalidateIfBad_newerTokenIsKept() {
+    // GIVEN
+    ParamTuple<String> oldToken = testee.get(Intoken.EDIT, "A");
+    ApiException badToken = new ApiException("badtoken", "Invalid token");
+    testee.invalidateIfBad(badToken, Intoken.EDIT, oldToken);
+    ParamTuple<String> newToken = testee.get(Intoken.EDIT, "A");
+
+    // WHEN
+    testee.invalidateIfBad(badToken, Intoken.EDIT, oldToken);
+
+    // THEN
+    assertEquals(newToken, testee.get(Intoken.EDIT, "A"));
+    assertEquals(2, requests.get());
+  }
+
+  @Test
+  public void testInvalidateAll() {
+    // GIVEN
+    testee.get(Intoken.EDIT, "A");
+
+    // WHEN
+    testee.invalidateAll();
+
+    // THEN
+    assertEquals(new ParamTuple<>("token", "t2"), testee.get(Intoken.EDIT, "A"));
+  }
+
+  @Test
+  public void testGet_failure() {
+    // GIVEN
+    testee = new TokenCache(mock(MediaWikiBot.class));
+
+    try {
+      // WHEN
+      testee.get(Intoken.EDIT, "A");
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("The argument 'token' is missing", e.getMessage());
+    }
+  }
+}
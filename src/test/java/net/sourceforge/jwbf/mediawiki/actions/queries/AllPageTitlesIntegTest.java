@@ -17,24 +17,24 @@ public class AllPageTitlesIntegTest extends MocoIntegTest {
     super(v);
   }
 
-  ApiMatcherBuilder newBaseMatcher() {
+  ApiMatcherBuilder newBaseMatcher(String limit) {
     return ApiMatcherBuilder.of() //
         .param("action", "query") //
         .param("apfilterredir", "nonredirects") //
         .paramNewContinue(version()) //
         .param("format", "xml") //
         .param("list", "allpages") //
-        .param("aplimit", "50") //
+        .param("aplimit", limit) //
         ;
   }
 
-  RequestMatcher allpages0 = newBaseMatcher().build();
+  RequestMatcher allpages0 = newBaseMatcher("3").build();
 
-  RequestMatcher allpages1 = newBaseMatcher() //
+  RequestMatcher allpages1 = newBaseMatcher("2") //
       .param("apfrom", confOf(ConfKey.ALL_PAGE_CONT_1)) //
       .build();
 
-  RequestMatcher allpages2 = newBaseMatcher() //
+  RequestMatcher allpages2 = newBaseMatcher("1") //
       .param("apfrom", confOf(ConfKey.ALL_PAGE_CONT_2)) //
       .build();
 
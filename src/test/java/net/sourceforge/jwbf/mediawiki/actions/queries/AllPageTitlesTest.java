@@ -2,6 +2,7 @@ package net.sourceforge.jwbf.mediawiki.actions.queries;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.when;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
@@ -46,6 +47,33 @@ public class AllPageTitlesTest {
         allPagesRequest.getRequest());
   }
 
+  @Test
+  public void testGenerateRequest_withMaxLimit() {
+    // GIVEN
+    testee.withMaxLimit();
+
+    // WHEN
+    Get allPagesRequest = testee.generateRequest(Optional.<String>absent(), null, null, null);
+
+    // THEN
+    assertEquals(
+        "/api.php?action=query&apfilterredir=nonredirects&aplimit=max&format=xml&list=allpages",
+        allPagesRequest.getRequest());
+  }
+
+  @Test
+  public void testPrepareNextRequest_range() {
+    // GIVEN
+    testee = new AllPageTitles(bot, "D", "H", null, RedirectFilter.all, MediaWiki.NS_MAIN);
+
+    // WHEN
+    String result = testee.prepareNextRequest().getRequest();
+
+    // THEN
+    assertEquals("/api.php?action=query&apfilterredir=all&apfrom=D&aplimit=50&apnamespace=0" +
+        "&apto=H&format=xml&list=allpages", result);
+  }
+
   @Test
   public void testGenerateRequest_with_prefix() {
     // GIVEN
@@ -138,4 +166,32 @@ public class AllPageTitlesTest {
     assertTrue(result.isEmpty());
   }
 
+  @Test
+  public void testPrepareNextRequest_json() {
+    // GIVEN
+    when(bot.getVersion()).thenReturn(MediaWiki.Version.MW1_25);
+    testee = new AllPageTitles(bot, "D", "H", null, RedirectFilter.all, MediaWiki.NS_MAIN);
+
+    // WHEN
+    String result = testee.prepareNextRequest().getRequest();
+
+    // THEN
+    assertEquals("/api.php?action=query&apfilterredir=all&apfrom=D&aplimit=50&apnamespace=0" +
+        "&apto=H&continue=-%7C%7C&format=json&formatversion=2&list=allpages", result);
+  }
+
+  @Test
+  public void testParseElementsAndHasMore_json() {
+    // GIVEN
+    String json = "{\"continue\":{\"apcontinue\":\"C\",\"continue\":\"-||\"}," + //
+        "\"query\":{\"allpages\":[{\"pageid\":1,\"ns\":0,\"title\":\"A\"}," + //
+        "{\"pageid\":2,\"ns\":0,\"title\":\"B\"}]}}";
+
+    // WHEN
+    ImmutableList<String> result = testee.parseElements(json);
+
+    // THEN
+    assertEquals(ImmutableList.of("A", "B"), result);
+    assertEquals(Optional.of("C"), testee.parseHasMore(json));
+  }
 }
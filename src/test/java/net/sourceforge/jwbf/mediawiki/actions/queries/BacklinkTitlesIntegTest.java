@@ -17,11 +17,11 @@ public class BacklinkTitlesIntegTest extends MocoIntegTest {
     super(v);
   }
 
-  ApiMatcherBuilder newBaseMatcher() {
+  ApiMatcherBuilder newBaseMatcher(String limit) {
     return ApiMatcherBuilder.of() //
         .param("action", "query") //
         .param("blfilterredir", "all") //
-        .param("bllimit", "50") //
+        .param("bllimit", limit) //
         .param("bltitle", "Test") //
         .param("format", "xml") //
         .param("list", "backlinks") //
@@ -29,13 +29,13 @@ public class BacklinkTitlesIntegTest extends MocoIntegTest {
         ;
   }
 
-  RequestMatcher backlinks0 = newBaseMatcher().build();
+  RequestMatcher backlinks0 = newBaseMatcher("14").build();
 
-  RequestMatcher backlinks1 = newBaseMatcher() //
+  RequestMatcher backlinks1 = newBaseMatcher("9") //
       .param("blcontinue", confOf(ConfKey.BACKLINKS_CONT_1)) //
       .build();
 
-  RequestMatcher backlinks2 = newBaseMatcher() //
+  RequestMatcher backlinks2 = newBaseMatcher("4") //
       .param("blcontinue", confOf(ConfKey.BACKLINKS_CONT_2)) //
       .build();
 
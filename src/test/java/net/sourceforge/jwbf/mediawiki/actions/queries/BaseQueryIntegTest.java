@@ -17,12 +17,12 @@ import org.junit.Test;
 
 public class BaseQueryIntegTest extends AbstractIntegTest {
 
-  static RequestMatcher embeddedinTwo() {
+  static RequestMatcher embeddedinTwo(String limit) {
     return ApiMatcherBuilder.of() //
         .param("eicontinue", "10|Babel|37163") //
         .param("action", "query") //
         .param("format", "xml") //
-        .param("eilimit", "50") //
+        .param("eilimit", limit) //
         .param("einamespace", "2") //
         .param("eititle", "Template:Babel") //
         .param("list", "embeddedin") //
@@ -30,11 +30,11 @@ public class BaseQueryIntegTest extends AbstractIntegTest {
         .build();
   }
 
-  static RequestMatcher embeddedinOne() {
+  static RequestMatcher embeddedinOne(String limit) {
     return ApiMatcherBuilder.of() //
         .param("action", "query") //
         .param("format", "xml") //
-        .param("eilimit", "50") //
+        .param("eilimit", limit) //
         .param("einamespace", "2") //
         .param("eititle", "Template:Babel") //
         .param("list", "embeddedin") //
@@ -47,8 +47,8 @@ public class BaseQueryIntegTest extends AbstractIntegTest {
 
     // GIVEN
     MocoIntegTest.applySiteinfoXmlToServer(server, MediaWiki.Version.MW1_23, this.getClass());
-    server.request(embeddedinTwo()).response(TestHelper.anyWikiResponse("embeddedin_2.xml"));
-    server.request(embeddedinOne()).response(TestHelper.anyWikiResponse("embeddedin_1.xml"));
+    server.request(embeddedinTwo("50")).response(TestHelper.anyWikiResponse("embeddedin_2.xml"));
+    server.request(embeddedinOne("50")).response(TestHelper.anyWikiResponse("embeddedin_1.xml"));
     MediaWikiBot bot = new MediaWikiBot(host());
 
     // WHEN
@@ -70,9 +70,9 @@ public class BaseQueryIntegTest extends AbstractIntegTest {
     // GIVEN
     MocoIntegTest.applySiteinfoXmlToServer(server, MediaWiki.Version.MW1_23, this.getClass());
     Supplier<ImmutableList<String>> logLinesSupplier = Logging.newLogLinesSupplier();
-    server.request(embeddedinOne()).response(TestHelper.anyWikiResponse("embeddedin_1.xml"));
-    server.request(embeddedinTwo()).response(TestHelper.anyWikiResponse("embeddedin_1.xml"));
-    server.request(embeddedinTwo()).response(TestHelper.anyWikiResponse("embeddedin_1.xml"));
+    server.request(embeddedinOne("15")).response(TestHelper.anyWikiResponse("embeddedin_1.xml"));
+    server.request(embeddedinTwo("10")).response(TestHelper.anyWikiResponse("embeddedin_1.xml"));
+    server.request(embeddedinTwo("5")).response(TestHelper.anyWikiResponse("embeddedin_1.xml"));
     MediaWikiBot bot = new MediaWikiBot(host());
 
     // WHEN
@@ -1,20 +1,45 @@
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+import net.sourceforge.jwbf.core.actions.ContentProcessable;
+import net.sourceforge.jwbf.core.actions.RequestBuilder;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 @RunWith(MockitoJUnitRunner.class)
 public class BaseQueryTest {
@@ -84,6 +109,757 @@ public class BaseQueryTest {
     }
   }
 
+  @Test
+  public void testPrefetching() {
+    // GIVEN
+    List<String> requested = Lists.newArrayList();
+    PagedQuery query = new PagedQuery(pagedBot(requested, 3), 3);
+
+    // WHEN
+    Iterator<String> result = query.prefetching(1, MoreExecutors.directExecutor());
+
+    // THEN
+    assertEquals(ImmutableList.of("/page=0"), requested);
+    assertEquals("0a", result.next());
+    assertEquals(ImmutableList.of("/page=0", "/page=1"), requested);
+    assertEquals(ImmutableList.of("0b", "1a", "1b", "2a", "2b"),
+        ImmutableList.copyOf(result));
+    assertEquals(ImmutableList.of("/page=0", "/page=1", "/page=2"), requested);
+  }
+
+  @Test
+  public void testPrefetching_deeperBuffer() {
+    // GIVEN
+    List<String> requested = Lists.newArrayList();
+    PagedQuery query = new PagedQuery(pagedBot(requested, 5), 5);
+
+    // WHEN
+    Iterator<String> result = query.prefetching(3, MoreExecutors.directExecutor());
+
+    // THEN
+    assertEquals(3, requested.size());
+    assertEquals("0a", result.next());
+    assertEquals(4, requested.size());
+    assertEquals(9, ImmutableList.copyOf(result).size());
+    assertEquals(5, requested.size());
+  }
+
+  @Test
+  public void testPrefetching_remainingElements() {
+    // GIVEN
+    List<String> requested = Lists.newArrayList();
+    PagedQuery query = new PagedQuery(pagedBot(requested, 2), 2);
+    assertEquals("0a", query.next());
+
+    // WHEN
+    Iterator<String> result = query.prefetching(2, MoreExecutors.directExecutor());
+
+    // THEN
+    assertEquals(ImmutableList.of("0b", "1a", "1b"), ImmutableList.copyOf(result));
+    assertEquals(ImmutableList.of("/page=0", "/page=1"), requested);
+  }
+
+  @Test
+  public void testPrefetching_failure() {
+    // GIVEN
+    List<String> requested = Lists.newArrayList();
+    PagedQuery query = new PagedQuery(pagedBot(requested, 1), 3);
+    Iterator<String> result = query.prefetching(1, MoreExecutors.directExecutor());
+    assertEquals("0a", result.next());
+    assertEquals("0b", result.next());
+
+    try {
+      // WHEN
+      result.next();
+      fail();
+    } catch (IllegalStateException e) {
+      // THEN
+      assertEquals("no page /page=1", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testPrefetching_invalidPages() {
+    try {
+      // GIVEN / WHEN
+      testee.prefetching(0, MoreExecutors.directExecutor());
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("pages must be > 0, but was 0", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testProcessParallel() {
+    // GIVEN
+    List<String> requested = Lists.newArrayList();
+    PagedQuery query = new PagedQuery(pagedBot(requested, 3), 3);
+    assertEquals("0a", query.next());
+    final Queue<String> processed = new ConcurrentLinkedQueue<>();
+    ForkJoinPool pool = new ForkJoinPool(2);
+
+    // WHEN
+    query.processParallel(pool, 1, new ElementProcessor<String>() {
+      @Override
+      public void process(String element) {
+        processed.add(element);
+      }
+    });
+
+    // THEN
+    assertEquals(ImmutableSet.of("0b", "1a", "1b", "2a", "2b"), ImmutableSet.copyOf(processed));
+    assertEquals(5, processed.size());
+    assertEquals(ImmutableList.of("/page=0", "/page=1", "/page=2"), requested);
+    assertFalse(query.hasNext());
+    pool.shutdown();
+  }
+
+  @Test
+  public void testProcessParallel_failure() {
+    // GIVEN
+    PagedQuery query = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 3), 3);
+    ForkJoinPool pool = new ForkJoinPool(2);
+
+    try {
+      // WHEN
+      query.processParallel(pool, new ElementProcessor<String>() {
+        @Override
+        public void process(String element) {
+          if (element.equals("1b")) {
+            throw new IllegalStateException("fail " + element);
+          }
+        }
+      });
+      fail();
+    } catch (IllegalStateException e) {
+      // THEN
+      assertEquals("fail 1b", Throwables.getRootCause(e).getMessage());
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testProcessParallel_failureWaitsForPagesInFlight() {
+    // GIVEN
+    PagedQuery query = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 3), 3);
+    final CountDownLatch secondPageStarted = new CountDownLatch(1);
+    final CountDownLatch failed = new CountDownLatch(1);
+    final Queue<String> processed = new ConcurrentLinkedQueue<>();
+    ForkJoinPool pool = new ForkJoinPool(2);
+
+    try {
+      // WHEN
+      query.processParallel(pool, 3, new ElementProcessor<String>() {
+        @Override
+        public void process(String element) {
+          if (element.equals("0a")) {
+            Uninterruptibles.awaitUninterruptibly(secondPageStarted, 5, TimeUnit.SECONDS);
+            failed.countDown();
+            throw new IllegalStateException("fail " + element);
+          }
+          if (element.equals("1a")) {
+            secondPageStarted.countDown();
+            Uninterruptibles.awaitUninterruptibly(failed, 5, TimeUnit.SECONDS);
+            Uninterruptibles.sleepUninterruptibly(100, TimeUnit.MILLISECONDS);
+          }
+          processed.add(element);
+        }
+      });
+      fail();
+    } catch (IllegalStateException e) {
+      // THEN
+      assertEquals("fail 0a", e.getMessage());
+      assertTrue(processed.contains("1a"));
+      ImmutableList<String> processedOnReturn = ImmutableList.copyOf(processed);
+      Uninterruptibles.sleepUninterruptibly(100, TimeUnit.MILLISECONDS);
+      assertEquals(processedOnReturn, ImmutableList.copyOf(processed));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testProcessParallel_errorWaitsForPagesInFlight() {
+    // GIVEN
+    final CountDownLatch processing = new CountDownLatch(1);
+    MediaWikiBot bot = Mockito.mock(MediaWikiBot.class);
+    doAnswer(new Answer<Object>() {
+      @Override
+      public Object answer(InvocationOnMock invocation) {
+        ContentProcessable action = (ContentProcessable) invocation.getArguments()[0];
+        HttpAction msg = action.getNextMessage();
+        action.processReturningText("0", msg);
+        return action;
+      }
+    }).doAnswer(new Answer<Object>() {
+      @Override
+      public Object answer(InvocationOnMock invocation) {
+        Uninterruptibles.awaitUninterruptibly(processing, 5, TimeUnit.SECONDS);
+        throw new AssertionError("no page 1");
+      }
+    }).when(bot).getPerformedAction(any(ContentProcessable.class));
+    PagedQuery query = new PagedQuery(bot, 3);
+    final Queue<String> processed = new ConcurrentLinkedQueue<>();
+    ForkJoinPool pool = new ForkJoinPool(2);
+
+    try {
+      // WHEN
+      query.processParallel(pool, new ElementProcessor<String>() {
+        @Override
+        public void process(String element) {
+          processing.countDown();
+          Uninterruptibles.sleepUninterruptibly(100, TimeUnit.MILLISECONDS);
+          processed.add(element);
+        }
+      });
+      fail();
+    } catch (AssertionError e) {
+      // THEN
+      assertEquals("no page 1", e.getMessage());
+      assertEquals(ImmutableSet.of("0a", "0b"), ImmutableSet.copyOf(processed));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testProcessParallel_invalidPages() {
+    try {
+      // GIVEN / WHEN
+      testee.processParallel(new ForkJoinPool(1), 0, null);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("pagesInFlight must be > 0, but was 0", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testPublisher() {
+    // GIVEN
+    List<String> requested = Lists.newArrayList();
+    PagedQuery query = new PagedQuery(pagedBot(requested, 2), 2);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    query.publisher(MoreExecutors.directExecutor()).subscribe(subscriber);
+    assertEquals(ImmutableList.of(), requested);
+
+    // WHEN
+    subscriber.subscription.request(1);
+
+    // THEN
+    assertEquals(ImmutableList.of("0a"), subscriber.signals);
+    assertEquals(ImmutableList.of("/page=0"), requested);
+
+    // WHEN
+    subscriber.subscription.request(1);
+
+    // THEN
+    assertEquals(ImmutableList.of("0a", "0b"), subscriber.signals);
+    assertEquals(ImmutableList.of("/page=0"), requested);
+
+    // WHEN
+    subscriber.subscription.request(Long.MAX_VALUE);
+
+    // THEN
+    assertEquals(ImmutableList.of("0a", "0b", "1a", "1b", "complete"), subscriber.signals);
+    assertEquals(ImmutableList.of("/page=0", "/page=1"), requested);
+  }
+
+  @Test
+  public void testPublisher_executor() throws InterruptedException {
+    // GIVEN
+    PagedQuery query = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 4), 4);
+    final CountDownLatch completed = new CountDownLatch(1);
+    final Queue<String> received = new ConcurrentLinkedQueue<>();
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    // WHEN
+    query.publisher(executor, 1).subscribe(new RecordingSubscriber() {
+      @Override
+      public void onSubscribe(QuerySubscription subscription) {
+        subscription.request(Long.MAX_VALUE);
+      }
+
+      @Override
+      public void onNext(String element) {
+        received.add(element);
+      }
+
+      @Override
+      public void onComplete() {
+        completed.countDown();
+      }
+    });
+
+    // THEN
+    assertTrue(completed.await(5, TimeUnit.SECONDS));
+    assertEquals(ImmutableList.of("0a", "0b", "1a", "1b", "2a", "2b", "3a", "3b"),
+        ImmutableList.copyOf(received));
+    executor.shutdown();
+  }
+
+  @Test
+  public void testPublisher_pagesAhead() {
+    // GIVEN
+    List<String> requested = Lists.newArrayList();
+    PagedQuery query = new PagedQuery(pagedBot(requested, 3), 3);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+
+    // WHEN
+    query.publisher(MoreExecutors.directExecutor(), 2).subscribe(subscriber);
+
+    // THEN
+    assertEquals(ImmutableList.of(), subscriber.signals);
+    assertEquals(ImmutableList.of("/page=0", "/page=1"), requested);
+  }
+
+  @Test
+  public void testPublisher_cancel() {
+    // GIVEN
+    List<String> requested = Lists.newArrayList();
+    PagedQuery query = new PagedQuery(pagedBot(requested, 3), 3);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    query.publisher(MoreExecutors.directExecutor()).subscribe(subscriber);
+    subscriber.subscription.request(2);
+
+    // WHEN
+    subscriber.subscription.cancel();
+    subscriber.subscription.request(5);
+
+    // THEN
+    assertEquals(ImmutableList.of("0a", "0b"), subscriber.signals);
+    assertEquals(ImmutableList.of("/page=0"), requested);
+  }
+
+  @Test
+  public void testPublisher_failure() {
+    // GIVEN
+    PagedQuery query = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 1), 3);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    query.publisher(MoreExecutors.directExecutor()).subscribe(subscriber);
+
+    // WHEN
+    subscriber.subscription.request(5);
+
+    // THEN
+    assertEquals(ImmutableList.of("0a", "0b", "error: no page /page=1"), subscriber.signals);
+  }
+
+  @Test
+  public void testPublisher_invalidRequest() {
+    // GIVEN
+    PagedQuery query = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 3), 3);
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+    query.publisher(MoreExecutors.directExecutor()).subscribe(subscriber);
+
+    // WHEN
+    subscriber.subscription.request(0);
+
+    // THEN
+    assertEquals(ImmutableList.of("error: n must be > 0, but was 0"), subscriber.signals);
+  }
+
+  @Test
+  public void testPublisher_secondSubscriber() {
+    // GIVEN
+    PagedQuery query = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 3), 3);
+    QueryPublisher<String> publisher = query.publisher(MoreExecutors.directExecutor());
+    publisher.subscribe(new RecordingSubscriber());
+    RecordingSubscriber subscriber = new RecordingSubscriber();
+
+    // WHEN
+    publisher.subscribe(subscriber);
+
+    // THEN
+    assertEquals(ImmutableList.of("error: only one subscriber is supported"),
+        subscriber.signals);
+  }
+
+  @Test
+  public void testNextLimit_default() {
+    // GIVEN
+    PagedQuery query = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 3), 3);
+
+    // WHEN
+    ImmutableList<String> result = ImmutableList.copyOf(query.lazy());
+
+    // THEN
+    assertEquals(6, result.size());
+    assertEquals(ImmutableList.of("2", "2", "2"), query.limits);
+  }
+
+  @Test
+  public void testNextLimit_budget() {
+    // GIVEN
+    PagedQuery query = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 5), 5);
+
+    query.withLimit(2);
+
+    // WHEN
+    ImmutableList<String> result = query.getCopyOf(3);
+
+    // THEN
+    assertEquals(ImmutableList.of("0a", "0b", "1a"), result);
+    assertEquals(ImmutableList.of("2", "1"), query.limits);
+  }
+
+  @Test
+  public void testNextLimit_budgetExhausted() {
+    // GIVEN
+    List<String> requested = Lists.newArrayList();
+    PagedQuery query = new PagedQuery(pagedBot(requested, 5), 5);
+
+    // WHEN
+    ImmutableList<String> result = query.getCopyOf(2);
+
+    // THEN
+    assertEquals(ImmutableList.of("0a", "0b"), result);
+    assertEquals(ImmutableList.of("/page=0"), requested);
+    assertEquals(ImmutableList.of("2"), query.limits);
+  }
+
+  @Test
+  public void testNextLimit_budgetWithoutLimit() {
+    // GIVEN
+    PagedQuery query = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 5), 5);
+
+    // WHEN
+    query.getCopyOf(3);
+
+    // THEN
+    assertEquals(ImmutableList.of("2", "1"), query.limits);
+  }
+
+  @Test
+  public void testNextLimit_withLimit() {
+    // GIVEN
+    PagedQuery query = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 5), 5);
+
+    // WHEN
+    PagedQuery copy = (PagedQuery) query.withLimit(7).iterator();
+    copy.next();
+
+    // THEN
+    assertEquals(ImmutableList.of("7"), copy.limits);
+  }
+
+  @Test
+  public void testNextLimit_withMaxLimit() {
+    // GIVEN
+    MediaWikiBot bot = pagedBot(Lists.<String>newArrayList(), 5);
+    Mockito.when(bot.hasApiHighLimits()).thenReturn(true);
+    PagedQuery query = new PagedQuery(bot, 5);
+    query.withMaxLimit();
+
+    // WHEN
+    query.iterator().next();
+    query.getCopyOf(7000);
+
+    // THEN
+    assertEquals("max", query.limits.get(0));
+    assertEquals("5000", query.limits.get(1));
+  }
+
+  @Test
+  public void testWithLimit_invalid() {
+    try {
+      // GIVEN / WHEN
+      testee.withLimit(0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("limit must be > 0, but was 0", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testCheckpoint_resume() throws Exception {
+    // GIVEN
+    List<String> requested = Lists.newArrayList();
+    PagedQuery query = new PagedQuery(pagedBot(requested, 3), 3);
+    assertEquals("0a", query.next());
+    assertEquals("0b", query.next());
+    assertEquals("1a", query.next());
+    QueryCheckpoint checkpoint = serializedCopy(query.checkpoint());
+
+    // WHEN
+    List<String> resumedRequests = Lists.newArrayList();
+    PagedQuery resumed = new PagedQuery(pagedBot(resumedRequests, 3), 3);
+    resumed.resume(checkpoint);
+
+    // THEN
+    assertEquals(checkpoint, resumed.checkpoint());
+    Iterator<String> remaining = resumed;
+    assertEquals(ImmutableList.of("1b", "2a", "2b"), ImmutableList.copyOf(remaining));
+    assertEquals(ImmutableList.of("/page=1", "/page=2"), resumedRequests);
+    assertEquals(PagedQuery.class.getName(), checkpoint.getQueryType());
+    assertEquals(Optional.of("1"), checkpoint.getPageInfo());
+    assertEquals(1, checkpoint.getOffset());
+  }
+
+  @Test
+  public void testCheckpoint_iterator() {
+    // GIVEN
+    PagedQuery query = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 3), 3);
+    query.next();
+    query.next();
+    QueryCheckpoint checkpoint = query.checkpoint();
+    PagedQuery resumed = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 3), 3);
+
+    // WHEN
+    resumed.resume(checkpoint);
+
+    // THEN
+    assertEquals(ImmutableList.of("1a", "1b", "2a", "2b"), resumed.getCopyOf(10));
+  }
+
+  @Test
+  public void testCheckpoint_resumeWithSmallerCopy() {
+    // GIVEN
+    PagedQuery query =
+        PagedQuery.withLimitInRequest(pagedBot(Lists.<String>newArrayList(), 3), 3);
+    query.withLimit(3);
+    assertEquals("0a", query.next());
+    QueryCheckpoint checkpoint = query.checkpoint();
+    List<String> requested = Lists.newArrayList();
+    PagedQuery resumed = PagedQuery.withLimitInRequest(pagedBot(requested, 3), 3);
+    resumed.withLimit(3);
+
+    // WHEN
+    resumed.resume(checkpoint);
+
+    // THEN
+    assertEquals(ImmutableList.of("0b"), resumed.getCopyOf(1));
+    assertEquals(ImmutableList.of("/page=0&limit=2"), requested);
+  }
+
+  @Test
+  public void testCheckpoint_ofSmallerCopy() {
+    // GIVEN
+    QueryCheckpoint checkpoint = new QueryCheckpoint(PagedQuery.class.getName(),
+        Optional.of("/page=1&limit=1"), Optional.of("1"), 1);
+    PagedQuery resumed =
+        PagedQuery.withLimitInRequest(pagedBot(Lists.<String>newArrayList(), 3), 3);
+    resumed.withLimit(3);
+
+    // WHEN
+    resumed.resume(checkpoint);
+
+    // THEN
+    Iterator<String> remaining = resumed;
+    assertEquals(ImmutableList.of("1b", "2a", "2b"), ImmutableList.copyOf(remaining));
+  }
+
+  @Test
+  public void testCheckpoint_notStarted() {
+    // GIVEN
+    PagedQuery query = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 2), 2);
+    PagedQuery resumed = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 2), 2);
+
+    // WHEN
+    resumed.resume(query.checkpoint());
+
+    // THEN
+    Iterator<String> all = resumed;
+    assertEquals(ImmutableList.of("0a", "0b", "1a", "1b"), ImmutableList.copyOf(all));
+  }
+
+  @Test
+  public void testResume_otherParameters() {
+    // GIVEN
+    PagedQuery query = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 3), 3);
+    query.next();
+    PagedQuery resumed = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 3), 3);
+    resumed.resume(new QueryCheckpoint(PagedQuery.class.getName(), Optional.of("/page=7"),
+        Optional.<String>absent(), 1));
+
+    try {
+      // WHEN
+      resumed.next();
+      fail();
+    } catch (IllegalStateException e) {
+      // THEN
+      assertEquals("checkpoint of another query; expected request /page=7 but was /page=0",
+          e.getMessage());
+    }
+  }
+
+  @Test
+  public void testResume_otherLimitParameter() {
+    // GIVEN
+    PagedQuery resumed =
+        PagedQuery.withLimitInRequest(pagedBot(Lists.<String>newArrayList(), 3), 3);
+    resumed.resume(new QueryCheckpoint(PagedQuery.class.getName(),
+        Optional.of("/page=1&limit=1&sublimit=5"), Optional.of("1"), 1));
+
+    try {
+      // WHEN
+      resumed.next();
+      fail();
+    } catch (IllegalStateException e) {
+      // THEN
+      assertEquals("checkpoint of another query; expected request /page=1&limit=1&sublimit=5 " +
+          "but was /page=1&limit=2", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testRequestParams() {
+    // GIVEN
+    String request = "/api.php?action=query&aplimit=2&list=allpages&rvlimit=1";
+
+    // WHEN
+    ImmutableSetMultimap<String, String> result =
+        BaseQuery.requestParams(request, Optional.of("aplimit"));
+
+    // THEN
+    assertEquals(ImmutableSetMultimap.of("", "/api.php?", "action", "query", "list", "allpages",
+        "rvlimit", "1"), result);
+    assertEquals(result, BaseQuery.requestParams(
+        "/api.php?rvlimit=1&list=allpages&aplimit=max&action=query", Optional.of("aplimit")));
+  }
+
+  @Test
+  public void testResume_otherType() {
+    // GIVEN
+    QueryCheckpoint checkpoint = testee.checkpoint();
+    PagedQuery query = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 3), 3);
+
+    try {
+      // WHEN
+      query.resume(checkpoint);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertTrue(e.getMessage().endsWith(" can not resume " + PagedQuery.class.getName()));
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testResume_started() {
+    // GIVEN
+    PagedQuery query = new PagedQuery(pagedBot(Lists.<String>newArrayList(), 3), 3);
+    query.next();
+
+    // WHEN
+    query.resume(query.checkpoint());
+  }
+
+  private static QueryCheckpoint serializedCopy(QueryCheckpoint checkpoint) throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(checkpoint);
+    }
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      return (QueryCheckpoint) in.readObject();
+    }
+  }
+
+  private static MediaWikiBot pagedBot(final List<String> requested, final int pages) {
+    MediaWikiBot bot = Mockito.mock(MediaWikiBot.class);
+    doAnswer(new Answer<Object>() {
+      @Override
+      public Object answer(InvocationOnMock invocation) throws Throwable {
+        ContentProcessable action = (ContentProcessable) invocation.getArguments()[0];
+        HttpAction msg = action.getNextMessage();
+        String request = msg.getRequest();
+        int page = Integer.parseInt(request.replaceAll("/page=(\\d+).*", "$1"));
+        if (page >= pages) {
+          throw new IllegalStateException("no page " + request);
+        }
+        requested.add(request);
+        action.processReturningText(String.valueOf(page), msg);
+        return action;
+      }
+    }).when(bot).getPerformedAction(any(ContentProcessable.class));
+    return bot;
+  }
+
+  private static class RecordingSubscriber implements QuerySubscriber<String> {
+
+    private final List<String> signals = Lists.newArrayList();
+    private QuerySubscription subscription;
+
+    @Override
+    public void onSubscribe(QuerySubscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(String element) {
+      signals.add(element);
+    }
+
+    @Override
+    public void onError(Throwable t) {
+      signals.add("error: " + t.getMessage());
+    }
+
+    @Override
+    public void onComplete() {
+      signals.add("complete");
+    }
+  }
+
+  private static class PagedQuery extends BaseQuery<String> {
+
+    private final int pages;
+    private final List<String> limits;
+    private final boolean limitInRequest;
+
+    PagedQuery(MediaWikiBot bot, int pages) {
+      this(bot, pages, Lists.<String>newArrayList(), false);
+    }
+
+    private PagedQuery(MediaWikiBot bot, int pages, List<String> limits,
+        boolean limitInRequest) {
+      super(bot);
+      this.pages = pages;
+      this.limits = limits;
+      this.limitInRequest = limitInRequest;
+    }
+
+    /**
+     * @return a query, that sends its limit like "/page=0&amp;limit=2"
+     */
+    static PagedQuery withLimitInRequest(MediaWikiBot bot, int pages) {
+      return new PagedQuery(bot, pages, Lists.<String>newArrayList(), true);
+    }
+
+    @Override
+    protected Iterator<String> copy() {
+      return new PagedQuery(bot(), pages, limits, limitInRequest);
+    }
+
+    @Override
+    protected HttpAction prepareNextRequest() {
+      String limit = nextLimit("limit", 2);
+      limits.add(limit);
+      String request = "/page=" + nextPageInfoOpt().or("0");
+      if (limitInRequest) {
+        request += "&limit=" + limit;
+      }
+      return new RequestBuilder(request).buildGet();
+    }
+
+    @Override
+    protected ImmutableList<String> parseElements(String s) {
+      return ImmutableList.of(s + "a", s + "b");
+    }
+
+    @Override
+    protected Optional<String> parseHasMore(String s) {
+      int next = Integer.parseInt(s) + 1;
+      if (next < pages) {
+        return Optional.of(String.valueOf(next));
+      }
+      return Optional.absent();
+    }
+  }
+
   public static String emptyXml() {
     return "<empty />";
   }
@@ -1,12 +1,18 @@
 package net.sourceforge.jwbf.mediawiki.actions.queries;
 
 import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
+
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import net.sourceforge.jwbf.GAssert;
+import net.sourceforge.jwbf.core.actions.ContentProcessable;
 import net.sourceforge.jwbf.core.actions.util.HttpAction;
 import net.sourceforge.jwbf.core.internal.NonnullFunction;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
@@ -14,7 +20,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mockito;
 import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
 
 @RunWith(MockitoJUnitRunner.class)
 public class CategoryMembersSimpleTest {
@@ -67,4 +75,47 @@ public class CategoryMembersSimpleTest {
     assertEquals(Optional.of("a"), result);
 
   }
+
+  @Test
+  public void testParseHasMore_continuesCategoryMembers() {
+    // GIVE
+    when(categoryMembers.parseHasMore("valid")).thenReturn(Optional.of("a"));
+
+    // WHEN
+    testee.parseHasMore("valid");
+
+    // THEN
+    assertEquals(Optional.of("a"), categoryMembers.nextPageInfoOpt());
+  }
+
+  @Test
+  public void testGetCopyOf_limitsCategoryMembers() {
+    // GIVEN
+    final List<String> limits = Lists.newArrayList();
+    MediaWikiBot pagedBot = mock(MediaWikiBot.class);
+    doAnswer(new Answer<Object>() {
+      @Override
+      public Object answer(InvocationOnMock invocation) throws Throwable {
+        ContentProcessable action = (ContentProcessable) invocation.getArguments()[0];
+        HttpAction msg = action.getNextMessage();
+        String request = msg.getRequest();
+        limits.add(request.replaceAll(".*cmlimit=(\\d+).*", "$1"));
+        int page = limits.size();
+        action.processReturningText("<api><query-continue><categorymembers cmcontinue=\"" + //
+            page + "\" /></query-continue><query><categorymembers>" + //
+            "<cm ns=\"0\" pageid=\"1\" title=\"A" + page + "\" />" + //
+            "<cm ns=\"0\" pageid=\"2\" title=\"B" + page + "\" />" + //
+            "<cm ns=\"0\" pageid=\"3\" title=\"C" + page + "\" />" + //
+            "</categorymembers></query></api>", msg);
+        return action;
+      }
+    }).when(pagedBot).getPerformedAction(any(ContentProcessable.class));
+
+    // WHEN
+    ImmutableList<String> result = new CategoryMembersSimple(pagedBot, "Foo").getCopyOf(7);
+
+    // THEN
+    assertEquals(7, result.size());
+    assertEquals(ImmutableList.of("7", "4", "1"), limits);
+  }
 }
@@ -0,0 +1,271 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import net.sourceforge.jwbf.core.actions.ContentProcessable;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import net.sourceforge.jwbf.mediawiki.contentRep.CategoryItem;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class CategoryTreeTest {
+
+  private static final CategoryItem A1 = new CategoryItem("A1", MediaWiki.NS_MAIN, 1);
+  private static final CategoryItem B1 = new CategoryItem("B1", MediaWiki.NS_MAIN, 2);
+  private static final CategoryItem T1 = new CategoryItem("Template:T1", MediaWiki.NS_TEMPLATE, 3);
+  private static final CategoryItem CAT_B = new CategoryItem("Category:B b", 14, 10);
+  private static final CategoryItem CAT_A = new CategoryItem("Category:A", 14, 11);
+  private static final CategoryItem CAT_C = new CategoryItem("Kategorie:C", 14, 12);
+  private static final CategoryItem C1 = new CategoryItem("C1", MediaWiki.NS_MAIN, 4);
+  private static final CategoryItem CAT_D = new CategoryItem("Category:D", 14, 13);
+
+  /**
+   * A contains B b, which contains A again and C; C contains A1 like A.
+   */
+  private static final ImmutableMap<String, ImmutableList<CategoryItem>> TREE = //
+      ImmutableMap.of( //
+          "A", ImmutableList.of(A1, CAT_B, T1), //
+          "B_b", ImmutableList.of(B1, CAT_A, CAT_C), //
+          "C", ImmutableList.of(C1, A1));
+
+  private final List<String> requested = Lists.newArrayList();
+  private final ExecutorService executor = Executors.newFixedThreadPool(3);
+  private volatile String errorCategory;
+
+  @After
+  public void after() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testIterator() {
+    // GIVEN
+    CategoryTree testee = CategoryTree.builder(newBot(TREE), executor, "A")
+        .build();
+
+    // WHEN
+    ImmutableSet<CategoryItem> result = ImmutableSet.copyOf(testee);
+
+    // THEN
+    assertEquals(ImmutableSet.of(A1, CAT_B, T1, B1, CAT_A, CAT_C, C1), result);
+    assertEquals(ImmutableList.of("A", "B_b", "C"), requested);
+  }
+
+  @Test
+  public void testIterator_namespacesAndDepth() {
+    // GIVEN
+    CategoryTree testee = CategoryTree.builder(newBot(TREE), executor, "A")
+        .withNamespaces(MediaWiki.NS_MAIN) //
+        .withMaxDepth(1) //
+        .build();
+
+    // WHEN
+    ImmutableList<CategoryItem> result = ImmutableList.copyOf(testee.iterator());
+
+    // THEN
+    assertEquals(ImmutableList.of(A1, B1), result);
+    assertEquals(ImmutableList.of("A", "B_b"), requested);
+  }
+
+  @Test
+  public void testIterator_biggerThanBuffer() {
+    // GIVEN
+    CategoryTree testee = CategoryTree.builder(newBot(TREE), executor, "A") //
+        .withBufferSize(1) //
+        .build();
+
+    // WHEN
+    ImmutableList<CategoryItem> result = ImmutableList.copyOf(testee.iterator());
+
+    // THEN
+    assertEquals(7, result.size());
+    assertEquals(ImmutableSet.of(A1, CAT_B, T1, B1, CAT_A, CAT_C, C1), ImmutableSet.copyOf(result));
+  }
+
+  @Test
+  public void testIterator_breadthFirst() {
+    // GIVEN
+    ExecutorService singleThread = Executors.newSingleThreadExecutor();
+    ImmutableMap<String, ImmutableList<CategoryItem>> tree = ImmutableMap.of( //
+        "A", ImmutableList.of(CAT_B, CAT_C), //
+        "B_b", ImmutableList.of(CAT_D), //
+        "C", ImmutableList.of(C1), //
+        "D", ImmutableList.of(A1));
+    CategoryTree testee = CategoryTree.builder(newBot(tree), singleThread, "A").build();
+
+    // WHEN
+    ImmutableSet<CategoryItem> result = ImmutableSet.copyOf(testee);
+
+    // THEN
+    assertEquals(ImmutableSet.of(CAT_B, CAT_C, CAT_D, C1, A1), result);
+    assertEquals(ImmutableList.of("A", "B_b", "C", "D"), requested);
+    singleThread.shutdown();
+  }
+
+  @Test
+  public void testIterator_directExecutor() {
+    // GIVEN
+    CategoryTree testee =
+        CategoryTree.builder(newBot(TREE), MoreExecutors.directExecutor(), "A").build();
+
+    try {
+      // WHEN
+      testee.iterator().hasNext();
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("executor must not run the tasks in the calling thread", e.getMessage());
+      assertEquals(ImmutableList.of(), requested);
+    }
+  }
+
+  @Test
+  public void testIterator_error() {
+    // GIVEN
+    CategoryTree testee = CategoryTree.builder(newBot(ImmutableMap.of("A", //
+        ImmutableList.of(CAT_B, CAT_C), "C", ImmutableList.of(C1))), executor, "A").build();
+    errorCategory = "B_b";
+
+    try {
+      // WHEN
+      ImmutableList.copyOf(testee.iterator());
+      fail();
+    } catch (AssertionError e) {
+      // THEN
+      assertEquals("broken category B_b", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testClose() throws Exception {
+    // GIVEN
+    ExecutorService singleThread = Executors.newSingleThreadExecutor();
+    CategoryTree testee = CategoryTree.builder(newBot(TREE), singleThread, "A") //
+        .withBufferSize(1) //
+        .build();
+    Iterator<CategoryItem> iterator = testee.iterator();
+    assertEquals(A1, iterator.next());
+
+    // WHEN
+    testee.close();
+
+    // THEN
+    assertFalse(iterator.hasNext());
+    singleThread.shutdown();
+    assertTrue(singleThread.awaitTermination(5, TimeUnit.SECONDS));
+    assertEquals(ImmutableList.of("A"), requested);
+  }
+
+  @Test
+  public void testWithBufferSize_invalid() {
+    try {
+      // GIVEN / WHEN
+      CategoryTree.builder(newBot(TREE), executor, "A").withBufferSize(0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("bufferSize must be > 0, but was 0", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testIterator_failure() {
+    // GIVEN
+    CategoryTree testee = CategoryTree.builder(newBot(ImmutableMap.of("A", //
+        ImmutableList.of(CAT_B))), executor, "A").build();
+
+    try {
+      // WHEN
+      ImmutableList.copyOf(testee.iterator());
+      fail();
+    } catch (IllegalStateException e) {
+      // THEN
+      assertEquals("unknown category B_b", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testRequestedNamespaces() {
+    // GIVEN
+    CategoryTree testee = CategoryTree.builder(newBot(TREE), executor, "A")
+        .withNamespaces(MediaWiki.NS_MAIN, MediaWiki.NS_CATEGORY) //
+        .build();
+
+    // WHEN
+    ImmutableList<Integer> result = testee.requestedNamespaces();
+
+    // THEN
+    assertEquals(ImmutableList.of(MediaWiki.NS_MAIN, MediaWiki.NS_CATEGORY), result);
+    assertTrue(CategoryTree.builder(newBot(TREE), executor, "A").build()
+        .requestedNamespaces().isEmpty());
+  }
+
+  @Test
+  public void testWithMaxDepth_invalid() {
+    try {
+      // GIVEN / WHEN
+      CategoryTree.builder(newBot(TREE), executor, "A").withMaxDepth(-1);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("maxDepth must be >= 0, but was -1", e.getMessage());
+    }
+  }
+
+  private MediaWikiBot newBot(final Map<String, ImmutableList<CategoryItem>> tree) {
+    MediaWikiBot bot = Mockito.mock(MediaWikiBot.class);
+    doAnswer(new Answer<Object>() {
+      @Override
+      public Object answer(InvocationOnMock invocation) {
+        ContentProcessable action = (ContentProcessable) invocation.getArguments()[0];
+        HttpAction msg = action.getNextMessage();
+        String request = msg.getRequest();
+        String category = request.replaceAll(".*cmtitle=Category:([^&]*).*", "$1");
+        if (category.equals(errorCategory)) {
+          throw new AssertionError("broken category " + category);
+        }
+        if (!tree.containsKey(category)) {
+          throw new IllegalStateException("unknown category " + category);
+        }
+        synchronized (requested) {
+          requested.add(category);
+        }
+        action.processReturningText(members(tree.get(category)), msg);
+        return action;
+      }
+    }).when(bot).getPerformedAction(any(ContentProcessable.class));
+    return bot;
+  }
+
+  private static String members(List<CategoryItem> items) {
+    StringBuilder xml = new StringBuilder("<api><query><categorymembers>");
+    for (CategoryItem item : items) {
+      xml.append("<cm pageid=\"").append(item.getPageid()) //
+          .append("\" ns=\"").append(item.getNamespace()) //
+          .append("\" title=\"").append(item.getTitle()).append("\" />");
+    }
+    return xml.append("</categorymembers></query></api>").toString();
+  }
+}
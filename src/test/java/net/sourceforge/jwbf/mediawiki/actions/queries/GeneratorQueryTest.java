@@ -0,0 +1,182 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.actions.editing.GetRevision;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class GeneratorQueryTest {
+
+  private static final String PAGES = "{\"continue\":{\"gapcontinue\":\"C d\"," + //
+      "\"continue\":\"gapcontinue||\"},\"query\":{\"pages\":{" + //
+      "\"3\":{\"pageid\":3,\"ns\":0,\"title\":\"A\",\"revisions\":[{\"*\":\"text a\"}]}," + //
+      "\"7\":{\"pageid\":7,\"ns\":0,\"title\":\"B\"}}}}";
+
+  @Mock
+  private MediaWikiBot bot;
+
+  @Test
+  public void testPrepareNextRequest() {
+    // GIVEN
+    GeneratorQuery testee = GeneratorQuery.allPages(bot, GetRevision.CONTENT, MediaWiki.NS_MAIN);
+
+    // WHEN
+    String result = testee.prepareNextRequest().getRequest();
+
+    // THEN
+    assertEquals("/api.php?action=query&continue=-%7C%7C&format=json&gaplimit=50" + //
+        "&gapnamespace=0&generator=allpages&prop=revisions&rvprop=content", result);
+  }
+
+  @Test
+  public void testPrepareNextRequest_categoryMembers() {
+    // GIVEN
+    GeneratorQuery testee = GeneratorQuery.categoryMembers(bot, "A b",
+        GetRevision.CONTENT | GetRevision.USER, MediaWiki.NS_MAIN, MediaWiki.NS_TEMPLATE);
+    testee.withLimit(500);
+
+    // WHEN
+    String result = testee.prepareNextRequest().getRequest();
+
+    // THEN
+    assertEquals("/api.php?action=query&continue=-%7C%7C&format=json&gcmlimit=500" + //
+        "&gcmnamespace=0%7C10&gcmtitle=Category%3AA_b&generator=categorymembers" + //
+        "&prop=revisions&rvprop=content%7Cuser", result);
+  }
+
+  @Test
+  public void testPrepareNextRequest_formatVersion2() {
+    // GIVEN
+    when(bot.getVersion()).thenReturn(MediaWiki.Version.UNKNOWN);
+    GeneratorQuery testee = GeneratorQuery.allPages(bot, GetRevision.CONTENT, MediaWiki.NS_MAIN);
+
+    // WHEN
+    String result = testee.prepareNextRequest().getRequest();
+
+    // THEN
+    assertEquals("/api.php?action=query&continue=-%7C%7C&format=json&formatversion=2" + //
+        "&gaplimit=50&gapnamespace=0&generator=allpages&prop=revisions&rvprop=content", result);
+  }
+
+  @Test
+  public void testParseElements_formatVersion2() {
+    // GIVEN
+    GeneratorQuery testee = GeneratorQuery.allPages(bot,
+        GetRevision.CONTENT | GetRevision.FLAGS, MediaWiki.NS_MAIN);
+    String json = "{\"query\":{\"pages\":[" + //
+        "{\"pageid\":3,\"ns\":0,\"title\":\"A\",\"revisions\":[{\"minor\":false," + //
+        "\"content\":\"text a\"}]}," + //
+        "{\"ns\":0,\"title\":\"B\",\"missing\":true,\"revisions\":[]}]}}";
+
+    // WHEN
+    ImmutableList<SimpleArticle> result = testee.parseElements(json);
+
+    // THEN
+    assertEquals(1, result.size());
+    assertEquals("A", result.get(0).getTitle());
+    assertEquals("text a", result.get(0).getText());
+    assertFalse(result.get(0).isMinorEdit());
+  }
+
+  @Test
+  public void testParseElements() {
+    // GIVEN
+    GeneratorQuery testee = GeneratorQuery.embeddedIn(bot, "Template:A", GetRevision.CONTENT);
+
+    // WHEN
+    ImmutableList<SimpleArticle> result = testee.parseElements(PAGES);
+
+    // THEN
+    assertEquals(1, result.size());
+    assertEquals("A", result.get(0).getTitle());
+    assertEquals("text a", result.get(0).getText());
+  }
+
+  @Test
+  public void testParseElements_withoutContent() {
+    // GIVEN
+    GeneratorQuery testee = GeneratorQuery.allPages(bot, GetRevision.USER, MediaWiki.NS_MAIN);
+    String json = "{\"query\":{\"pages\":{\"3\":{\"pageid\":3,\"ns\":0," + //
+        "\"title\":\"A\",\"revisions\":[{\"user\":\"Bob\"}]}}}}";
+
+    // WHEN
+    ImmutableList<SimpleArticle> result = testee.parseElements(json);
+
+    // THEN
+    assertEquals(1, result.size());
+    assertEquals("A", result.get(0).getTitle());
+    assertEquals("Bob", result.get(0).getEditor());
+  }
+
+  @Test
+  public void testParseElements_skipsInvalidPages() {
+    // GIVEN
+    GeneratorQuery testee = GeneratorQuery.allPages(bot, GetRevision.CONTENT, MediaWiki.NS_MAIN);
+    String json = "{\"query\":{\"pages\":{\"-1\":{\"ns\":0,\"title\":\"A\"," + //
+        "\"missing\":\"\",\"revisions\":[]}}}}";
+
+    // WHEN
+    ImmutableList<SimpleArticle> result = testee.parseElements(json);
+
+    // THEN
+    assertEquals(ImmutableList.of(), result);
+  }
+
+  @Test
+  public void testReadPage_apiError() {
+    // GIVEN
+    GeneratorQuery testee = GeneratorQuery.allPages(bot, GetRevision.CONTENT, MediaWiki.NS_MAIN);
+    String json = "{\"error\":{\"code\":\"badcontinue\"," + //
+        "\"info\":\"Invalid continue param\"}}";
+
+    try {
+      // WHEN
+      testee.readPage(json);
+      fail();
+    } catch (ApiException e) {
+      // THEN
+      assertEquals("badcontinue", e.getCode());
+    }
+  }
+
+  @Test
+  public void testParseHasMore() {
+    // GIVEN
+    GeneratorQuery testee = GeneratorQuery.backlinks(bot, "A", GetRevision.CONTENT);
+    testee.prepareNextRequest();
+
+    // WHEN
+    testee.setNextPageInfo(testee.parseHasMore(PAGES).orNull());
+    String result = testee.prepareNextRequest().getRequest();
+
+    // THEN
+    assertEquals("/api.php?action=query&continue=gapcontinue%7C%7C&format=json" + //
+        "&gapcontinue=C+d&gbllimit=50&gbltitle=A&generator=backlinks&prop=revisions" + //
+        "&rvprop=content", result);
+  }
+
+  @Test
+  public void testParseHasMore_done() {
+    // GIVEN
+    GeneratorQuery testee = GeneratorQuery.backlinks(bot, "A", GetRevision.CONTENT);
+
+    // WHEN
+    Optional<String> result = testee.parseHasMore("{\"query\":{\"pages\":{}}}");
+
+    // THEN
+    assertFalse(result.isPresent());
+  }
+}
@@ -14,22 +14,22 @@ public class ImageUsageTitlesIntegTest extends MocoIntegTest {
     super(version);
   }
 
-  ApiMatcherBuilder newBaseMatcher() {
+  ApiMatcherBuilder newBaseMatcher(String limit) {
     return ApiMatcherBuilder.of() //
         .param("action", "query") //
         .paramNewContinue(version()) //
         .param("format", "xml") //
-        .param("iulimit", "3") //
+        .param("iulimit", limit) //
         .param("iunamespace", "0|1|2|3|4|5|6|7|8|9|10|11|12|13|14|15") //
         .param("iutitle", "Any.gif") //
         .param("list", "imageusage") //
         ;
   }
 
-  RequestMatcher imageUsageTitles0 = newBaseMatcher() //
+  RequestMatcher imageUsageTitles0 = newBaseMatcher("3") //
       .build();
 
-  RequestMatcher imageUsageTitles1 = newBaseMatcher() //
+  RequestMatcher imageUsageTitles1 = newBaseMatcher("1") //
       .param("iucontinue", "6|Any.gif|5962") //
       .build();
 
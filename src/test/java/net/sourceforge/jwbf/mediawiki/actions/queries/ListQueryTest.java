@@ -0,0 +1,109 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import java.util.Iterator;
+import java.util.List;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import net.sourceforge.jwbf.core.actions.ContentProcessable;
+import net.sourceforge.jwbf.core.actions.RequestBuilder;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.mapper.ListItem;
+import net.sourceforge.jwbf.mapper.ListPage;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class ListQueryTest {
+
+  private static final String JSON =
+      "\n {\"continue\":{\"apcontinue\":\"B\",\"continue\":\"-||\"}," + //
+          "\"query\":{\"allpages\":[{\"pageid\":1,\"ns\":0,\"title\":\"A\"}]}}";
+
+  private final List<ListPage> parsed = Lists.newArrayList();
+
+  @Test
+  public void testNext_parsedOnce() {
+    // GIVEN
+    ListQuery<String> testee = new TitleListQuery(newBot(JSON));
+
+    // WHEN
+    String result = testee.next();
+
+    // THEN
+    assertEquals("A", result);
+    assertEquals(2, parsed.size());
+    assertSame(parsed.get(0), parsed.get(1));
+    assertEquals(Optional.of("B"), testee.nextPageInfoOpt());
+  }
+
+  @Test
+  public void testParseElements_xml() {
+    // GIVEN
+    String xml = "<api><query><allpages><p title=\"A\" /></allpages></query></api>";
+    ListQuery<String> testee = new TitleListQuery(newBot(xml));
+
+    // WHEN
+    ImmutableList<String> result = testee.parseElements(xml);
+
+    // THEN
+    assertEquals(ImmutableList.of("A"), result);
+    assertFalse(testee.parseHasMore(xml).isPresent());
+  }
+
+  private MediaWikiBot newBot(final String response) {
+    MediaWikiBot bot = Mockito.mock(MediaWikiBot.class);
+    doAnswer(new Answer<Object>() {
+      @Override
+      public Object answer(InvocationOnMock invocation) {
+        ContentProcessable action = (ContentProcessable) invocation.getArguments()[0];
+        HttpAction msg = action.getNextMessage();
+        action.processReturningText(response, msg);
+        return action;
+      }
+    }).when(bot).getPerformedAction(any(ContentProcessable.class));
+    return bot;
+  }
+
+  private class TitleListQuery extends ListQuery<String> {
+
+    TitleListQuery(MediaWikiBot bot) {
+      super(bot, "allpages");
+    }
+
+    @Override
+    protected ImmutableList<String> parseElements(ListPage page) {
+      parsed.add(page);
+      ImmutableList.Builder<String> titles = ImmutableList.builder();
+      for (ListItem item : page.getItems()) {
+        titles.add(item.getAttributeValue("title"));
+      }
+      return titles.build();
+    }
+
+    @Override
+    protected Optional<String> parseHasMore(ListPage page) {
+      parsed.add(page);
+      return page.getContinue("apcontinue", "apfrom");
+    }
+
+    @Override
+    protected HttpAction prepareNextRequest() {
+      return new RequestBuilder("/api.php").buildGet();
+    }
+
+    @Override
+    protected Iterator<String> copy() {
+      return new TitleListQuery(bot());
+    }
+  }
+}
@@ -0,0 +1,226 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import net.sourceforge.jwbf.core.actions.ContentProcessable;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class PartitionedAllPageTitlesTest {
+
+  private static final ImmutableList<String> TITLES = ImmutableList.of("A", "B", "C", "D", "E",
+      "F", "G", "H", "I", "J", "K", "L", "M");
+
+  private final List<String> requests = Lists.newArrayList();
+
+  @Test
+  public void testOrdered() {
+    // GIVEN
+    PartitionedAllPageTitles testee =
+        PartitionedAllPageTitles.builder(allPagesBot(), MoreExecutors.directExecutor()) //
+            .withBoundaries("H", "D") //
+            .withLimit(2) //
+            .build();
+
+    // WHEN
+    ImmutableList<String> result = ImmutableList.copyOf(testee);
+
+    // THEN
+    assertEquals(TITLES, result);
+    assertEquals("/api.php?action=query&apfilterredir=nonredirects&aplimit=2&apnamespace=0" +
+        "&apto=D&format=xml&list=allpages", requests.get(0));
+  }
+
+  @Test
+  public void testUnordered() throws Exception {
+    // GIVEN
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    try {
+      PartitionedAllPageTitles testee =
+          PartitionedAllPageTitles.builder(allPagesBot(), executor) //
+              .withBoundaries("D", "H") //
+              .withLimit(2) //
+              .withPagesAhead(1) //
+              .unordered() //
+              .build();
+
+      // WHEN
+      ImmutableList<String> result = ImmutableList.copyOf(testee);
+
+      // THEN
+      assertEquals(TITLES.size(), result.size());
+      assertEquals(ImmutableSortedSet.copyOf(TITLES), ImmutableSortedSet.copyOf(result));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testOrdered_lowerCaseBoundaries() {
+    // GIVEN
+    PartitionedAllPageTitles testee =
+        PartitionedAllPageTitles.builder(allPagesBot(), MoreExecutors.directExecutor()) //
+            .withBoundaries("h", "d") //
+            .build();
+
+    // WHEN
+    ImmutableList<String> result = ImmutableList.copyOf(testee);
+
+    // THEN
+    assertEquals(TITLES, result);
+    assertEquals("/api.php?action=query&apfilterredir=nonredirects&aplimit=50&apnamespace=0" +
+        "&apto=D&format=xml&list=allpages", requests.get(0));
+  }
+
+  @Test
+  public void testOrdered_dbKeyOrder() {
+    // GIVEN
+    ImmutableList<String> titles = ImmutableList.of("A", "Foo!", "Foo bar", "Z");
+    PartitionedAllPageTitles testee =
+        PartitionedAllPageTitles.builder(allPagesBot(titles), MoreExecutors.directExecutor()) //
+            .withBoundaries("Foo bar", "Foo!") //
+            .build();
+
+    // WHEN
+    ImmutableList<String> result = ImmutableList.copyOf(testee);
+
+    // THEN
+    assertEquals(titles, result);
+    assertEquals("/api.php?action=query&apfilterredir=nonredirects&aplimit=50&apnamespace=0" +
+        "&apto=Foo%21&format=xml&list=allpages", requests.get(0));
+  }
+
+  @Test
+  public void testDbKeyOrder() {
+    // GIVEN
+    ImmutableList<String> titles = ImmutableList.of("Foo bar", "Foo!", "Foo", "Foo\uFFFD",
+        "Foo\uD83D\uDE00");
+
+    // WHEN
+    ImmutableList<String> result =
+        ImmutableSortedSet.copyOf(PartitionedAllPageTitles.Builder.DB_KEY_ORDER, titles).asList();
+
+    // THEN
+    assertEquals(ImmutableList.of("Foo", "Foo!", "Foo bar", "Foo\uFFFD", "Foo\uD83D\uDE00"),
+        result);
+  }
+
+  @Test
+  public void testIsUpperBound() {
+    // GIVEN
+    PartitionedAllPageTitles.Partition partition =
+        PartitionedAllPageTitles.builder(allPagesBot(), MoreExecutors.directExecutor()) //
+            .withBoundaries("m_n") //
+            .withNamespaces(MediaWiki.NS_MAIN_TALK) //
+            .build().partitions().get(0);
+
+    // WHEN / THEN
+    assertTrue(partition.isUpperBound("Talk:M n"));
+    assertFalse(partition.isUpperBound("Talk:A:M n"));
+    assertFalse(partition.isUpperBound("Talk:M"));
+  }
+
+  @Test
+  public void testPartitions() {
+    // GIVEN
+    PartitionedAllPageTitles testee =
+        PartitionedAllPageTitles.builder(allPagesBot(), MoreExecutors.directExecutor()) //
+            .withBoundaries("M") //
+            .withNamespaces(MediaWiki.NS_MAIN, MediaWiki.NS_CATEGORY) //
+            .build();
+
+    // WHEN
+    int result = testee.partitions().size();
+
+    // THEN
+    assertEquals(4, result);
+  }
+
+  @Test
+  public void testWithPagesAhead_invalid() {
+    try {
+      // GIVEN / WHEN
+      PartitionedAllPageTitles.builder(allPagesBot(), MoreExecutors.directExecutor()) //
+          .withPagesAhead(0);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("pagesAhead must be > 0, but was 0", e.getMessage());
+    }
+  }
+
+  private MediaWikiBot allPagesBot() {
+    return allPagesBot(TITLES);
+  }
+
+  /**
+   * Answers allpages requests with the titles, which must be in the order of their database
+   * keys; apfrom and apto are inclusive.
+   */
+  private MediaWikiBot allPagesBot(final ImmutableList<String> titles) {
+    MediaWikiBot bot = mock(MediaWikiBot.class);
+    doAnswer(new Answer<Object>() {
+      @Override
+      public Object answer(InvocationOnMock invocation) throws Throwable {
+        ContentProcessable action = (ContentProcessable) invocation.getArguments()[0];
+        HttpAction msg = action.getNextMessage();
+        String request = msg.getRequest();
+        synchronized (requests) {
+          requests.add(request);
+        }
+        Map<String, String> params =
+            Splitter.on('&').withKeyValueSeparator("=").split(request.split("\\?")[1]);
+        String from = decode(Optional.fromNullable(params.get("apfrom")).or(""));
+        String to = decode(Optional.fromNullable(params.get("apto")).or("~"));
+        int limit = Integer.parseInt(params.get("aplimit"));
+        StringBuilder xml = new StringBuilder("<api>");
+        StringBuilder pages = new StringBuilder();
+        int count = 0;
+        for (String title : titles) {
+          if (dbKey(title).compareTo(from) >= 0 && dbKey(title).compareTo(to) <= 0) {
+            if (count == limit) {
+              xml.append("<query-continue><allpages apfrom=\"" + title + "\" />" +
+                  "</query-continue>");
+              break;
+            }
+            pages.append("<p ns=\"0\" title=\"" + title + "\" />");
+            count++;
+          }
+        }
+        xml.append("<query><allpages>").append(pages).append("</allpages></query></api>");
+        action.processReturningText(xml.toString(), msg);
+        return action;
+      }
+    }).when(bot).getPerformedAction(any(ContentProcessable.class));
+    return bot;
+  }
+
+  private static String decode(String param) {
+    return dbKey(MediaWiki.urlDecode(param));
+  }
+
+  private static String dbKey(String title) {
+    return title.replace(' ', '_');
+  }
+}
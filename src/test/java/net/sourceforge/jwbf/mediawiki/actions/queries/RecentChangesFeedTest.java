@@ -0,0 +1,321 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import net.sourceforge.jwbf.core.actions.ContentProcessable;
+import net.sourceforge.jwbf.core.actions.util.HttpAction;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import net.sourceforge.jwbf.mediawiki.contentRep.RecentChange;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class RecentChangesFeedTest {
+
+  private static final String T0 = "2014-04-28T16:43:00Z";
+  private static final String T1 = "2014-04-28T16:43:05Z";
+
+  private final List<String> requested = Lists.newArrayList();
+  private final Deque<String> responses = Lists.newLinkedList();
+
+  @Test
+  public void testPoll_skipsReturnedChanges() {
+    // GIVEN
+    RecentChangesFeed testee = RecentChangesFeed.builder(newBot()) //
+        .withCursor(new RecentChangesCursor(T0, ImmutableSet.of(1L))) //
+        .build();
+    responses.add(changes("", change(1, T0), change(2, T0), change(3, T1)));
+
+    // WHEN
+    ImmutableList<RecentChange> result = testee.poll();
+
+    // THEN
+    assertEquals(ImmutableList.of(2L, 3L), rcids(result));
+    assertTrue(requested.get(0).contains("&rcstart=2014-04-28T16%3A43%3A00Z"));
+    assertEquals(Optional.of(new RecentChangesCursor(T1, ImmutableSet.of(3L))),
+        testee.getCursor());
+  }
+
+  @Test
+  public void testPoll_sameTimestamp() {
+    // GIVEN
+    RecentChangesFeed testee = RecentChangesFeed.builder(newBot()) //
+        .withCursor(new RecentChangesCursor(T0, ImmutableSet.of(1L))) //
+        .build();
+    responses.add(changes("", change(1, T0), change(2, T0)));
+    responses.add(changes("", change(1, T0), change(2, T0), change(4, T0)));
+
+    // WHEN
+    ImmutableList<RecentChange> first = testee.poll();
+    ImmutableList<RecentChange> second = testee.poll();
+
+    // THEN
+    assertEquals(ImmutableList.of(2L), rcids(first));
+    assertEquals(ImmutableList.of(4L), rcids(second));
+    assertEquals(Optional.of(new RecentChangesCursor(T0, ImmutableSet.of(1L, 2L, 4L))),
+        testee.getCursor());
+  }
+
+  @Test
+  public void testPoll_continue() {
+    // GIVEN
+    RecentChangesFeed testee = RecentChangesFeed.builder(newBot()) //
+        .withCursor(new RecentChangesCursor(T0, ImmutableSet.<Long>of())) //
+        .build();
+    responses.add(changes("\"continue\":{\"rccontinue\":\"20140428164305|3\"," + //
+        "\"continue\":\"-||\"},", change(1, T0), change(2, T0)));
+    responses.add(changes("", change(3, T1)));
+
+    // WHEN
+    ImmutableList<RecentChange> result = testee.poll();
+
+    // THEN
+    assertEquals(ImmutableList.of(1L, 2L, 3L), rcids(result));
+    assertEquals(2, requested.size());
+    assertTrue(requested.get(1).contains("&rccontinue=20140428164305%7C3&"));
+  }
+
+  @Test
+  public void testPoll_withoutCursor() {
+    // GIVEN
+    RecentChangesFeed testee = RecentChangesFeed.builder(newBot()).build();
+    responses.add(changes("", change(5, T1), change(4, T1), change(3, T0)));
+    responses.add(changes("", change(4, T1), change(5, T1), change(6, T1)));
+
+    // WHEN
+    ImmutableList<RecentChange> result = testee.poll();
+
+    // THEN
+    assertEquals(ImmutableList.of(6L), rcids(result));
+    assertTrue(requested.get(0).contains("&rcdir=older&"));
+    assertFalse(requested.get(0).contains("&rcstart="));
+    assertTrue(requested.get(1).contains("&rcdir=newer&"));
+    assertTrue(requested.get(1).contains("&rcstart=2014-04-28T16%3A43%3A05Z"));
+  }
+
+  @Test
+  public void testPoll_withoutChanges() {
+    // GIVEN
+    RecentChangesFeed testee = RecentChangesFeed.builder(newBot()).build();
+    responses.add(changes(""));
+    responses.add(changes(""));
+
+    // WHEN
+    ImmutableList<RecentChange> result = testee.poll();
+
+    // THEN
+    assertTrue(result.isEmpty());
+    assertFalse(requested.get(1).contains("&rcstart="));
+    assertEquals(Optional.<RecentChangesCursor>absent(), testee.getCursor());
+  }
+
+  @Test
+  public void testPoll_apiError() {
+    // GIVEN
+    RecentChangesCursor cursor = new RecentChangesCursor(T0, ImmutableSet.of(1L));
+    RecentChangesFeed testee = RecentChangesFeed.builder(newBot()) //
+        .withCursor(cursor) //
+        .build();
+    responses.add("{\"error\":{\"code\":\"readapidenied\"," + //
+        "\"info\":\"You need read permission to use this module\"}}");
+
+    try {
+      // WHEN
+      testee.poll();
+      fail();
+    } catch (ApiException e) {
+      // THEN
+      assertEquals("readapidenied", e.getCode());
+      assertEquals(Optional.of(cursor), testee.getCursor());
+      assertEquals(2000, testee.getIntervalMillis());
+    }
+  }
+
+  @Test
+  public void testPoll_interval() {
+    // GIVEN
+    RecentChangesFeed testee = RecentChangesFeed.builder(newBot()) //
+        .withCursor(new RecentChangesCursor(T0, ImmutableSet.<Long>of())) //
+        .withPollInterval(1, 5, TimeUnit.SECONDS) //
+        .build();
+    responses.add(changes(""));
+    responses.add(changes(""));
+    responses.add(changes(""));
+    responses.add(changes("", change(1, T1)));
+
+    // WHEN / THEN
+    testee.poll();
+    assertEquals(2000, testee.getIntervalMillis());
+    testee.poll();
+    assertEquals(4000, testee.getIntervalMillis());
+    testee.poll();
+    assertEquals(5000, testee.getIntervalMillis());
+    testee.poll();
+    assertEquals(1000, testee.getIntervalMillis());
+  }
+
+  @Test
+  public void testTail() throws InterruptedException {
+    // GIVEN
+    RecentChangesFeed testee = Mockito.spy(RecentChangesFeed.builder(newBot()) //
+        .withCursor(new RecentChangesCursor(T0, ImmutableSet.<Long>of())) //
+        .build());
+    final List<Long> sleeps = Lists.newArrayList();
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        sleeps.add((Long) invocation.getArguments()[0]);
+        if (sleeps.size() == 2) {
+          Thread.currentThread().interrupt();
+        }
+        return null;
+      }
+    }).when(testee).sleepMillis(anyLong());
+    responses.add(changes("", change(1, T0)));
+    responses.add(changes("", change(2, T1)));
+    final List<RecentChange> processed = Lists.newArrayList();
+
+    // WHEN
+    testee.tail(new ElementProcessor<RecentChange>() {
+      @Override
+      public void process(RecentChange element) {
+        processed.add(element);
+      }
+    });
+
+    // THEN
+    assertTrue(Thread.interrupted());
+    assertEquals(ImmutableList.of(1L, 2L), rcids(processed));
+    assertEquals(ImmutableList.of(2000L, 2000L), sleeps);
+  }
+
+  @Test
+  public void testTail_cursorPerChange() throws InterruptedException {
+    // GIVEN
+    final RecentChangesFeed testee = Mockito.spy(RecentChangesFeed.builder(newBot()) //
+        .withCursor(new RecentChangesCursor(T0, ImmutableSet.of(1L))) //
+        .build());
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+    }).when(testee).sleepMillis(anyLong());
+    responses.add(changes("", change(1, T0), change(2, T0), change(3, T1), change(4, T1)));
+    final List<Optional<RecentChangesCursor>> cursors = Lists.newArrayList();
+
+    // WHEN
+    testee.tail(new ElementProcessor<RecentChange>() {
+      @Override
+      public void process(RecentChange element) {
+        cursors.add(testee.getCursor());
+      }
+    });
+
+    // THEN
+    assertTrue(Thread.interrupted());
+    assertEquals(ImmutableList.of( //
+        Optional.of(new RecentChangesCursor(T0, ImmutableSet.of(1L, 2L))), //
+        Optional.of(new RecentChangesCursor(T1, ImmutableSet.of(3L))), //
+        Optional.of(new RecentChangesCursor(T1, ImmutableSet.of(3L, 4L)))), cursors);
+  }
+
+  @Test
+  public void testTail_perPage() throws InterruptedException {
+    // GIVEN
+    final RecentChangesFeed testee = Mockito.spy(RecentChangesFeed.builder(newBot()) //
+        .withCursor(new RecentChangesCursor(T0, ImmutableSet.<Long>of())) //
+        .build());
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) {
+        Thread.currentThread().interrupt();
+        return null;
+      }
+    }).when(testee).sleepMillis(anyLong());
+    responses.add(changes("\"continue\":{\"rccontinue\":\"20140428164305|2\"," + //
+        "\"continue\":\"-||\"},", change(1, T0)));
+    responses.add(changes("", change(2, T1)));
+    final List<Integer> requestsBeforeProcessing = Lists.newArrayList();
+
+    // WHEN
+    testee.tail(new ElementProcessor<RecentChange>() {
+      @Override
+      public void process(RecentChange element) {
+        requestsBeforeProcessing.add(requested.size());
+      }
+    });
+
+    // THEN
+    assertTrue(Thread.interrupted());
+    assertEquals(ImmutableList.of(1, 2), requestsBeforeProcessing);
+  }
+
+  @Test
+  public void testBuilder_invalidInterval() {
+    try {
+      // GIVEN / WHEN
+      RecentChangesFeed.builder(newBot()).withPollInterval(5, 1, TimeUnit.SECONDS);
+      fail();
+    } catch (IllegalArgumentException e) {
+      // THEN
+      assertEquals("max must be >= min (5), but was 1", e.getMessage());
+    }
+  }
+
+  private MediaWikiBot newBot() {
+    MediaWikiBot bot = Mockito.mock(MediaWikiBot.class);
+    doAnswer(new Answer<Object>() {
+      @Override
+      public Object answer(InvocationOnMock invocation) {
+        ContentProcessable action = (ContentProcessable) invocation.getArguments()[0];
+        HttpAction msg = action.getNextMessage();
+        requested.add(msg.getRequest());
+        action.processReturningText(responses.remove(), msg);
+        return action;
+      }
+    }).when(bot).getPerformedAction(any(ContentProcessable.class));
+    return bot;
+  }
+
+  private static String changes(String aContinue, String... changes) {
+    StringBuilder json = new StringBuilder("{" + aContinue + "\"query\":{\"recentchanges\":[");
+    for (int i = 0; i < changes.length; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append(changes[i]);
+    }
+    return json.append("]}}").toString();
+  }
+
+  private static String change(long rcid, String timestamp) {
+    return "{\"type\":\"edit\",\"ns\":0,\"title\":\"T" + rcid + "\",\"rcid\":" + rcid + //
+        ",\"timestamp\":\"" + timestamp + "\"}";
+  }
+
+  private static ImmutableList<Long> rcids(List<RecentChange> changes) {
+    ImmutableList.Builder<Long> rcids = ImmutableList.builder();
+    for (RecentChange change : changes) {
+      rcids.add(change.getRcid());
+    }
+    return rcids.build();
+  }
+}
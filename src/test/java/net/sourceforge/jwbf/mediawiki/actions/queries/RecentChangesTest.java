@@ -0,0 +1,91 @@
+package net.sourceforge.jwbf.mediawiki.actions.queries;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import net.sourceforge.jwbf.core.internal.TimeConverter;
+import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
+import net.sourceforge.jwbf.mediawiki.contentRep.RecentChange;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RecentChangesTest {
+
+  static final String CHANGES = "{\"continue\":{\"rccontinue\":\"20140428164301|651902892\"," + //
+      "\"continue\":\"-||\"},\"query\":{\"recentchanges\":[" + //
+      "{\"type\":\"edit\",\"ns\":0,\"title\":\"A\",\"pageid\":7,\"revid\":606199674," + //
+      "\"old_revid\":606199465,\"rcid\":651902891,\"user\":\"U\",\"oldlen\":100," + //
+      "\"newlen\":90,\"timestamp\":\"2014-04-28T16:43:00Z\",\"comment\":\"c\"}]}}";
+
+  @Mock
+  private MediaWikiBot bot;
+
+  @Test
+  public void testPrepareNextRequest() {
+    // GIVEN
+    RecentChanges testee = new RecentChanges(bot, Optional.of("2014-04-28T16:43:00Z"),
+        ImmutableList.of(MediaWiki.NS_MAIN, MediaWiki.NS_USER));
+
+    // WHEN
+    String result = testee.prepareNextRequest().getRequest();
+
+    // THEN
+    assertEquals("/api.php?action=query&continue=-%7C%7C&format=json&list=recentchanges" + //
+        "&rcdir=newer&rclimit=50&rcnamespace=0%7C2" + //
+        "&rcprop=ids%7Ctitle%7Cuser%7Ctimestamp%7Csizes%7Ccomment" + //
+        "&rcstart=2014-04-28T16%3A43%3A00Z", result);
+  }
+
+  @Test
+  public void testParseElements() {
+    // GIVEN
+    RecentChanges testee =
+        new RecentChanges(bot, Optional.<String>absent(), ImmutableList.<Integer>of());
+
+    // WHEN
+    ImmutableList<RecentChange> result = testee.parseElements(CHANGES);
+
+    // THEN
+    RecentChange expected = new RecentChange(651902891, "edit", 0, "A", 7, 606199674,
+        606199465, "U", 100, 90,
+        TimeConverter.from("2014-04-28T16:43:00Z", TimeConverter.YYYYMMDD_T_HHMMSS_Z).get(), "c");
+    assertEquals(ImmutableList.of(expected), result);
+    assertEquals(-10, result.get(0).getSizeChange());
+  }
+
+  @Test
+  public void testParseHasMore() {
+    // GIVEN
+    RecentChanges testee =
+        new RecentChanges(bot, Optional.<String>absent(), ImmutableList.<Integer>of());
+    testee.prepareNextRequest();
+
+    // WHEN
+    testee.setNextPageInfo(testee.parseHasMore(CHANGES).orNull());
+    String result = testee.prepareNextRequest().getRequest();
+
+    // THEN
+    assertEquals("/api.php?action=query&continue=-%7C%7C&format=json&list=recentchanges" + //
+        "&rccontinue=20140428164301%7C651902892&rcdir=newer&rclimit=50" + //
+        "&rcprop=ids%7Ctitle%7Cuser%7Ctimestamp%7Csizes%7Ccomment", result);
+  }
+
+  @Test
+  public void testParseHasMore_done() {
+    // GIVEN
+    RecentChanges testee =
+        new RecentChanges(bot, Optional.<String>absent(), ImmutableList.<Integer>of());
+
+    // WHEN
+    Optional<String> result = testee.parseHasMore("{\"query\":{\"recentchanges\":[]}}");
+
+    // THEN
+    assertFalse(result.isPresent());
+  }
+}
@@ -12,24 +12,34 @@ import net.sourceforge.jwbf.GAssert;
 import net.sourceforge.jwbf.TestHelper;
 import net.sourceforge.jwbf.mediawiki.ApiMatcherBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
+import net.sourceforge.jwbf.mediawiki.MocoIntegTest;
+import net.sourceforge.jwbf.mediawiki.actions.meta.SiteInfoIntegTest;
 import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 import org.junit.Test;
 
 public class RecentchangeTitlesIntegTest extends AbstractIntegTest {
 
-  RequestMatcher embeddedinTwo = ApiMatcherBuilder.of() //
-      .param("action", "query") //
-      .param("format", "xml") //
-      .param("list", "recentchanges") //
-      .param("rclimit", "50") //
-      .param("rcnamespace", "0") //
-      .build();
+  static ApiMatcherBuilder newBaseMatcher(String limit) {
+    return ApiMatcherBuilder.of() //
+        .param("action", "query") //
+        .param("list", "recentchanges") //
+        .param("rclimit", limit) //
+        .param("rcnamespace", "0") //
+        ;
+  }
+
+  static RequestMatcher recentchanges(String limit) {
+    return newBaseMatcher(limit) //
+        .param("format", "xml") //
+        .build();
+  }
 
   @Test
   public void test() {
 
     // GIVEN
-    server.request(embeddedinTwo).response(TestHelper.anyWikiResponse("recentchanges_1.xml"));
+    MocoIntegTest.applySiteinfoXmlToServer(server, MediaWiki.Version.MW1_24, getClass());
+    server.request(recentchanges("15")).response(TestHelper.anyWikiResponse("recentchanges_1.xml"));
     MediaWikiBot bot = new MediaWikiBot(host());
 
     // WHEN
@@ -49,7 +59,8 @@ public class RecentchangeTitlesIntegTest extends AbstractIntegTest {
   public void testOne() {
 
     // GIVEN
-    server.request(embeddedinTwo).response(TestHelper.anyWikiResponse("recentchanges_1.xml"));
+    MocoIntegTest.applySiteinfoXmlToServer(server, MediaWiki.Version.MW1_24, getClass());
+    server.request(recentchanges("1")).response(TestHelper.anyWikiResponse("recentchanges_1.xml"));
     MediaWikiBot bot = new MediaWikiBot(host());
 
     // WHEN
@@ -63,4 +74,26 @@ public class RecentchangeTitlesIntegTest extends AbstractIntegTest {
 
   }
 
+  @Test
+  public void testJson() {
+
+    // GIVEN
+    server.request(SiteInfoIntegTest.newSiteInfoMatcherBuilder().build()) //
+        .response(TestHelper.anyWikiResponse("siteinfo_1-26.xml"));
+    server.request(newBaseMatcher("2") //
+        .param("format", "json") //
+        .param("formatversion", "2") //
+        .build()).response(TestHelper.anyWikiResponse("recentchanges_formatversion2.json"));
+    MediaWikiBot bot = new MediaWikiBot(host());
+
+    // WHEN
+    RecentchangeTitles testee = new RecentchangeTitles(bot, MediaWiki.NS_MAIN);
+    List<String> resultList = testee.getCopyOf(2);
+
+    // THEN
+    ImmutableList<String> expected = ImmutableList.of("A & B", "C");
+    GAssert.assertEquals(expected, ImmutableList.copyOf(resultList));
+
+  }
+
 }
@@ -17,20 +17,22 @@ import net.sourceforge.jwbf.mediawiki.bots.MediaWikiBot;
 import org.junit.Test;
 
 public class SearchIntegTest extends AbstractIntegTest {
-  private static final ApiMatcherBuilder MATCHERS_COMMON = ApiMatcherBuilder.of() //
-      .param("action", "query") //
-      .param("continue", "-||") //
-      .param("format", "json") //
-      .param("list", "search") //
-      .param("srinfo", "totalhits") //
-      .param("srlimit", "50") //
-      .param("srnamespace", "0") //
-      .param("srprop", "size") //
-      .param("srsearch", "meaning") //
-      .param("srwhat", "text");
+  private static ApiMatcherBuilder matchersCommon(String limit) {
+    return ApiMatcherBuilder.of() //
+        .param("action", "query") //
+        .param("continue", "-||") //
+        .param("format", "json") //
+        .param("list", "search") //
+        .param("srinfo", "totalhits") //
+        .param("srlimit", limit) //
+        .param("srnamespace", "0") //
+        .param("srprop", "size") //
+        .param("srsearch", "meaning") //
+        .param("srwhat", "text");
+  }
 
   private static RequestMatcher[] matchers =
-      { MATCHERS_COMMON.build(), MATCHERS_COMMON.param("sroffset", "50").build() };
+      { matchersCommon("50").build(), matchersCommon("5").param("sroffset", "50").build() };
 // TODO: put this into a ressource file
   private static String[] responses =
       { "{\"continue\":{\"sroffset\":50,\"continue\":\"-||\"},\"batchcomplete\":\"\"," +
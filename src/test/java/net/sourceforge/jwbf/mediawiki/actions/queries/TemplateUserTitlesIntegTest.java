@@ -20,10 +20,10 @@ public class TemplateUserTitlesIntegTest extends MocoIntegTest {
     super(version);
   }
 
-  ApiMatcherBuilder newBaseMatcher() {
+  ApiMatcherBuilder newBaseMatcher(String limit) {
     return ApiMatcherBuilder.of() //
         .param("action", "query") //
-        .param("eilimit", "3") //
+        .param("eilimit", limit) //
         .param("einamespace", "0|1|2|3|4|5|6|7|8|9|10|11|12|13|14|15") //
         .param("eititle", "Template:TestTemplate") //
         .param("format", "xml") //
@@ -32,11 +32,11 @@ public class TemplateUserTitlesIntegTest extends MocoIntegTest {
         ;
   }
 
-  RequestMatcher embeddedinTwo = newBaseMatcher() //
+  RequestMatcher embeddedinTwo = newBaseMatcher("1") //
       .param("eicontinue", "10|TestTemplate|5743") //
       .build();
 
-  RequestMatcher embeddedinOne = newBaseMatcher().build();
+  RequestMatcher embeddedinOne = newBaseMatcher("3").build();
 
   @Test
   public void test() {
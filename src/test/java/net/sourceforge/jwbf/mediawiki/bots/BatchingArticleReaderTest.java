@@ -0,0 +1,183 @@
+package net.sourceforge.jwbf.mediawiki.bots;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.isA;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import net.sourceforge.jwbf.mediawiki.actions.editing.GetRevision;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class BatchingArticleReaderTest {
+
+  private final Executor direct = MoreExecutors.directExecutor();
+  private MediaWikiBot bot;
+  private final List<String> requests = Lists.newArrayList();
+
+  @Before
+  public void before() {
+    bot = mock(MediaWikiBot.class);
+    when(bot.getPerformedAction(isA(GetRevision.class))).thenAnswer(new Answer<GetRevision>() {
+      @Override
+      public GetRevision answer(InvocationOnMock invocation) {
+        GetRevision action = (GetRevision) invocation.getArguments()[0];
+        String request = action.getNextMessage().getRequest();
+        synchronized (requests) {
+          requests.add(request.replaceAll(".*titles=([^&]*).*", "$1"));
+        }
+        GetRevision result = mock(GetRevision.class);
+        when(result.getArticleOpt("A")).thenReturn(Optional.of(new SimpleArticle("A")));
+        when(result.getArticleOpt("B")).thenReturn(Optional.<SimpleArticle>absent());
+        when(result.getArticleOpt("C")).thenReturn(Optional.of(new SimpleArticle("C")));
+        return result;
+      }
+    });
+  }
+
+  @Test
+  public void testReadDataOpt_fullBatch() throws Exception {
+    // GIVEN
+    BatchingArticleReader testee = new BatchingArticleReader(bot, 3, 1, TimeUnit.MINUTES, direct);
+
+    // WHEN
+    ListenableFuture<Optional<SimpleArticle>> c = testee.readDataOptAsync("C");
+    ListenableFuture<Optional<SimpleArticle>> a = testee.readDataOptAsync("A");
+    ListenableFuture<Optional<SimpleArticle>> b = testee.readDataOptAsync("B");
+
+    // THEN
+    assertEquals(ImmutableList.of("A%7CB%7CC"), requests);
+    assertEquals(Optional.of(new SimpleArticle("A")), a.get());
+    assertEquals(Optional.absent(), b.get());
+    assertEquals(Optional.of(new SimpleArticle("C")), c.get());
+  }
+
+  @Test
+  public void testReadDataOpt_window() throws Exception {
+    // GIVEN
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    BatchingArticleReader testee =
+        new BatchingArticleReader(bot, 50, 50, TimeUnit.MILLISECONDS, executor);
+
+    // WHEN
+    ListenableFuture<Optional<SimpleArticle>> a = testee.readDataOptAsync("A");
+    ListenableFuture<Optional<SimpleArticle>> duplicate = testee.readDataOptAsync("A");
+    Optional<SimpleArticle> c = testee.readDataOpt("C");
+    executor.shutdown();
+
+    // THEN
+    assertEquals(ImmutableList.of("A%7CC"), requests);
+    assertEquals(Optional.of(new SimpleArticle("A")), a.get());
+    assertEquals(Optional.of(new SimpleArticle("A")), duplicate.get());
+    assertEquals(Optional.of(new SimpleArticle("C")), c);
+  }
+
+  @Test
+  public void testReadDataOpt_flush() throws Exception {
+    // GIVEN
+    BatchingArticleReader testee = new BatchingArticleReader(bot, 50, 1, TimeUnit.MINUTES, direct);
+    ListenableFuture<Optional<SimpleArticle>> b = testee.readDataOptAsync("B");
+
+    // WHEN
+    testee.flush();
+
+    // THEN
+    assertEquals(ImmutableList.of("B"), requests);
+    assertEquals(Optional.absent(), b.get());
+  }
+
+  @Test
+  public void testReadDataOpt_fail() throws Exception {
+    // GIVEN
+    MediaWikiBot failingBot = mock(MediaWikiBot.class);
+    when(failingBot.getPerformedAction(isA(GetRevision.class)))
+        .thenThrow(new IllegalStateException("invalid status"));
+    BatchingArticleReader testee = new BatchingArticleReader(failingBot, 2, 1, TimeUnit.MINUTES,
+        direct);
+
+    // WHEN
+    ListenableFuture<Optional<SimpleArticle>> a = testee.readDataOptAsync("A");
+    try {
+      testee.readDataOpt("B");
+      fail();
+    } catch (IllegalStateException e) {
+      // THEN
+      assertEquals("invalid status", e.getMessage());
+    }
+    try {
+      a.get();
+      fail();
+    } catch (ExecutionException e) {
+      assertEquals("invalid status", e.getCause().getMessage());
+    }
+  }
+
+  @Test
+  public void testReadDataOpt_rejected() throws Exception {
+    // GIVEN
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    executor.shutdown();
+    BatchingArticleReader testee =
+        new BatchingArticleReader(bot, 2, 10, TimeUnit.MILLISECONDS, executor);
+
+    // WHEN
+    ListenableFuture<Optional<SimpleArticle>> a = testee.readDataOptAsync("A");
+    ListenableFuture<Optional<SimpleArticle>> b = testee.readDataOptAsync("B");
+    ListenableFuture<Optional<SimpleArticle>> c = testee.readDataOptAsync("C");
+
+    // THEN
+    for (ListenableFuture<Optional<SimpleArticle>> future : ImmutableList.of(a, b, c)) {
+      try {
+        future.get(1, TimeUnit.SECONDS);
+        fail();
+      } catch (ExecutionException e) {
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+      }
+    }
+    assertEquals(ImmutableList.of(), requests);
+  }
+
+  @Test
+  public void testReadDataOpt_chunks() throws Exception {
+    // GIVEN
+    when(bot.getTitlesPerRequest()).thenReturn(50);
+    BatchingArticleReader testee = new BatchingArticleReader(bot, 500, 1, TimeUnit.MINUTES, direct);
+    ListenableFuture<Optional<SimpleArticle>> a = testee.readDataOptAsync("A");
+    for (int i = 0; i < 50; i++) {
+      testee.readDataOptAsync(String.format("T%02d", i));
+    }
+    ListenableFuture<Optional<SimpleArticle>> c = testee.readDataOptAsync("C");
+
+    // WHEN
+    testee.flush();
+
+    // THEN
+    assertEquals(2, requests.size());
+    assertEquals("T48%7CT49", requests.get(1));
+    assertEquals(Optional.of(new SimpleArticle("A")), a.get());
+    assertEquals(Optional.of(new SimpleArticle("C")), c.get());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidBatchSize() {
+    new BatchingArticleReader(bot, 0, 1, TimeUnit.SECONDS, direct);
+  }
+}
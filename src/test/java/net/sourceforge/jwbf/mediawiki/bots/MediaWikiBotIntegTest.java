@@ -18,6 +18,8 @@ import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
 import net.sourceforge.jwbf.mediawiki.ApiMatcherBuilder;
 import net.sourceforge.jwbf.mediawiki.MediaWiki;
 import net.sourceforge.jwbf.mediawiki.MocoIntegTest;
+import net.sourceforge.jwbf.mediawiki.actions.meta.SiteInfoIntegTest;
+import net.sourceforge.jwbf.mediawiki.actions.queries.AllPageTitles;
 
 import org.junit.Test;
 
@@ -136,6 +138,29 @@ public class MediaWikiBotIntegTest extends AbstractIntegTest {
     assertEquals(Optional.of(getSimpleArticle()), result);
   }
 
+  @Test
+  public void testListQuery_unknownVersion() {
+    // GIVEN
+    server.request(SiteInfoIntegTest.newSiteInfoMatcherBuilder().build()) //
+        .response(TestHelper.anyWikiResponse("siteinfo_1-26.xml"));
+    server.request(ApiMatcherBuilder.of() //
+        .param("action", "query") //
+        .param("apfilterredir", "nonredirects") //
+        .param("aplimit", "2") //
+        .param("format", "json") //
+        .param("formatversion", "2") //
+        .param("list", "allpages") //
+        .build()).response(TestHelper.anyWikiResponse("allpages_formatversion2.json"));
+    MediaWikiBot testee = new MediaWikiBot(host());
+
+    // WHEN
+    ImmutableList<String> result = new AllPageTitles(testee).getCopyOf(2);
+
+    // THEN
+    assertEquals(MediaWiki.Version.UNKNOWN, testee.getVersion());
+    GAssert.assertEquals(ImmutableList.of("A", "B"), result);
+  }
+
   @Test
   public void testwatch() {
       server.request(unWatch).response(TestHelper.anyWikiResponse("watch.json"));
@@ -3,15 +3,32 @@ package net.sourceforge.jwbf.mediawiki.bots;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.isA;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -23,12 +40,14 @@ import net.sourceforge.jwbf.core.actions.HttpActionClient;
 import net.sourceforge.jwbf.core.actions.util.ActionException;
 import net.sourceforge.jwbf.core.bots.HttpBot;
 import net.sourceforge.jwbf.core.contentRep.SimpleArticle;
+import net.sourceforge.jwbf.core.contentRep.Userinfo;
 import net.sourceforge.jwbf.mediawiki.MediaWiki.Version;
 import net.sourceforge.jwbf.mediawiki.actions.editing.GetRevision;
 import net.sourceforge.jwbf.mediawiki.actions.editing.PostModifyContent;
 import net.sourceforge.jwbf.mediawiki.actions.login.PostLogin;
 import net.sourceforge.jwbf.mediawiki.actions.meta.GetVersion;
 import net.sourceforge.jwbf.mediawiki.actions.meta.Siteinfo;
+import net.sourceforge.jwbf.mediawiki.actions.util.ApiException;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
@@ -211,6 +230,47 @@ public class MediaWikiBotTest {
     verify(client).performAction(isA(PostModifyContent.class));
   }
 
+  @Test
+  public void testWriteContent_badToken() {
+    // GIVEN
+    mockValidLogin("username", client);
+    testee.login("username", "pw");
+    when(client.performAction(isA(PostModifyContent.class))) //
+        .thenThrow(new ApiException("badtoken", "Invalid token")) //
+        .thenReturn("");
+
+    // WHEN
+    SimpleArticle simpleArticle = new SimpleArticle();
+    simpleArticle.setTitle("Test");
+    simpleArticle.setText("Test");
+    testee.writeContent(simpleArticle);
+
+    // THEN
+    verify(client, times(2)).performAction(isA(PostModifyContent.class));
+  }
+
+  @Test
+  public void testWriteContent_otherApiError() {
+    // GIVEN
+    mockValidLogin("username", client);
+    testee.login("username", "pw");
+    when(client.performAction(isA(PostModifyContent.class))) //
+        .thenThrow(new ApiException("protectedpage", "Protected"));
+    SimpleArticle simpleArticle = new SimpleArticle();
+    simpleArticle.setTitle("Test");
+    simpleArticle.setText("Test");
+
+    try {
+      // WHEN
+      testee.writeContent(simpleArticle);
+      fail();
+    } catch (ApiException e) {
+      // THEN
+      assertEquals("protectedpage", e.getCode());
+      verify(client).performAction(isA(PostModifyContent.class));
+    }
+  }
+
   @Test
   public void testIsLoggedIn() {
     // GIVEN
@@ -356,6 +416,154 @@ public class MediaWikiBotTest {
     GAssert.assertEquals(articles, result);
   }
 
+  @Test
+  public void testGetPerformedAction_executor() throws Exception {
+    // GIVEN
+    final AtomicReference<Thread> performer = new AtomicReference<>();
+    doAnswer(new Answer<String>() {
+      @Override
+      public String answer(InvocationOnMock invocation) throws Throwable {
+        performer.set(Thread.currentThread());
+        return "";
+      }
+    }).when(client).performAction(isA(GetVersion.class));
+    GetVersion action = new GetVersion();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    try {
+      // WHEN
+      ListenableFuture<GetVersion> future = testee.getPerformedAction(action, executor);
+
+      // THEN
+      assertSame(action, future.get());
+      assertNotSame(Thread.currentThread(), performer.get());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testReadDataOpt_executor() throws Exception {
+    // GIVEN
+    final String title = "Test";
+    GetRevision mockAnswer = mock(GetRevision.class);
+    when(mockAnswer.getArticleOpt()).thenReturn(Optional.of(new SimpleArticle(title)));
+    testee = spy(new MediaWikiBot(client));
+    doReturn(mockAnswer).when(testee).getPerformedAction(isA(GetRevision.class));
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    try {
+      // WHEN
+      Optional<SimpleArticle> result = testee.readDataOpt(title, executor).get();
+
+      // THEN
+      assertEquals(title, result.get().getTitle());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testReadDataChunked() {
+    // GIVEN
+    ImmutableList<String> titles = titles(120);
+    final List<ImmutableList<String>> requested = Lists.newArrayList();
+    testee = chunkingBot(requested, ImmutableSet.<String>of());
+
+    // WHEN
+    ImmutableList<SimpleArticle> result = testee.readData(titles);
+
+    // THEN
+    assertEquals(ImmutableList.of(50, 50, 20), sizes(requested));
+    assertEquals(120, result.size());
+    assertEquals("T0", result.get(0).getTitle());
+    assertEquals("T119", result.get(119).getTitle());
+  }
+
+  @Test
+  public void testReadDataOptChunked_highLimits() {
+    // GIVEN
+    ImmutableList<String> titles = titles(1200);
+    final List<ImmutableList<String>> requested = Lists.newArrayList();
+    testee = chunkingBot(requested, ImmutableSet.of("apihighlimits"));
+
+    // WHEN
+    ImmutableList<Optional<SimpleArticle>> result = testee.readDataOpt(titles);
+
+    // THEN
+    assertEquals(ImmutableList.of(500, 500, 200), sizes(requested));
+    assertEquals(1200, result.size());
+    assertEquals("T700", result.get(700).get().getTitle());
+  }
+
+  @Test
+  public void testReadDataOptIterator() {
+    // GIVEN
+    ImmutableList<String> titles = titles(120);
+    final List<ImmutableList<String>> requested = Lists.newArrayList();
+    testee = chunkingBot(requested, ImmutableSet.<String>of());
+
+    // WHEN
+    Iterator<Optional<SimpleArticle>> result =
+        testee.readDataOpt(titles, MoreExecutors.directExecutor(), 2);
+
+    // THEN
+    assertEquals(ImmutableList.of(50, 50), sizes(requested));
+    for (int i = 0; i < 51; i++) {
+      assertEquals("T" + i, result.next().get().getTitle());
+    }
+    assertEquals(ImmutableList.of(50, 50, 20), sizes(requested));
+    for (int i = 51; i < 120; i++) {
+      assertEquals("T" + i, result.next().get().getTitle());
+    }
+    assertFalse(result.hasNext());
+  }
+
+  private static ImmutableList<String> titles(int count) {
+    ImmutableList.Builder<String> titles = ImmutableList.builder();
+    for (int i = 0; i < count; i++) {
+      titles.add("T" + i);
+    }
+    return titles.build();
+  }
+
+  private static ImmutableList<Integer> sizes(List<ImmutableList<String>> requested) {
+    ImmutableList.Builder<Integer> sizes = ImmutableList.builder();
+    for (ImmutableList<String> names : requested) {
+      sizes.add(names.size());
+    }
+    return sizes.build();
+  }
+
+  private MediaWikiBot chunkingBot(final List<ImmutableList<String>> requested,
+      ImmutableSet<String> rights) {
+    MediaWikiBot bot = spy(new MediaWikiBot(client));
+    Userinfo userinfo = mock(Userinfo.class);
+    when(userinfo.getRights()).thenReturn(rights);
+    doReturn(userinfo).when(bot).getUserinfo();
+    doAnswer(new Answer<GetRevision>() {
+      @Override
+      public GetRevision answer(InvocationOnMock invocation) {
+        GetRevision action = (GetRevision) invocation.getArguments()[0];
+        String titles = action.getNextMessage().getRequest().replaceAll(".*titles=", "");
+        ImmutableList<String> names = ImmutableList.copyOf(titles.split("%7C"));
+        requested.add(names);
+        GetRevision mockAnswer = mock(GetRevision.class);
+        ImmutableList.Builder<SimpleArticle> articles = ImmutableList.builder();
+        ImmutableList.Builder<Optional<SimpleArticle>> articlesOpt = ImmutableList.builder();
+        for (String name : names) {
+          articles.add(new SimpleArticle(name));
+          articlesOpt.add(Optional.of(new SimpleArticle(name)));
+          when(mockAnswer.getArticleOpt(name)).thenReturn(Optional.of(new SimpleArticle(name)));
+        }
+        when(mockAnswer.asList()).thenReturn(articles.build());
+        when(mockAnswer.asListOpt()).thenReturn(articlesOpt.build());
+        return mockAnswer;
+      }
+    }).when(bot).getPerformedAction(isA(GetRevision.class));
+    return bot;
+  }
+
   private void mockValidLogin(final String username, HttpActionClient mockClient) {
     doAnswer(new Answer<Void>() {
       @Override